@@ -0,0 +1,201 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+// Alpha synchronizer - in each round a node sends one message to each of its neighbors, then waits to receive one
+// message from each of its neighbors sent in that round and then advances to the next round. A neighbor's round
+// message doubles as its "safe" signal, since channels are reliable and FIFO, so no other messages are needed.
+// Costs 2|E| messages per round. With early termination, the channel to a neighbor is retired after a round in
+// which the algorithms of both nodes were done, and the node stops once all of its channels are retired.
+public class AlphaSynchronizer implements Synchronizer {
+
+    // Synchronizer of the node
+    private final SCTPClientServer cs;
+
+    // Keeps track of messages sent from node and received by node for each round, by port. A retired channel counts
+    // as sent and received.
+    private final boolean[] messagesSentThisRound;
+    private final boolean[] messagesReceivedThisRound;
+    // Number of active channels whose round message has not been sent / received yet this round. The event that
+    // takes both to 0 completes the round, so no event has to scan all ports (which made a round O(degree^2)).
+    private int sendsPending;
+    private int receivesPending;
+
+    // Ports this node still exchanges round messages on. A channel is retired after a round in which the algorithms
+    // of both nodes were done, since neither node can learn anything more from the other.
+    private final boolean[] activeNeighbors;
+    private int numOfActiveNeighbors;
+    // Ports whose message this round said the neighbor's algorithms are done.
+    private final boolean[] doneNeighborsThisRound;
+
+    // Constructor
+    public AlphaSynchronizer(SCTPClientServer cs, Node nodeInfo)
+    {
+        this.cs = cs;
+        int degree = nodeInfo.getDegree();
+        messagesSentThisRound = new boolean[degree];
+        messagesReceivedThisRound = new boolean[degree];
+        doneNeighborsThisRound = new boolean[degree];
+
+        // All channels start active.
+        activeNeighbors = new boolean[degree];
+        Arrays.fill(activeNeighbors, true);
+        numOfActiveNeighbors = degree;
+        sendsPending = degree;
+        receivesPending = degree;
+    }
+
+    @Override
+    public String getName()
+    {
+        return "alpha";
+    }
+
+    /*
+        Method: roundStarted
+        Description: Resets the messages sent and received and queues the node's round message for every neighbor
+            that is still active.
+        Parameters: None
+        Returns: Nothing
+     */
+    @Override
+    public void roundStarted()
+    {
+        // Reset messages received and sent for new round with a value of false on the active channels.
+        sendsPending = numOfActiveNeighbors;
+        receivesPending = numOfActiveNeighbors;
+        for(int port = 0; port < activeNeighbors.length; port++)
+        {
+            if(activeNeighbors[port])
+            {
+                messagesReceivedThisRound[port] = false;
+                messagesSentThisRound[port] = false;
+                cs.queueMessage(port, cs.createRoundMessage(port));
+            }
+        }
+    }
+
+    /*
+        Method: messageSent
+        Description: Updates that the round message was sent to the neighbor and checks if the round is complete.
+        Parameters: Integer port of the destination neighbor and the sent message.
+        Returns: Nothing
+     */
+    @Override
+    public void messageSent(int port, Message msg)
+    {
+        // Update that a message was sent to the neighbor for this round.
+        if(!messagesSentThisRound[port])
+        {
+            messagesSentThisRound[port] = true;
+            sendsPending--;
+        }
+        checkRoundComplete();
+    }
+
+    /*
+        Method: messageReceived
+        Description: Hands the neighbor's round message to the node's algorithms, updates that a message was
+            received from the neighbor and checks if the round is complete.
+        Parameters: Integer port of the source neighbor and the received message.
+        Returns: Nothing
+     */
+    @Override
+    public void messageReceived(int port, Message msg)
+    {
+        cs.recordReceived(port, msg);
+
+        // Update that a message was received from the neighbor for this round.
+        if(!messagesReceivedThisRound[port])
+        {
+            messagesReceivedThisRound[port] = true;
+            receivesPending--;
+        }
+        if(msg.done)
+        {
+            doneNeighborsThisRound[port] = true;
+        }
+        checkRoundComplete();
+    }
+
+    @Override
+    public boolean isChannelActive(int port)
+    {
+        return activeNeighbors[port];
+    }
+
+    /*
+        Method: saveState
+        Description: Writes which channels are still active, for a checkpoint of the node taken as it enters a round
+            (the sent, received and done flags are only used within a round).
+        Parameters: DataOutput to write to.
+        Returns: Nothing
+     */
+    public void saveState(DataOutput out) throws IOException
+    {
+        for(boolean active : activeNeighbors)
+        {
+            out.writeBoolean(active);
+        }
+    }
+
+    /*
+        Method: restoreState
+        Description: Reads the active channels written by saveState, before the node enters the round it resumes
+            from.
+        Parameters: DataInput to read from.
+        Returns: Nothing
+     */
+    public void restoreState(DataInput in) throws IOException
+    {
+        numOfActiveNeighbors = 0;
+        for(int port = 0; port < activeNeighbors.length; port++)
+        {
+            activeNeighbors[port] = in.readBoolean();
+            if(activeNeighbors[port])
+            {
+                numOfActiveNeighbors++;
+            }
+        }
+    }
+
+    /*
+        Method: checkRoundComplete
+        Description: Completes the round once all messages have been sent and received. With early termination,
+            retires the channels on which the algorithms of both nodes were done this round first.
+        Parameters: None
+        Returns: Nothing
+     */
+    private void checkRoundComplete()
+    {
+        // Check if all messages have been sent and received this round for this node.
+        if(receivesPending > 0 || sendsPending > 0)
+        {
+            return;
+        }
+
+        // Early termination - if this node's algorithms were done this round, retire the channel to each neighbor
+        // whose algorithms were done as well. Both ends of a channel make the same decision after the same round.
+        boolean retire = RunOptions.terminateEarly() && cs.isDone();
+        for(int port = 0; port < doneNeighborsThisRound.length; port++)
+        {
+            if(retire && doneNeighborsThisRound[port] && activeNeighbors[port])
+            {
+                activeNeighbors[port] = false;
+                numOfActiveNeighbors--;
+            }
+            doneNeighborsThisRound[port] = false;
+        }
+
+        // Stop after the last round or once all channels have been retired.
+        boolean lastRound = cs.isLastRound() || numOfActiveNeighbors == 0;
+        if(lastRound)
+        {
+            Arrays.fill(activeNeighbors, false);
+            numOfActiveNeighbors = 0;
+        }
+        cs.completeRound(lastRound);
+    }
+
+}
@@ -0,0 +1,926 @@
+import com.sun.nio.sctp.MessageInfo;
+import com.sun.nio.sctp.SctpChannel;
+import com.sun.nio.sctp.SctpServerChannel;
+import com.sun.nio.sctp.SctpStandardSocketOptions;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+// This program measures the hot paths of a node so that regressions show up as numbers:
+//   codec.encode / codec.decode - Message.toByteBuffer and Message.fromByteBuffer for both wire formats across
+//                                 frontier sizes
+//   merge.messageReceived       - SCTPClientServer.messageReceived merging one neighbor's frontier, across degrees
+//                                 and numbers of nodes
+//   sync.roundEvents            - AlphaSynchronizer handling the round message sent to and received from every
+//                                 neighbor of a round, across degrees (the time per event stays flat as the degree
+//                                 grows since the round completion is counted, not scanned)
+//   sync.deliverRound           - SCTPClientServer.deliver for the round message of every neighbor of a round, the
+//                                 path a transport takes - the node's lock, the algorithms and sending the round
+//                                 messages queued for every neighbor (on channels that drop them), across degrees
+//   config.read                 - ConfigParser on generated configs of 1k to 1M lines, reading all neighbor lists or
+//                                 only those of one node
+//   topology.scan               - visiting every neighbor of every node, with the neighbor lists as a LinkedList per
+//                                 node and as a Topology (compressed sparse row); the heap each form takes is
+//                                 recorded as well (topology.footprint)
+//   sctp.controlLatency         - time a control message takes to reach the neighbor over a local SCTP association
+//                                 while bursts of large round messages keep the send buffer full, with everything on
+//                                 one stream and with lookahead window + 2 streams, the split sctp.streams=0 asks
+//                                 for (skipped without SCTP support)
+// Each benchmark is run for a few warm up batches, then timed over several measured batches; the mean, min and
+// standard deviation of the time per operation are printed and written as JSON, so results of different versions
+// can be compared.
+// Usage: java Benchmarks [output file (default benchmark-results.json)] [quick]
+// The JMH module in ../jmh runs codec.encode, codec.decode, merge.messageReceived and config.read under JMH as well,
+// with the operations built here (see encodeOperation and the methods after it).
+public class Benchmarks
+{
+
+    // Number of batches run before timing and number of batches timed.
+    private static int warmupBatches = 5;
+    private static int measuredBatches = 10;
+
+    // JSON object of each result.
+    private static final ArrayList<String> results = new ArrayList<>();
+    // Values computed by the benchmarks are added here so the JIT cannot remove the work.
+    private static long blackhole = 0;
+
+    // Implemented by each benchmark - runs one batch of operations.
+    private interface Batch
+    {
+        // Returns the nanoseconds spent in the timed operations (setup of the batch is not timed).
+        long run() throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        String outputFile = args.length > 0 ? args[0] : "benchmark-results.json";
+        boolean quick = args.length > 1 && args[1].equals("quick");
+        if(quick)
+        {
+            warmupBatches = 2;
+            measuredBatches = 3;
+        }
+
+        // Only the timings are of interest - keep the nodes' round entries out of the measurements.
+        Log.setLevel(Log.Level.OFF);
+        benchmarkCodec(quick ? new int[]{0, 256, 4096} : new int[]{0, 16, 256, 4096, 65536});
+        benchmarkMerge(quick ? new int[]{4, 64} : new int[]{4, 32, 256, 1024},
+                quick ? new int[]{1000} : new int[]{1000, 100000});
+        benchmarkRoundEvents(quick ? new int[]{10, 1000} : new int[]{10, 100, 1000, 10000});
+        benchmarkDeliverRound(quick ? new int[]{10, 1000} : new int[]{10, 100, 1000});
+        benchmarkConfig(quick ? new int[]{1000, 10000} : new int[]{1000, 10000, 100000, 1000000});
+        benchmarkTopology(quick ? new int[]{10000} : new int[]{10000, 1000000});
+        benchmarkStreams(65536, quick ? 100 : 1000);
+
+        // Write all results as one JSON document.
+        PrintWriter output = new PrintWriter(outputFile);
+        output.println("{");
+        output.println("  \"java\": \"" + System.getProperty("java.version") + "\",");
+        output.println("  \"timestamp\": \"" + Instant.now() + "\",");
+        output.println("  \"warmupBatches\": " + warmupBatches + ",");
+        output.println("  \"measuredBatches\": " + measuredBatches + ",");
+        output.println("  \"results\": [");
+        for(int i = 0; i < results.size(); i++)
+        {
+            output.println("    " + results.get(i) + (i + 1 < results.size() ? "," : ""));
+        }
+        output.println("  ]");
+        output.println("}");
+        output.close();
+
+        System.out.println("Results written to " + new File(outputFile).getAbsolutePath() + " (" + blackhole + ")");
+    }
+
+    /*
+        Method: benchmarkCodec
+        Description: Measures encoding and decoding a round message with both wire formats for each frontier size.
+        Parameters: Array of frontier sizes.
+        Returns: Nothing
+     */
+    private static void benchmarkCodec(int[] frontierSizes) throws Exception
+    {
+        String codec = RunOptions.messageCodec;
+        BufferPool pool = new BufferPool();
+
+        for(String format : new String[]{"binary", "java"})
+        {
+            RunOptions.messageCodec = format;
+            for(int size : frontierSizes)
+            {
+                Message msg = codecMessage(size);
+                int ops = Math.max(20, 2000000 / (size + 64));
+
+                // Encoded message to decode, copied into the receive buffer before each decode.
+                ByteBuffer encoded = msg.toByteBuffer(pool);
+                byte[] data = new byte[encoded.remaining()];
+                encoded.get(data);
+                pool.release(encoded);
+                ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(data.length);
+
+                String params = "{\"codec\": \"" + format + "\", \"frontier\": " + size + ", \"bytes\": " +
+                        data.length + "}";
+
+                measure("codec.encode", params, ops, () -> {
+                    long start = System.nanoTime();
+                    for(int i = 0; i < ops; i++)
+                    {
+                        ByteBuffer buf = msg.toByteBuffer(pool);
+                        blackhole += buf.remaining();
+                        pool.release(buf);
+                    }
+                    return System.nanoTime() - start;
+                });
+
+                measure("codec.decode", params, ops, () -> {
+                    long start = System.nanoTime();
+                    for(int i = 0; i < ops; i++)
+                    {
+                        // fromByteBuffer expects the buffer as it is left by a receive (not flipped).
+                        receiveBuffer.clear();
+                        receiveBuffer.put(data);
+                        blackhole += Message.fromByteBuffer(receiveBuffer).payloads[0].length;
+                    }
+                    return System.nanoTime() - start;
+                });
+            }
+        }
+
+        RunOptions.messageCodec = codec;
+    }
+
+    /*
+        Method: benchmarkMerge
+        Description: Measures SCTPClientServer.messageReceived for the round 0 messages of all neighbors of a node,
+            each carrying a frontier of random node IDs. Every batch starts with new nodes, so every batch merges
+            the same node IDs into an empty k-hop state. Small degrees use several nodes per batch.
+        Parameters: Array of degrees and array of numbers of nodes.
+        Returns: Nothing
+     */
+    private static void benchmarkMerge(int[] degrees, int[] nodeCounts) throws Exception
+    {
+        for(int numOfNodes : nodeCounts)
+        {
+            for(int degree : degrees)
+            {
+                if(degree >= numOfNodes)
+                {
+                    continue;
+                }
+
+                Node node = mergeNode(degree, numOfNodes);
+                int frontierSize = mergeFrontierSize(degree, numOfNodes);
+                Message[] messages = mergeMessages(degree, numOfNodes);
+
+                String params = "{\"degree\": " + degree + ", \"nodes\": " + numOfNodes + ", \"frontier\": " +
+                        frontierSize + "}";
+                int nodesPerBatch = Math.max(1, 256 / degree);
+                measure("merge.messageReceived", params, nodesPerBatch * degree, () -> {
+                    // Creating the nodes is not timed.
+                    SCTPClientServer[] nodes = new SCTPClientServer[nodesPerBatch];
+                    for(int i = 0; i < nodesPerBatch; i++)
+                    {
+                        nodes[i] = new SCTPClientServer(node, numOfNodes);
+                    }
+                    long start = System.nanoTime();
+                    for(SCTPClientServer cs : nodes)
+                    {
+                        for(Message msg : messages)
+                        {
+                            cs.messageReceived(msg.sourceNodeID, msg);
+                        }
+                    }
+                    long time = System.nanoTime() - start;
+                    blackhole += nodes[0].getCurrentRoundNumber();
+                    return time;
+                });
+            }
+        }
+    }
+
+    /*
+        Method: benchmarkRoundEvents
+        Description: Measures the AlphaSynchronizer events of whole rounds - the round message sent to and received
+            from each neighbor of a node - for each degree. Starting each round (creating and queueing the node's
+            round messages) is not timed.
+        Parameters: Array of degrees.
+        Returns: Nothing
+     */
+    private static void benchmarkRoundEvents(int[] degrees) throws Exception
+    {
+        for(int degree : degrees)
+        {
+            // Node 0 with neighbors 1..degree.
+            int numOfNodes = degree + 1;
+            Node node = new Node(0, "localhost", 0);
+            int[][] neighborLists = new int[numOfNodes][];
+            neighborLists[0] = new int[degree];
+            for(int id = 1; id <= degree; id++)
+            {
+                neighborLists[0][id - 1] = id;
+            }
+            node.setTopology(Topology.fromLists(neighborLists));
+            SCTPClientServer cs = new SCTPClientServer(node, numOfNodes);
+            AlphaSynchronizer synchronizer = new AlphaSynchronizer(cs, node);
+
+            // Round messages of the neighbors without payloads, so only the synchronizer's work is timed.
+            Message[] messages = new Message[degree];
+            for(int i = 0; i < degree; i++)
+            {
+                messages[i] = new Message("Message from node " + (i + 1) + " at round 0 to dest node 0", 0, i + 1, 0,
+                        new int[cs.algorithms.length][]);
+                messages[i].msgType = MessageType.round;
+            }
+
+            int rounds = Math.max(1, 20000 / degree);
+            String params = "{\"degree\": " + degree + ", \"rounds\": " + rounds + "}";
+            measure("sync.roundEvents", params, rounds * 2 * degree, () -> {
+                long time = 0;
+                for(int round = 0; round < rounds; round++)
+                {
+                    // Starting the round is not timed - drop the queued round messages.
+                    synchronizer.roundStarted();
+                    for(ArrayDeque<Message> outbox : cs.outboxes)
+                    {
+                        outbox.clear();
+                    }
+                    cs.roundComplete = false;
+
+                    long start = System.nanoTime();
+                    for(int port = 0; port < degree; port++)
+                    {
+                        synchronizer.messageSent(port, messages[port]);
+                        synchronizer.messageReceived(port, messages[port]);
+                    }
+                    time += System.nanoTime() - start;
+                    blackhole += cs.roundComplete ? 1 : 0;
+                }
+                return time;
+            });
+        }
+    }
+
+    /*
+        Method: benchmarkDeliverRound
+        Description: Measures whole rounds of a node on the path the transports use - deliver of the round message of
+            each neighbor, which also sends the round messages the node queued for all neighbors - for each degree.
+            Unlike sync.roundEvents this includes the node's lock, the outboxes and the algorithms. Connecting the
+            channels and round 0 are not timed.
+        Parameters: Array of degrees.
+        Returns: Nothing
+     */
+    private static void benchmarkDeliverRound(int[] degrees) throws Exception
+    {
+        for(int degree : degrees)
+        {
+            // Node 0 with neighbors 1..degree.
+            int numOfNodes = degree + 1;
+            Node node = new Node(0, "localhost", 0);
+            int[][] neighborLists = new int[numOfNodes][];
+            neighborLists[0] = new int[degree];
+            for(int id = 1; id <= degree; id++)
+            {
+                neighborLists[0][id - 1] = id;
+            }
+            node.setTopology(Topology.fromLists(neighborLists));
+
+            // Rounds timed per node - all before its last round, so no node terminates and writes its output - and
+            // nodes per batch.
+            int rounds = Math.max(1, Math.min(20000 / degree, new SCTPClientServer(node, numOfNodes).lastRoundNumber));
+            int nodes = Math.max(1, 20000 / (degree * rounds));
+
+            // Round messages of the neighbors without payloads, for each round.
+            Message[][] messages = new Message[rounds][degree];
+            for(int round = 0; round < rounds; round++)
+            {
+                for(int i = 0; i < degree; i++)
+                {
+                    messages[round][i] = new Message("Message from node " + (i + 1) + " at round " + round +
+                            " to dest node 0", round, i + 1, 0, new int[0][]);
+                    messages[round][i].msgType = MessageType.round;
+                }
+            }
+
+            String params = "{\"degree\": " + degree + ", \"rounds\": " + rounds + "}";
+            measure("sync.deliverRound", params, nodes * rounds * degree, () -> {
+                long time = 0;
+                for(int n = 0; n < nodes; n++)
+                {
+                    // Registering the last channel sends the round 0 messages.
+                    SCTPClientServer cs = new SCTPClientServer(node, numOfNodes);
+                    for(int id = 1; id <= degree; id++)
+                    {
+                        cs.registerChannel(droppingChannel(id));
+                    }
+
+                    long start = System.nanoTime();
+                    for(int round = 0; round < rounds; round++)
+                    {
+                        for(int port = 0; port < degree; port++)
+                        {
+                            cs.deliver(port + 1, messages[round][port]);
+                        }
+                    }
+                    time += System.nanoTime() - start;
+                    blackhole += cs.getCurrentRoundNumber();
+                }
+                return time;
+            });
+        }
+    }
+
+    /*
+        Method: droppingChannel
+        Description: Creates a channel to a neighbor that drops the messages the node sends on it.
+        Parameters: Integer neighbor node ID.
+        Returns: RoundChannel to the neighbor.
+     */
+    private static RoundChannel droppingChannel(int neighborID)
+    {
+        return new RoundChannel()
+        {
+            @Override
+            public int getNeighborID()
+            {
+                return neighborID;
+            }
+
+            @Override
+            public void send(Message msg)
+            {
+                blackhole += msg.roundNumber;
+            }
+        };
+    }
+
+    /*
+        Method: benchmarkConfig
+        Description: Measures ConfigParser on generated configs - a ring with random chords, so every node has about
+            4 neighbors - reading the neighbor lists of all nodes and only those of node 0. The parse rate in MB/s is
+            recorded with the time.
+        Parameters: Array of numbers of config lines.
+        Returns: Nothing
+     */
+    private static void benchmarkConfig(int[] lineCounts) throws Exception
+    {
+        for(int lines : lineCounts)
+        {
+            // 2n+1 valid lines plus a comment line.
+            int numOfNodes = Math.max(3, (lines - 2) / 2);
+            File config = generateConfig(numOfNodes);
+
+            for(int ownNodeID : new int[]{ConfigParser.ALL_NODES, 0})
+            {
+                String params = "{\"lines\": " + (2 * numOfNodes + 2) + ", \"nodes\": " + numOfNodes +
+                        ", \"bytes\": " + config.length() + ", \"neighbors\": \"" +
+                        (ownNodeID == ConfigParser.ALL_NODES ? "all" : "own") + "\"}";
+                double nsPerOp = measure("config.read", params, 1, () -> {
+                    ConfigParser parser = new ConfigParser(config.toPath(), ownNodeID);
+                    parser.parse();
+                    blackhole += parser.getNodes().length;
+                    return parser.getParseTime();
+                });
+                // Add the parse rate at the mean time to the result.
+                double mbPerSec = config.length() * 1000.0 / nsPerOp;
+                System.out.println(String.format("config.read: %.1f MB/s", mbPerSec));
+                results.set(results.size() - 1, results.get(results.size() - 1).replaceFirst("}$",
+                        String.format(", \"mbPerSec\": %.1f}", mbPerSec)));
+            }
+            config.delete();
+        }
+    }
+
+    /*
+        Method: benchmarkTopology
+        Description: Compares the neighbor lists of a random graph with 8 neighbors per node on average stored as a
+            LinkedList per node and as a Topology - the heap each form takes and the time to visit every neighbor.
+        Parameters: Array of numbers of edges.
+        Returns: Nothing
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void benchmarkTopology(int[] edgeCounts) throws Exception
+    {
+        for(int edges : edgeCounts)
+        {
+            int numOfNodes = Math.max(2, edges / 4);
+            Random random = new Random(edges);
+            int[] ends = new int[2 * edges];
+            int[] degrees = new int[numOfNodes];
+            for(int i = 0; i < ends.length; i += 2)
+            {
+                ends[i] = random.nextInt(numOfNodes);
+                ends[i + 1] = (ends[i] + 1 + random.nextInt(numOfNodes - 1)) % numOfNodes;
+                degrees[ends[i]]++;
+                degrees[ends[i + 1]]++;
+            }
+
+            // Neighbor lists as the config parser used to create them.
+            long before = usedHeap();
+            LinkedList<Integer>[] lists = new LinkedList[numOfNodes];
+            for(int i = 0; i < numOfNodes; i++)
+            {
+                lists[i] = new LinkedList<>();
+            }
+            for(int i = 0; i < ends.length; i += 2)
+            {
+                lists[ends[i]].add(ends[i + 1]);
+                lists[ends[i + 1]].add(ends[i]);
+            }
+            long listBytes = usedHeap() - before;
+
+            // The same neighbor lists as a topology.
+            before = usedHeap();
+            int[][] neighborLists = new int[numOfNodes][];
+            for(int i = 0; i < numOfNodes; i++)
+            {
+                neighborLists[i] = new int[degrees[i]];
+                degrees[i] = 0;
+            }
+            for(int i = 0; i < ends.length; i += 2)
+            {
+                neighborLists[ends[i]][degrees[ends[i]]++] = ends[i + 1];
+                neighborLists[ends[i + 1]][degrees[ends[i + 1]]++] = ends[i];
+            }
+            Topology topology = Topology.fromLists(neighborLists);
+            neighborLists = null;
+            long topologyBytes = usedHeap() - before;
+
+            for(String form : new String[]{"LinkedList", "Topology"})
+            {
+                long bytes = form.equals("Topology") ? topologyBytes : listBytes;
+                String params = "{\"form\": \"" + form + "\", \"edges\": " + edges + ", \"nodes\": " + numOfNodes + "}";
+                System.out.println(String.format("topology.footprint %s: %d bytes (%.1f bytes/edge)", params, bytes,
+                        (double) bytes / edges));
+                results.add(String.format("{\"benchmark\": \"topology.footprint\", \"params\": %s, " +
+                        "\"heapBytes\": %d, \"bytesPerEdge\": %.1f}", params, bytes, (double) bytes / edges));
+
+                // Small graphs are scanned several times per batch.
+                int scans = Math.max(1, 1000000 / edges);
+                measure("topology.scan", params, 2 * edges * scans, () -> {
+                    long start = System.nanoTime();
+                    long sum = 0;
+                    for(int scan = 0; scan < scans; scan++)
+                    {
+                        sum += form.equals("Topology") ? scanTopology(topology) : scanLists(lists);
+                    }
+                    long time = System.nanoTime() - start;
+                    blackhole += sum;
+                    return time;
+                });
+            }
+        }
+    }
+
+    /*
+        Method: benchmarkStreams
+        Description: Measures how long control messages take to reach the neighbor while round messages of a heavy
+            payload are queued in bursts, the way SCTPReactor sends them (non-blocking channel, queued per stream by
+            SCTPStreams) - once with one stream, so a control message waits behind the queued round messages, and
+            once with the configured streams, so it is sent ahead of them.
+        Parameters: Integer payload bytes of each round message and integer number of control messages.
+        Returns: Nothing
+     */
+    private static void benchmarkStreams(int payloadSize, int probes) throws Exception
+    {
+        // Round messages queued at once and time between two control messages.
+        int burst = 16;
+        long probeInterval = 1000000;
+        BufferPool pool = new BufferPool();
+
+        for(int streamCount : new int[]{1, RunOptions.lookaheadWindow + 2})
+        {
+            SctpServerChannel server;
+            try {
+                server = SctpServerChannel.open();
+            }
+            catch(UnsupportedOperationException e)
+            {
+                System.out.println("sctp.controlLatency: skipped - " + e.getMessage());
+                return;
+            }
+            server.setOption(SctpStandardSocketOptions.SCTP_INIT_MAXSTREAMS,
+                    SctpStandardSocketOptions.InitMaxStreams.create(streamCount, streamCount));
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            SctpChannel sender = SctpChannel.open(server.getAllLocalAddresses().iterator().next(), streamCount,
+                    streamCount);
+            SctpChannel receiver = server.accept();
+
+            // The receiving neighbor reads every message and records the latency of the control messages, which
+            // hold the time they were queued.
+            long[] latencies = new long[probes];
+            Thread reader = new Thread(() -> {
+                ByteBuffer buf = ByteBuffer.allocateDirect(payloadSize + 64);
+                boolean partial = false;
+                int received = 0;
+                try {
+                    while(received < probes)
+                    {
+                        buf.clear();
+                        MessageInfo messageInfo = receiver.receive(buf, null, null);
+                        if(messageInfo == null || messageInfo.bytes() == -1)
+                        {
+                            return;
+                        }
+                        if(!partial && messageInfo.isComplete() && messageInfo.bytes() == Long.BYTES)
+                        {
+                            latencies[received++] = System.nanoTime() - buf.getLong(0);
+                        }
+                        partial = !messageInfo.isComplete();
+                    }
+                }
+                catch(Exception e)
+                {
+                    e.printStackTrace();
+                }
+            });
+            reader.setDaemon(true);
+            reader.start();
+
+            // The sending node queues a burst of round messages whenever its queues are empty, and a control
+            // message every probe interval.
+            SCTPStreams streams = SCTPStreams.of(sender);
+            sender.configureBlocking(false);
+            Selector selector = Selector.open();
+            sender.register(selector, SelectionKey.OP_WRITE);
+            Message round = new Message("Round message", 0, 0, 1);
+            round.msgType = MessageType.round;
+            Message control = new Message("Control message", 0, 0, 1);
+            control.msgType = MessageType.ack;
+
+            int probesSent = 0;
+            long nextProbe = System.nanoTime();
+            while(probesSent < probes || !streams.isEmpty())
+            {
+                long now = System.nanoTime();
+                if(probesSent < probes && now >= nextProbe)
+                {
+                    ByteBuffer buf = pool.acquire(Long.BYTES);
+                    buf.putLong(now).flip();
+                    streams.add(control, buf);
+                    probesSent++;
+                    nextProbe = now + probeInterval;
+                }
+                if(probesSent < probes && streams.isEmpty())
+                {
+                    round.roundNumber++;
+                    for(int i = 0; i < burst; i++)
+                    {
+                        ByteBuffer buf = pool.acquire(payloadSize);
+                        buf.position(payloadSize).flip();
+                        streams.add(round, buf);
+                    }
+                }
+                // Wait for room in the send buffer (at most until the next control message is due).
+                if(!streams.flush(sender, pool))
+                {
+                    selector.select(1);
+                    selector.selectedKeys().clear();
+                }
+            }
+            reader.join(10000);
+            selector.close();
+            sender.close();
+            receiver.close();
+            server.close();
+
+            Arrays.sort(latencies);
+            double mean = Arrays.stream(latencies).average().orElse(0) / 1000;
+            String params = "{\"streams\": " + streams.getCount() + ", \"payload\": " + payloadSize +
+                    ", \"burst\": " + burst + ", \"probes\": " + probes + "}";
+            System.out.println(String.format("sctp.controlLatency %s: mean %.1f us, p50 %.1f us, p99 %.1f us",
+                    params, mean, latencies[probes / 2] / 1000.0, latencies[probes * 99 / 100] / 1000.0));
+            results.add(String.format("{\"benchmark\": \"sctp.controlLatency\", \"params\": %s, " +
+                    "\"latencyUs\": {\"mean\": %.1f, \"p50\": %.1f, \"p99\": %.1f, \"max\": %.1f}}", params,
+                    mean, latencies[probes / 2] / 1000.0, latencies[probes * 99 / 100] / 1000.0,
+                    latencies[probes - 1] / 1000.0));
+        }
+    }
+
+    /*
+        Method: scanTopology
+        Description: Visits every neighbor of every node of a topology.
+        Parameters: Topology to scan.
+        Returns: Long sum of the neighbor IDs.
+     */
+    private static long scanTopology(Topology topology)
+    {
+        long sum = 0;
+        for(int nodeID = 0; nodeID < topology.getNumOfNodes(); nodeID++)
+        {
+            int degree = topology.getDegree(nodeID);
+            for(int port = 0; port < degree; port++)
+            {
+                sum += topology.getNeighbor(nodeID, port);
+            }
+        }
+        return sum;
+    }
+
+    /*
+        Method: scanLists
+        Description: Visits every neighbor of every node of a LinkedList per node.
+        Parameters: Array of neighbor lists indexed by node ID.
+        Returns: Long sum of the neighbor IDs.
+     */
+    private static long scanLists(LinkedList<Integer>[] lists)
+    {
+        long sum = 0;
+        for(LinkedList<Integer> list : lists)
+        {
+            for(int neighborID : list)
+            {
+                sum += neighborID;
+            }
+        }
+        return sum;
+    }
+
+    /*
+        Method: usedHeap
+        Description: Returns the heap in use after garbage collection, i.e. to measure what a data structure takes.
+        Parameters: None
+        Returns: Long number of bytes.
+     */
+    private static long usedHeap()
+    {
+        Runtime runtime = Runtime.getRuntime();
+        for(int i = 0; i < 3; i++)
+        {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /*
+        Method: measure
+        Description: Runs the warm up and measured batches of a benchmark and records the time per operation.
+        Parameters: String benchmark name, String JSON object of parameters, integer operations per batch and the
+            batch to run.
+        Returns: Double mean time per operation in nanoseconds.
+     */
+    private static double measure(String benchmark, String params, int opsPerBatch, Batch batch) throws Exception
+    {
+        for(int i = 0; i < warmupBatches; i++)
+        {
+            batch.run();
+        }
+
+        double[] nsPerOp = new double[measuredBatches];
+        double sum = 0;
+        double min = Double.MAX_VALUE;
+        for(int i = 0; i < measuredBatches; i++)
+        {
+            nsPerOp[i] = (double) batch.run() / opsPerBatch;
+            sum += nsPerOp[i];
+            min = Math.min(min, nsPerOp[i]);
+        }
+
+        double mean = sum / measuredBatches;
+        double variance = 0;
+        for(double value : nsPerOp)
+        {
+            variance += (value - mean) * (value - mean);
+        }
+        double stddev = Math.sqrt(variance / measuredBatches);
+
+        System.out.println(String.format("%s %s: %.1f ns/op (min %.1f, stddev %.1f)", benchmark, params, mean, min,
+                stddev));
+        results.add(String.format("{\"benchmark\": \"%s\", \"params\": %s, \"opsPerBatch\": %d, " +
+                "\"nsPerOp\": {\"mean\": %.1f, \"min\": %.1f, \"stddev\": %.1f}}", benchmark, params, opsPerBatch, mean,
+                min, stddev));
+        return mean;
+    }
+
+    /*
+        Method: encodeOperation
+        Description: Returns codec.encode as one operation for the JMH module - JMH benchmarks have to be in a named
+            package, which cannot use the classes of bin/, so they get their operations from here by reflection.
+        Parameters: String wire format ("binary" or "java") and integer frontier size.
+        Returns: Callable that encodes the round message into a pooled buffer once and returns the buffer.
+     */
+    public static Callable<Object> encodeOperation(String codec, int frontierSize) throws Exception
+    {
+        RunOptions.messageCodec = codec;
+        Message msg = codecMessage(frontierSize);
+        BufferPool pool = new BufferPool();
+        return () -> {
+            ByteBuffer buf = msg.toByteBuffer(pool);
+            pool.release(buf);
+            return buf;
+        };
+    }
+
+    /*
+        Method: decodeOperation
+        Description: Returns codec.decode as one operation for the JMH module (see encodeOperation).
+        Parameters: String wire format ("binary" or "java") and integer frontier size.
+        Returns: Callable that copies the encoded round message into a receive buffer, decodes it once and returns
+            the message.
+     */
+    public static Callable<Object> decodeOperation(String codec, int frontierSize) throws Exception
+    {
+        RunOptions.messageCodec = codec;
+        ByteBuffer encoded = codecMessage(frontierSize).toByteBuffer();
+        byte[] data = new byte[encoded.remaining()];
+        encoded.get(data);
+        ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(data.length);
+        return () -> {
+            // fromByteBuffer expects the buffer as it is left by a receive (not flipped).
+            receiveBuffer.clear();
+            receiveBuffer.put(data);
+            return Message.fromByteBuffer(receiveBuffer);
+        };
+    }
+
+    /*
+        Method: mergeOperation
+        Description: Returns merge.messageReceived as one operation for the JMH module (see encodeOperation). Every
+            operation needs a new node, so the operation is created in two steps.
+        Parameters: Integer degree and integer number of nodes (more than the degree).
+        Returns: Callable that creates a new node (not to be timed) and returns the operation merging the round 0
+            messages of all neighbors into it.
+     */
+    public static Callable<Callable<Object>> mergeOperation(int degree, int numOfNodes) throws Exception
+    {
+        if(degree >= numOfNodes)
+        {
+            throw new IllegalArgumentException("A node of " + numOfNodes + " nodes cannot have degree " + degree + ".");
+        }
+        Log.setLevel(Log.Level.OFF);
+        Node node = mergeNode(degree, numOfNodes);
+        Message[] messages = mergeMessages(degree, numOfNodes);
+        return () -> {
+            SCTPClientServer cs = new SCTPClientServer(node, numOfNodes);
+            return () -> {
+                for(Message msg : messages)
+                {
+                    cs.messageReceived(msg.sourceNodeID, msg);
+                }
+                return cs;
+            };
+        };
+    }
+
+    /*
+        Method: configOperation
+        Description: Returns config.read as one operation for the JMH module (see encodeOperation). The generated
+            config file is deleted when the JVM exits.
+        Parameters: Integer number of lines and boolean - true to read the neighbor lists of all nodes, false only
+            those of node 0.
+        Returns: Callable that parses the config file once and returns the nodes.
+     */
+    public static Callable<Object> configOperation(int lines, boolean allNodes) throws Exception
+    {
+        File config = generateConfig(Math.max(3, (lines - 2) / 2));
+        config.deleteOnExit();
+        int ownNodeID = allNodes ? ConfigParser.ALL_NODES : 0;
+        return () -> {
+            ConfigParser parser = new ConfigParser(config.toPath(), ownNodeID);
+            parser.parse();
+            return parser.getNodes();
+        };
+    }
+
+    /*
+        Method: codecMessage
+        Description: Creates the round message of the codec benchmarks.
+        Parameters: Integer frontier size.
+        Returns: Round message with a frontier of random node IDs.
+     */
+    private static Message codecMessage(int frontierSize)
+    {
+        Message msg = new Message(null, 3, 0, 1,
+                new int[][]{randomIDs(new Random(frontierSize), frontierSize, 1000000)});
+        msg.msgType = MessageType.round;
+        return msg;
+    }
+
+    /*
+        Method: mergeNode
+        Description: Creates node 0 of the merge benchmarks, with neighbors 1..degree.
+        Parameters: Integer degree and integer number of nodes.
+        Returns: The node.
+     */
+    private static Node mergeNode(int degree, int numOfNodes)
+    {
+        Node node = new Node(0, "localhost", 0);
+        int[][] neighborLists = new int[numOfNodes][];
+        neighborLists[0] = new int[degree];
+        for(int id = 1; id <= degree; id++)
+        {
+            neighborLists[0][id - 1] = id;
+        }
+        node.setTopology(Topology.fromLists(neighborLists));
+        return node;
+    }
+
+    /*
+        Method: mergeFrontierSize
+        Description: Returns the frontier size of the merge benchmarks - each neighbor found up to 64 node IDs last
+            round.
+        Parameters: Integer degree and integer number of nodes.
+        Returns: Integer frontier size.
+     */
+    private static int mergeFrontierSize(int degree, int numOfNodes)
+    {
+        return Math.min(64, numOfNodes / degree);
+    }
+
+    /*
+        Method: mergeMessages
+        Description: Creates the round 0 message of each neighbor of the merge benchmarks.
+        Parameters: Integer degree and integer number of nodes.
+        Returns: Array of messages by port.
+     */
+    private static Message[] mergeMessages(int degree, int numOfNodes)
+    {
+        int frontierSize = mergeFrontierSize(degree, numOfNodes);
+        Random random = new Random(numOfNodes + degree);
+        Message[] messages = new Message[degree];
+        for(int i = 0; i < degree; i++)
+        {
+            messages[i] = new Message("Message from node " + (i + 1) + " at round 0 to dest node 0", 0, i + 1, 0,
+                    new int[][]{randomIDs(random, frontierSize, numOfNodes)});
+            messages[i].msgType = MessageType.round;
+        }
+        return messages;
+    }
+
+    /*
+        Method: randomIDs
+        Description: Creates an array of random node IDs.
+        Parameters: Random number generator, integer number of IDs and integer number of nodes.
+        Returns: Array of node IDs.
+     */
+    private static int[] randomIDs(Random random, int count, int numOfNodes)
+    {
+        int[] ids = new int[count];
+        for(int i = 0; i < count; i++)
+        {
+            ids[i] = random.nextInt(numOfNodes);
+        }
+        return ids;
+    }
+
+    /*
+        Method: generateConfig
+        Description: Writes a config file for a ring of nodes with a random chord from each node.
+        Parameters: Integer number of nodes.
+        Returns: The temporary config file.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static File generateConfig(int numOfNodes) throws Exception
+    {
+        Random random = new Random(numOfNodes);
+        LinkedList<Integer>[] neighbors = new LinkedList[numOfNodes];
+        for(int i = 0; i < numOfNodes; i++)
+        {
+            neighbors[i] = new LinkedList<>();
+        }
+        for(int i = 0; i < numOfNodes; i++)
+        {
+            int next = (i + 1) % numOfNodes;
+            int chord = random.nextInt(numOfNodes);
+            neighbors[i].add(next);
+            neighbors[next].add(i);
+            if(chord != i && chord != next && !neighbors[i].contains(chord))
+            {
+                neighbors[i].add(chord);
+                neighbors[chord].add(i);
+            }
+        }
+
+        File config = Files.createTempFile("benchmark-config", ".txt").toFile();
+        PrintWriter output = new PrintWriter(config);
+        output.println("# Generated by Benchmarks");
+        output.println(numOfNodes);
+        for(int i = 0; i < numOfNodes; i++)
+        {
+            output.println(i + " dc" + String.format("%02d", i % 45 + 1) + " " + (10000 + i % 50000));
+        }
+        for(int i = 0; i < numOfNodes; i++)
+        {
+            StringBuilder line = new StringBuilder();
+            for(int neighborID : neighbors[i])
+            {
+                line.append(neighborID).append(' ');
+            }
+            output.println(line.append("# node ").append(i));
+        }
+        output.close();
+        return config;
+    }
+
+}
@@ -0,0 +1,165 @@
+// Beta synchronizer - uses a spanning tree of the topology (see ClusterPartition) instead of exchanging a message
+// on every channel each round. A node only sends a round message to a neighbor when one of its algorithms has a
+// payload for it, and each round message is acknowledged. Once all of its round messages are acknowledged and all
+// of its children in the tree reported safe, a node reports safe to its parent (convergecast). When the root is
+// safe, every round message of the round has been received, so the root sends a pulse down the tree (broadcast)
+// and each node moves to the next round when the pulse reaches it.
+// Costs 2 messages per round message sent plus 2(n-1) messages per round. The safe reports also tell the root if
+// the algorithms of every node were done, in which case the pulse tells all nodes to terminate.
+public class BetaSynchronizer implements Synchronizer {
+
+    // Synchronizer of the node
+    private final SCTPClientServer cs;
+    // Number of neighbors of the node
+    private final int degree;
+    // Port of the parent in the spanning tree (-1 for the root) and ports of the children in the spanning tree
+    private final int parent;
+    private final int[] children;
+
+    // Number of round messages sent this round that have not been acknowledged yet.
+    private int pendingAcks;
+    // Number of children that reported safe this round.
+    private int safeChildren;
+    // Holds if the algorithms of this node and of every node below it in the tree were done this round.
+    private boolean subtreeDone;
+    // Holds if this node has reported safe (or sent the pulse, for the root) this round.
+    private boolean safe;
+
+    // Constructor
+    public BetaSynchronizer(SCTPClientServer cs, Node nodeInfo, ClusterPartition tree)
+    {
+        this.cs = cs;
+        degree = nodeInfo.getDegree();
+        int parentID = tree.getParent(nodeInfo.nodeID);
+        parent = parentID < 0 ? -1 : nodeInfo.getPort(parentID);
+        children = nodeInfo.getPorts(tree.getChildren(nodeInfo.nodeID));
+    }
+
+    @Override
+    public String getName()
+    {
+        return "beta";
+    }
+
+    /*
+        Method: roundStarted
+        Description: Queues the node's round message for every neighbor it has a payload for, unless all of the
+            node's algorithms are done.
+        Parameters: None
+        Returns: Nothing
+     */
+    @Override
+    public void roundStarted()
+    {
+        pendingAcks = 0;
+        safeChildren = 0;
+        subtreeDone = cs.isDone();
+        safe = false;
+
+        // Nothing to tell the neighbors if the algorithms are done or have nothing to send to them.
+        if(!subtreeDone)
+        {
+            for(int port = 0; port < degree; port++)
+            {
+                Message msg = cs.createRoundMessage(port);
+                if(msg.hasPayload())
+                {
+                    cs.queueMessage(port, msg);
+                    pendingAcks++;
+                }
+            }
+        }
+
+        // A leaf without round messages to send is safe right away.
+        checkSafe();
+    }
+
+    @Override
+    public void messageSent(int port, Message msg)
+    {
+        // Nothing to do - a round message counts once it has been acknowledged.
+    }
+
+    /*
+        Method: messageReceived
+        Description: Handles a round message or control message from a neighbor.
+        Parameters: Integer port of the source neighbor and the received message.
+        Returns: Nothing
+     */
+    @Override
+    public void messageReceived(int port, Message msg)
+    {
+        switch(msg.msgType)
+        {
+            case round:
+                // Hand the payloads to the algorithms and acknowledge the message.
+                cs.recordReceived(port, msg);
+                cs.queueMessage(port, cs.createControlMessage(MessageType.ack, port, false));
+                break;
+            case ack:
+                pendingAcks--;
+                checkSafe();
+                break;
+            case safe:
+                safeChildren++;
+                subtreeDone &= msg.done;
+                checkSafe();
+                break;
+            case pulse:
+                pulse(msg.done);
+                break;
+            default:
+                throw new IllegalStateException("Unexpected " + msg.msgType + " message from node " +
+                        msg.sourceNodeID);
+        }
+    }
+
+    @Override
+    public boolean isChannelActive(int port)
+    {
+        // Channels are used until the node terminates.
+        return true;
+    }
+
+    /*
+        Method: checkSafe
+        Description: Reports safe to the parent once all round messages are acknowledged and all children are safe.
+            The root sends the pulse instead - it terminates the run if every node was done.
+        Parameters: None
+        Returns: Nothing
+     */
+    private void checkSafe()
+    {
+        if(safe || pendingAcks > 0 || safeChildren < children.length)
+        {
+            return;
+        }
+        safe = true;
+
+        if(parent < 0)
+        {
+            pulse(cs.isLastRound() || (RunOptions.terminateEarly() && subtreeDone));
+        }
+        else
+        {
+            cs.queueMessage(parent, cs.createControlMessage(MessageType.safe, parent, subtreeDone));
+        }
+    }
+
+    /*
+        Method: pulse
+        Description: Sends the pulse to the children and completes the round.
+        Parameters: Boolean - true if the pulse tells the nodes to terminate.
+        Returns: Nothing
+     */
+    private void pulse(boolean lastRound)
+    {
+        // Queue the pulse before the next round's messages so the children get it first.
+        for(int child : children)
+        {
+            cs.queueMessage(child, cs.createControlMessage(MessageType.pulse, child, lastRound));
+        }
+        cs.completeRound(lastRound);
+    }
+
+}
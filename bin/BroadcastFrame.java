@@ -0,0 +1,136 @@
+import java.nio.ByteBuffer;
+
+// This class holds the encoded round message a node sends unchanged to several neighbors in a round - same round,
+// same algorithm payloads (an algorithm hands out one array per round for all neighbors it sends the same thing to)
+// and same done flag. Instead of each channel encoding the same payload again, the frame is encoded once, by the
+// first channel that sends one of these messages, and every channel sends a duplicate() of it.
+// The frame is neighbor-agnostic: it is encoded from a copy of the message whose destination is
+// Message.ALL_NEIGHBORS (receivers only use the source node and round) and, like every round message, has no text.
+// The frame is encoded into a buffer of the node's BufferPool. Every message sharing the frame holds a reference to
+// it, taken when the message is created; the channels give their read-only duplicates back to the pool, which hands
+// them to the frame, and the buffer goes back to the pool once the last message sharing it has been sent.
+public class BroadcastFrame {
+
+    // Neighbor-agnostic copy of the messages sharing the frame
+    private final Message template;
+    // Pool the frame's buffer comes from and goes back to
+    private final BufferPool pool;
+    // Pooled buffer holding the encoded frame and the read-only view duplicates are taken from (both null until the
+    // first channel sends one of the messages, and again once all of them have been sent)
+    private ByteBuffer buffer;
+    private ByteBuffer frame;
+    // Number of messages sharing the frame whose duplicate has not been given back yet
+    private int references = 0;
+
+    // Constructor - takes the first message of the round with these payloads and the node's buffer pool.
+    public BroadcastFrame(Message msg, BufferPool pool)
+    {
+        template = new Message(null, msg.roundNumber, msg.sourceNodeID, Message.ALL_NEIGHBORS, msg.payloads);
+        template.msgType = msg.msgType;
+        template.done = msg.done;
+        this.pool = pool;
+    }
+
+    /*
+        Method: share
+        Description: Adds a message to the ones sharing the frame. Called when the message is created, before any
+            channel can send it, so the buffer is not given back while the message still needs it.
+        Parameters: None
+        Returns: Nothing
+     */
+    public synchronized void share()
+    {
+        references++;
+    }
+
+    /*
+        Method: duplicate
+        Description: Returns a view of the encoded frame for one channel to send, encoding the frame on the first
+            call. Called by the channels outside of the synchronizer's lock, once for each message sharing the frame.
+        Parameters: None
+        Returns: Read-only ByteBuffer ready to send - each call returns its own position and limit. Give it back to
+            the pool once it has been sent.
+     */
+    public synchronized ByteBuffer duplicate() throws Exception
+    {
+        if(buffer == null)
+        {
+            buffer = template.toByteBuffer(pool);
+            frame = buffer.asReadOnlyBuffer();
+        }
+        ByteBuffer view = frame.duplicate();
+        pool.share(view, this);
+        return view;
+    }
+
+    /*
+        Method: released
+        Description: Called by the pool when a channel gives back a duplicate. Gives the frame's buffer back to the
+            pool once every message sharing the frame has been sent.
+        Parameters: None
+        Returns: Nothing
+     */
+    synchronized void released()
+    {
+        references--;
+        if(references == 0 && buffer != null)
+        {
+            pool.release(buffer);
+            buffer = null;
+            frame = null;
+        }
+    }
+
+    // This class is the key the node finds the frame of a round message by - the algorithm payloads compared by
+    // identity (payloads are handed out by the algorithms, not copied, so comparing the arrays is enough) and the
+    // done flag. The round is left out, the node keeps the frames of the current round only.
+    static final class Key {
+
+        private final int[][] payloads;
+        private final boolean done;
+        private final int hash;
+
+        // Constructor - takes the round message to find the frame of.
+        Key(Message msg)
+        {
+            payloads = msg.payloads;
+            done = msg.done;
+            int h = done ? 1 : 0;
+            for(int[] payload : payloads)
+            {
+                h = 31 * h + System.identityHashCode(payload);
+            }
+            hash = h;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if(!(o instanceof Key))
+            {
+                return false;
+            }
+            Key other = (Key) o;
+            if(done != other.done || payloads.length != other.payloads.length)
+            {
+                return false;
+            }
+            for(int i = 0; i < payloads.length; i++)
+            {
+                if(payloads[i] != other.payloads[i])
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    }
+
+}
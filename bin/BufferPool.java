@@ -0,0 +1,144 @@
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+
+// This class keeps direct ByteBuffers of a node for reuse, so sending and receiving messages does not allocate a new
+// direct buffer (off-heap memory that is only freed by the cleaner) for every message.
+// Buffers come in power of two sizes. acquire() hands out a free buffer of the smallest size that fits, and only
+// allocates one if none is free; release() gives it back. Once the node has seen its largest message, rounds
+// allocate no more direct buffers. Shared by all channels of the node, so the methods are synchronized.
+// Read-only views of a frame shared by several channels (see BroadcastFrame) are given back with release() too: the
+// pool hands them to their frame, which gives its own buffer back once all of its views are back.
+public class BufferPool {
+
+    // Smallest buffer size handed out (2^8 = 256 bytes).
+    private static final int MIN_SIZE_SHIFT = 8;
+    // Most free buffers kept of each size - more are left to the garbage collector.
+    private static final int MAX_FREE_PER_SIZE = 64;
+
+    // Free buffers of each size, indexed by log2 of the size.
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final ArrayDeque<ByteBuffer>[] freeBuffers = new ArrayDeque[31];
+
+    // Number of direct buffers allocated and number of buffers handed out over the whole run.
+    private long allocations = 0;
+    private long acquires = 0;
+
+    // Frame each read-only view handed out by a BroadcastFrame belongs to, until the view is released. Views of
+    // the same frame are equal by content, so they are told apart by identity.
+    private final IdentityHashMap<ByteBuffer, BroadcastFrame> sharedViews = new IdentityHashMap<>();
+
+    /*
+        Method: acquire
+        Description: Hands out a cleared direct buffer that can hold at least the given number of bytes.
+        Parameters: Integer minimum capacity in bytes.
+        Returns: Direct ByteBuffer - give it back with release() once it is not used anymore.
+     */
+    public synchronized ByteBuffer acquire(int minCapacity)
+    {
+        int shift = sizeShift(minCapacity);
+        acquires++;
+
+        ArrayDeque<ByteBuffer> free = freeBuffers[shift];
+        if(free != null && !free.isEmpty())
+        {
+            ByteBuffer buf = free.pop();
+            buf.clear();
+            return buf;
+        }
+
+        allocations++;
+        return ByteBuffer.allocateDirect(1 << shift);
+    }
+
+    /*
+        Method: release
+        Description: Gives a buffer handed out by acquire() back to the pool. The buffer must not be used afterwards.
+        Parameters: ByteBuffer to give back.
+        Returns: Nothing
+     */
+    public void release(ByteBuffer buf)
+    {
+        if(buf.isReadOnly())
+        {
+            // A view of a shared frame goes back to its frame, outside of the pool's lock - the frame calls
+            // release() with its own buffer once all of its views are back.
+            BroadcastFrame frame;
+            synchronized(this)
+            {
+                frame = sharedViews.remove(buf);
+            }
+            if(frame != null)
+            {
+                frame.released();
+            }
+            return;
+        }
+
+        synchronized(this)
+        {
+            int capacity = buf.capacity();
+            // Only keep direct buffers of the pool's sizes.
+            if(!buf.isDirect() || Integer.bitCount(capacity) != 1 || capacity < 1 << MIN_SIZE_SHIFT)
+            {
+                return;
+            }
+
+            int shift = Integer.numberOfTrailingZeros(capacity);
+            if(freeBuffers[shift] == null)
+            {
+                freeBuffers[shift] = new ArrayDeque<>();
+            }
+            if(freeBuffers[shift].size() < MAX_FREE_PER_SIZE)
+            {
+                freeBuffers[shift].push(buf);
+            }
+        }
+    }
+
+    /*
+        Method: share
+        Description: Records the frame a read-only view handed out by BroadcastFrame.duplicate() belongs to, so
+            release() can give the view back to it.
+        Parameters: The read-only view and its frame.
+        Returns: Nothing
+     */
+    public synchronized void share(ByteBuffer view, BroadcastFrame frame)
+    {
+        sharedViews.put(view, frame);
+    }
+
+    /*
+        Method: getAllocations
+        Description: Returns the number of direct buffers the pool allocated.
+        Parameters: None
+        Returns: Long number of allocations.
+     */
+    public synchronized long getAllocations()
+    {
+        return allocations;
+    }
+
+    /*
+        Method: getAcquires
+        Description: Returns the number of buffers the pool handed out.
+        Parameters: None
+        Returns: Long number of buffers handed out.
+     */
+    public synchronized long getAcquires()
+    {
+        return acquires;
+    }
+
+    /*
+        Method: sizeShift
+        Description: Returns log2 of the smallest pool buffer size that can hold the given number of bytes.
+        Parameters: Integer number of bytes.
+        Returns: Integer log2 of the buffer size.
+     */
+    private static int sizeShift(int capacity)
+    {
+        return Math.max(MIN_SIZE_SHIFT, 32 - Integer.numberOfLeadingZeros(capacity - 1));
+    }
+
+}
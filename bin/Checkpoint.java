@@ -0,0 +1,312 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+// This class keeps the checkpoints of one node in two memory-mapped files, checkpoint-<node ID>-0.bin and
+// checkpoint-<node ID>-1.bin in RunOptions.checkpointDir. Checkpoints alternate between the files, so if the JVM
+// dies while one is written, the other still holds the previous checkpoint. The pages of a mapped file belong to
+// the operating system, so a checkpoint survives the JVM as soon as it is copied into the mapping - no write or
+// sync call is made on the round path. It does not survive a failure of the machine: force() is never called, so
+// pages the operating system has not written back yet are lost with it. A file is mapped again (twice the size)
+// once the state outgrows it.
+// File layout:
+//      int     magic number (MAGIC)
+//      int     round the node resumes from
+//      int     length of the state
+//      int     CRC32 of the state
+//      bytes   state written by SCTPClientServer.saveState
+// The state is written before the header, and a checkpoint is only used if its CRC matches.
+public class Checkpoint {
+
+    // First int of a checkpoint file ("CKP1").
+    private static final int MAGIC = 0x434B5031;
+    // Size of the header before the state.
+    private static final int HEADER_SIZE = 4 * Integer.BYTES;
+    // Smallest size a file is mapped with.
+    private static final int MIN_MAPPED_SIZE = 1 << 12;
+
+    // Round of the checkpoint each node resumes from (-1 if it has none) - looked up once per node, so the
+    // neighbors of a node hosted in the same JVM agree with it on the round.
+    private static final ConcurrentHashMap<Integer, Integer> resumeRounds = new ConcurrentHashMap<>();
+
+    // Node the checkpoints belong to
+    private final int nodeID;
+    // Mapping of each file (null until the first checkpoint is written to it).
+    private final MappedByteBuffer[] mappings = new MappedByteBuffer[2];
+    // File the next checkpoint is written to.
+    private int next = 0;
+    // Buffer the state is written into before it is copied into the mapping (reused).
+    private final StateBuffer state = new StateBuffer();
+
+    // ByteArrayOutputStream without a lock on every write - DataOutputStream writes an int as 4 single bytes, and
+    // the lock made writing the state most of the cost of a checkpoint. Only the node's thread writes to it.
+    private static class StateBuffer extends ByteArrayOutputStream
+    {
+        @Override
+        public void write(int b)
+        {
+            if(count == buf.length)
+            {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+            }
+            buf[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len)
+        {
+            if(count + len > buf.length)
+            {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, count + len));
+            }
+            System.arraycopy(b, off, buf, count, len);
+            count += len;
+        }
+
+        // Returns the buffer itself - the state is its first size() bytes.
+        byte[] array()
+        {
+            return buf;
+        }
+    }
+
+    // Constructor - a resumed node writes its next checkpoint to the file that does not hold the checkpoint it
+    // resumed from. A node started from round 0 deletes the checkpoints of an earlier run first, so a restart can
+    // never pick them up.
+    public Checkpoint(int nodeID, boolean resumed)
+    {
+        this.nodeID = nodeID;
+        if(!resumed)
+        {
+            file(nodeID, 0).delete();
+            file(nodeID, 1).delete();
+            return;
+        }
+        next = readRound(file(nodeID, 0)) <= readRound(file(nodeID, 1)) ? 0 : 1;
+    }
+
+    /*
+        Method: write
+        Description: Writes the node's state as the next checkpoint.
+        Parameters: Synchronizer of the node (called while holding its lock).
+        Returns: Integer number of bytes of the state.
+     */
+    public int write(SCTPClientServer cs) throws IOException
+    {
+        state.reset();
+        DataOutputStream out = new DataOutputStream(state);
+        cs.saveState(out);
+        out.flush();
+        // The state is copied straight from the buffer, without toByteArray.
+        int length = state.size();
+        CRC32 crc = new CRC32();
+        crc.update(state.array(), 0, length);
+
+        MappedByteBuffer mapping = map(next, HEADER_SIZE + length);
+        // State first, then the header that makes it valid.
+        mapping.put(HEADER_SIZE, state.array(), 0, length);
+        mapping.putInt(4, cs.getCurrentRoundNumber());
+        mapping.putInt(8, length);
+        mapping.putInt(12, (int) crc.getValue());
+        mapping.putInt(0, MAGIC);
+
+        next = 1 - next;
+        return length;
+    }
+
+    /*
+        Method: load
+        Description: Reads the latest valid checkpoint of a node.
+        Parameters: Integer node ID.
+        Returns: Byte array of the state, or null if the node has no valid checkpoint.
+     */
+    public static byte[] load(int nodeID)
+    {
+        byte[] latest = null;
+        int latestRound = -1;
+        for(int i = 0; i < 2; i++)
+        {
+            File file = file(nodeID, i);
+            int round = readRound(file);
+            if(round > latestRound)
+            {
+                latest = readState(file);
+                latestRound = round;
+            }
+        }
+        resumeRounds.putIfAbsent(nodeID, latestRound);
+        return latest;
+    }
+
+    /*
+        Method: resumeRound
+        Description: Returns the round a node resumes from when nodes are restarted (see RunOptions) - the round of
+            its latest valid checkpoint, or 0 if it has none or nodes are not restarted.
+        Parameters: Integer node ID.
+        Returns: Integer round number.
+     */
+    public static int resumeRound(int nodeID)
+    {
+        if(!RunOptions.checkpointResume)
+        {
+            return 0;
+        }
+        Integer round = resumeRounds.get(nodeID);
+        if(round == null)
+        {
+            load(nodeID);
+            round = resumeRounds.get(nodeID);
+        }
+        return Math.max(0, round);
+    }
+
+    /*
+        Method: writeInts
+        Description: Writes an array of integers that can be null.
+        Parameters: DataOutput to write to and the array.
+        Returns: Nothing
+     */
+    static void writeInts(DataOutput out, int[] values) throws IOException
+    {
+        out.writeInt(values == null ? -1 : values.length);
+        if(values != null)
+        {
+            for(int value : values)
+            {
+                out.writeInt(value);
+            }
+        }
+    }
+
+    /*
+        Method: readInts
+        Description: Reads an array written by writeInts.
+        Parameters: DataInput to read from.
+        Returns: Array of integers, or null.
+     */
+    static int[] readInts(DataInput in) throws IOException
+    {
+        int length = in.readInt();
+        if(length < 0)
+        {
+            return null;
+        }
+        int[] values = new int[length];
+        for(int i = 0; i < length; i++)
+        {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+    /*
+        Method: map
+        Description: Returns the mapping of a file that holds at least the given number of bytes, mapping the file
+            again with a larger size if needed.
+        Parameters: Integer index of the file and integer number of bytes needed.
+        Returns: MappedByteBuffer of the file.
+     */
+    private MappedByteBuffer map(int index, int size) throws IOException
+    {
+        if(mappings[index] == null || mappings[index].capacity() < size)
+        {
+            int mappedSize = Math.max(MIN_MAPPED_SIZE, Integer.highestOneBit(size - 1) << 1);
+            File file = file(nodeID, index);
+            file.getParentFile().mkdirs();
+            // The mapping stays valid after the channel is closed.
+            try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                mappings[index] = channel.map(FileChannel.MapMode.READ_WRITE, 0, mappedSize);
+            }
+        }
+        return mappings[index];
+    }
+
+    /*
+        Method: readRound
+        Description: Reads the round of the checkpoint in a file if the checkpoint is valid.
+        Parameters: File to read.
+        Returns: Integer round number, or -1 if the file does not hold a valid checkpoint.
+     */
+    private static int readRound(File file)
+    {
+        MappedByteBuffer mapping = mapForReading(file);
+        return mapping != null && isValid(mapping) ? mapping.getInt(4) : -1;
+    }
+
+    /*
+        Method: readState
+        Description: Reads the state of the checkpoint in a file.
+        Parameters: File holding a valid checkpoint.
+        Returns: Byte array of the state.
+     */
+    private static byte[] readState(File file)
+    {
+        MappedByteBuffer mapping = mapForReading(file);
+        byte[] data = new byte[mapping.getInt(8)];
+        mapping.get(HEADER_SIZE, data);
+        return data;
+    }
+
+    /*
+        Method: isValid
+        Description: Determines if a mapped file holds a whole checkpoint - the magic number is set and the CRC of
+            the state matches.
+        Parameters: MappedByteBuffer of the file.
+        Returns: Boolean - true if the checkpoint can be used.
+     */
+    private static boolean isValid(MappedByteBuffer mapping)
+    {
+        if(mapping.capacity() < HEADER_SIZE || mapping.getInt(0) != MAGIC)
+        {
+            return false;
+        }
+        int length = mapping.getInt(8);
+        if(length < 0 || length > mapping.capacity() - HEADER_SIZE)
+        {
+            return false;
+        }
+        byte[] data = new byte[length];
+        mapping.get(HEADER_SIZE, data);
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return (int) crc.getValue() == mapping.getInt(12);
+    }
+
+    /*
+        Method: mapForReading
+        Description: Maps a checkpoint file for reading.
+        Parameters: File to map.
+        Returns: MappedByteBuffer of the whole file, or null if the file does not exist or cannot be read.
+     */
+    private static MappedByteBuffer mapForReading(File file)
+    {
+        if(!file.isFile())
+        {
+            return null;
+        }
+        try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        catch(IOException e)
+        {
+            return null;
+        }
+    }
+
+    // Returns a checkpoint file of a node.
+    private static File file(int nodeID, int index)
+    {
+        return new File(RunOptions.checkpointDir, "checkpoint-" + nodeID + "-" + index + ".bin");
+    }
+
+}
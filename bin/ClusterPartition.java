@@ -0,0 +1,139 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+
+// This class partitions the topology into clusters for the beta and gamma synchronizers.
+// Every node reads the whole topology from the config file, so every node computes the same partition locally and
+// no messages are needed to set it up. Clusters are grown in node ID order: the lowest node ID not in a cluster yet
+// becomes the leader of a new cluster, which takes every node not in a cluster yet within "radius" hops of the
+// leader (breadth first). A node's parent is the node it was reached from, so each cluster is a BFS tree rooted at
+// its leader. For each pair of adjacent clusters, the first edge between them (by node ID) is the preferred edge
+// the clusters use to tell each other they are safe.
+// With an unlimited radius, each connected component is one cluster, i.e. a BFS spanning tree rooted at node 0.
+public class ClusterPartition {
+
+    // Leader node ID of the cluster of each node.
+    private final int[] leader;
+    // Parent node ID of each node in its cluster's tree (-1 for leaders).
+    private final int[] parent;
+    // Children of each node in its cluster's tree.
+    private final ArrayList<Integer>[] children;
+    // Neighbors of each node in other clusters that are connected to it by a preferred edge.
+    private final ArrayList<Integer>[] preferredNeighbors;
+
+    // Constructor - computes the partition of the topology.
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ClusterPartition(Topology topology, int radius)
+    {
+        int numOfNodes = topology.getNumOfNodes();
+        leader = new int[numOfNodes];
+        parent = new int[numOfNodes];
+        children = new ArrayList[numOfNodes];
+        preferredNeighbors = new ArrayList[numOfNodes];
+        int[] depth = new int[numOfNodes];
+
+        Arrays.fill(leader, -1);
+        Arrays.fill(parent, -1);
+        for(int i = 0; i < numOfNodes; i++)
+        {
+            children[i] = new ArrayList<>();
+            preferredNeighbors[i] = new ArrayList<>();
+        }
+
+        // Grow a cluster from each node ID that is not in a cluster yet.
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for(int seed = 0; seed < numOfNodes; seed++)
+        {
+            if(leader[seed] != -1)
+            {
+                continue;
+            }
+
+            leader[seed] = seed;
+            queue.add(seed);
+            while(!queue.isEmpty())
+            {
+                int nodeID = queue.poll();
+                if(depth[nodeID] == radius)
+                {
+                    continue;
+                }
+                for(int port = 0; port < topology.getDegree(nodeID); port++)
+                {
+                    int neighborID = topology.getNeighbor(nodeID, port);
+                    if(leader[neighborID] == -1)
+                    {
+                        leader[neighborID] = seed;
+                        parent[neighborID] = nodeID;
+                        depth[neighborID] = depth[nodeID] + 1;
+                        children[nodeID].add(neighborID);
+                        queue.add(neighborID);
+                    }
+                }
+            }
+        }
+
+        // Pick the first edge found between each pair of adjacent clusters as their preferred edge.
+        HashSet<Long> connectedClusters = new HashSet<>();
+        for(int nodeID = 0; nodeID < numOfNodes; nodeID++)
+        {
+            for(int port = 0; port < topology.getDegree(nodeID); port++)
+            {
+                int neighborID = topology.getNeighbor(nodeID, port);
+                int a = Math.min(leader[nodeID], leader[neighborID]);
+                int b = Math.max(leader[nodeID], leader[neighborID]);
+                if(a != b && connectedClusters.add((long) a * numOfNodes + b))
+                {
+                    preferredNeighbors[nodeID].add(neighborID);
+                    preferredNeighbors[neighborID].add(nodeID);
+                }
+            }
+        }
+    }
+
+    /*
+        Method: getLeader
+        Description: Returns the leader of a node's cluster.
+        Parameters: Integer node ID.
+        Returns: Integer leader node ID.
+     */
+    public int getLeader(int nodeID)
+    {
+        return leader[nodeID];
+    }
+
+    /*
+        Method: getParent
+        Description: Returns a node's parent in its cluster's tree.
+        Parameters: Integer node ID.
+        Returns: Integer parent node ID (-1 if the node is the leader of its cluster).
+     */
+    public int getParent(int nodeID)
+    {
+        return parent[nodeID];
+    }
+
+    /*
+        Method: getChildren
+        Description: Returns a node's children in its cluster's tree.
+        Parameters: Integer node ID.
+        Returns: List of child node IDs.
+     */
+    public ArrayList<Integer> getChildren(int nodeID)
+    {
+        return children[nodeID];
+    }
+
+    /*
+        Method: getPreferredNeighbors
+        Description: Returns the neighbors in other clusters that a node is connected to by a preferred edge.
+        Parameters: Integer node ID.
+        Returns: List of neighbor node IDs.
+     */
+    public ArrayList<Integer> getPreferredNeighbors(int nodeID)
+    {
+        return preferredNeighbors[nodeID];
+    }
+
+}
@@ -0,0 +1,393 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+
+// This class reads the config file byte by byte from memory-mapped chunks of the file, without Scanner, regular
+// expressions or a String per line, so configs with hundreds of thousands of nodes and millions of edges are read
+// in one pass at disk speed. The format is the same as before:
+//   A valid line starts with an unsigned integer - all other lines are skipped. '#' starts a comment anywhere in a
+//   line (i.e. "1 4#x" is the neighbor list "1 4"), the same way the launcher script strips comments.
+//   The first valid line is the number of nodes n, the next n valid lines are "nodeID hostname listenPort", and the
+//   next n valid lines are the neighbor lists of nodes 0 to n-1. Anything after that is not read.
+// Neighbor IDs are appended straight to the arrays of the Topology (compressed sparse row), so no list or boxed
+// Integer is created per neighbor. A node running the alpha synchronizer only needs its own neighbor list, so the
+// parser can skip over the neighbor lists of all other nodes (they have no neighbors in the Topology).
+public class ConfigParser {
+
+    // Node ID to pass to parse all neighbor lists.
+    public static final int ALL_NODES = -1;
+
+    // Size of the parts of the file mapped at a time.
+    private static final int CHUNK_SIZE = 1 << 26;
+    // Value of the current byte at the end of the file.
+    private static final int EOF = -1;
+
+    // Config file and the node whose neighbor list is parsed (ALL_NODES for all).
+    private final Path path;
+    private final int ownNodeID;
+
+    // File, its size, the part of it mapped right now and the file position the part starts at.
+    private FileChannel channel;
+    private long size;
+    private MappedByteBuffer chunk;
+    private long chunkStart;
+    // Byte the parser is at (EOF at the end of the file) and the number of the line it is on.
+    private int current;
+    private int lineNumber = 1;
+
+    // Bytes of the token being read, and the host names read so far - nodes on the same machine share the String.
+    private byte[] token = new byte[64];
+    private final HashMap<String, String> hostNames = new HashMap<>();
+
+    // Result: nodes and the topology of their neighbors (shared by all nodes).
+    private Node[] nodes;
+    private Topology topology;
+    // Arrays of the topology while it is read - start of each node's neighbors and the neighbor IDs read so far.
+    private int[] offsets;
+    private int[] targets = new int[1024];
+    private int numOfTargets = 0;
+    // Number of bytes read and time the parse took in nanoseconds.
+    private long bytesRead = 0;
+    private long parseTime = 0;
+
+    // Constructor - ownNodeID is the only node whose neighbor list is parsed, or ALL_NODES.
+    public ConfigParser(Path path, int ownNodeID)
+    {
+        this.path = path;
+        this.ownNodeID = ownNodeID;
+    }
+
+    /*
+        Method: parse
+        Description: Reads the config file.
+        Parameters: None
+        Returns: Nothing
+     */
+    public void parse() throws IOException
+    {
+        long startTime = System.nanoTime();
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            size = channel.size();
+            chunkStart = 0;
+            chunk = null;
+            advance();
+
+            // Number of valid lines read and the number of nodes.
+            int validLines = 0;
+            int n = 0;
+
+            while(current != EOF && (validLines == 0 || validLines < 2*n+1))
+            {
+                skipSpaces();
+
+                // A valid line starts with an unsigned integer followed by a space, a comment or the end of the line.
+                if(!isDigit(current))
+                {
+                    skipLine();
+                    continue;
+                }
+                int first = readUnsigned();
+                if(!isSpace(current) && !isEndOfLine(current))
+                {
+                    skipLine();
+                    continue;
+                }
+                validLines++;
+
+                // Number of nodes in distributed system.
+                if(validLines == 1)
+                {
+                    n = first;
+                    nodes = new Node[n];
+                    offsets = new int[n + 1];
+                }
+
+                // Node information : nodeID, hostname, listening port
+                else if(validLines <= n+1)
+                {
+                    skipSpaces();
+                    String hostName = readHostName();
+                    skipSpaces();
+                    if(!isDigit(current))
+                    {
+                        throw error("listening port expected");
+                    }
+                    nodes[validLines - 2] = new Node(first, hostName, readUnsigned());
+                }
+
+                // Neighbors of the node - only stored for the node(s) that need them.
+                else
+                {
+                    int index = validLines - n - 2;
+                    if(ownNodeID == ALL_NODES || ownNodeID == index)
+                    {
+                        readNeighbors(first);
+                    }
+                    offsets[index + 1] = numOfTargets;
+                }
+
+                skipLine();
+            }
+
+            bytesRead = Math.min(size, chunkStart + (chunk == null ? 0 : chunk.position()));
+            createTopology(validLines - n - 1);
+        }
+        finally {
+            channel.close();
+            parseTime = System.nanoTime() - startTime;
+        }
+    }
+
+    /*
+        Method: getNodes
+        Description: Returns the nodes of the config file.
+        Parameters: None
+        Returns: Array of nodes indexed by node ID.
+     */
+    public Node[] getNodes()
+    {
+        return nodes;
+    }
+
+    /*
+        Method: getTopology
+        Description: Returns the neighbors of all nodes (none for the nodes whose list was skipped).
+        Parameters: None
+        Returns: Topology of the config file.
+     */
+    public Topology getTopology()
+    {
+        return topology;
+    }
+
+    /*
+        Method: getBytesRead
+        Description: Returns the number of bytes of the file the parser read.
+        Parameters: None
+        Returns: Long number of bytes.
+     */
+    public long getBytesRead()
+    {
+        return bytesRead;
+    }
+
+    /*
+        Method: getParseTime
+        Description: Returns the time the parse took.
+        Parameters: None
+        Returns: Long time in nanoseconds.
+     */
+    public long getParseTime()
+    {
+        return parseTime;
+    }
+
+    /*
+        Method: readNeighbors
+        Description: Reads the rest of a neighbor list and appends its neighbor IDs to the topology's targets.
+        Parameters: Integer first neighbor ID, which was already read.
+        Returns: Nothing
+     */
+    private void readNeighbors(int first) throws IOException
+    {
+        addTarget(first);
+        while(true)
+        {
+            skipSpaces();
+            if(isEndOfLine(current))
+            {
+                return;
+            }
+            if(!isDigit(current))
+            {
+                throw error("neighbor ID expected");
+            }
+            addTarget(readUnsigned());
+        }
+    }
+
+    /*
+        Method: addTarget
+        Description: Appends a neighbor ID to the topology's targets, growing the array when it is full.
+        Parameters: Integer neighbor ID.
+        Returns: Nothing
+     */
+    private void addTarget(int neighborID)
+    {
+        if(numOfTargets == targets.length)
+        {
+            targets = Arrays.copyOf(targets, numOfTargets * 2);
+        }
+        targets[numOfTargets++] = neighborID;
+    }
+
+    /*
+        Method: createTopology
+        Description: Creates the topology from the neighbor IDs read and hands it to every node. Nodes whose
+            neighbor list is missing from the file have no neighbors.
+        Parameters: Integer number of neighbor lists read.
+        Returns: Nothing
+     */
+    private void createTopology(int listsRead)
+    {
+        if(nodes == null)
+        {
+            return;
+        }
+        for(int index = Math.max(0, listsRead); index < nodes.length; index++)
+        {
+            offsets[index + 1] = numOfTargets;
+        }
+        topology = new Topology(offsets, Arrays.copyOf(targets, numOfTargets));
+        targets = null;
+
+        for(Node node : nodes)
+        {
+            if(node != null)
+            {
+                node.setTopology(topology);
+            }
+        }
+    }
+
+    /*
+        Method: readUnsigned
+        Description: Reads the digits at the current byte as an unsigned integer.
+        Parameters: None
+        Returns: Integer value.
+     */
+    private int readUnsigned() throws IOException
+    {
+        long value = 0;
+        while(isDigit(current))
+        {
+            value = value * 10 + (current - '0');
+            if(value > Integer.MAX_VALUE)
+            {
+                throw error("number too large");
+            }
+            advance();
+        }
+        return (int) value;
+    }
+
+    /*
+        Method: readHostName
+        Description: Reads the token at the current byte as a host name.
+        Parameters: None
+        Returns: String host name (shared with the nodes that have the same host name).
+     */
+    private String readHostName() throws IOException
+    {
+        int length = 0;
+        while(current != EOF && !isSpace(current) && !isEndOfLine(current))
+        {
+            if(length == token.length)
+            {
+                token = Arrays.copyOf(token, length * 2);
+            }
+            token[length++] = (byte) current;
+            advance();
+        }
+        if(length == 0)
+        {
+            throw error("host name expected");
+        }
+
+        String hostName = new String(token, 0, length, StandardCharsets.UTF_8);
+        String known = hostNames.putIfAbsent(hostName, hostName);
+        return known != null ? known : hostName;
+    }
+
+    /*
+        Method: skipSpaces
+        Description: Moves past spaces and tabs (not past the end of the line).
+        Parameters: None
+        Returns: Nothing
+     */
+    private void skipSpaces() throws IOException
+    {
+        while(isSpace(current))
+        {
+            advance();
+        }
+    }
+
+    /*
+        Method: skipLine
+        Description: Moves to the first byte of the next line.
+        Parameters: None
+        Returns: Nothing
+     */
+    private void skipLine() throws IOException
+    {
+        while(current != EOF && current != '\n')
+        {
+            advance();
+        }
+        if(current == '\n')
+        {
+            lineNumber++;
+            advance();
+        }
+    }
+
+    /*
+        Method: advance
+        Description: Moves to the next byte of the file, mapping the next part of the file when needed.
+        Parameters: None
+        Returns: Nothing
+     */
+    private void advance() throws IOException
+    {
+        if(chunk == null || !chunk.hasRemaining())
+        {
+            if(chunk != null)
+            {
+                chunkStart += chunk.capacity();
+            }
+            if(chunkStart >= size)
+            {
+                current = EOF;
+                return;
+            }
+            chunk = channel.map(FileChannel.MapMode.READ_ONLY, chunkStart, Math.min(CHUNK_SIZE, size - chunkStart));
+        }
+        current = chunk.get() & 0xff;
+    }
+
+    /*
+        Method: error
+        Description: Creates the exception for an invalid line.
+        Parameters: String description of what is wrong.
+        Returns: IOException naming the file and line.
+     */
+    private IOException error(String description)
+    {
+        return new IOException("Invalid config file " + path + " at line " + lineNumber + ": " + description);
+    }
+
+    // Whitespace within a line (i.e. "\\s" without the line feed).
+    private static boolean isSpace(int c)
+    {
+        return c == ' ' || c == '\t' || c == '\r' || c == '\f' || c == 0x0B;
+    }
+
+    // End of the line's content - a comment, the line feed or the end of the file.
+    private static boolean isEndOfLine(int c)
+    {
+        return c == '#' || c == '\n' || c == EOF;
+    }
+
+    private static boolean isDigit(int c)
+    {
+        return c >= '0' && c <= '9';
+    }
+
+}
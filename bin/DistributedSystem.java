@@ -12,24 +12,24 @@
     Synchronizer: This program also implements a synchronizer to simulate a synchronous distributed system. All nodes execute
     a sequence of rounds. In each round, a node sends one message to each of its neighbors, then waits to receive one
     message from each of its neighbors sent in that round and then advances to the next round. Any message received
-    from a future round is buffered until the node has moved to that round.
+    from a future round is buffered until the node has moved to that round. This is the alpha synchronizer; the beta
+    and gamma synchronizers (see RunOptions) trade messages on every channel for acknowledgements and control
+    messages on a spanning tree or clusters.
     Distributed Algorithm: The synchronizer is then used to determine the k-hop neighbors and eccentricity of each node.
     The eccentricity of a node is defined as the max distance between a node to all other nodes in the topology.
  */
 
-import java.io.File;
 import java.io.IOException;
 import java.nio.file.*;
-import java.util.LinkedList;
-import java.util.Scanner;
+import java.util.concurrent.Executor;
 
 public class DistributedSystem
 {
 
     // Holds all of the nodes and their information (i.e. nodeID, hostname, port number, etc.).
     public static Node[] allNodes = null;
-    // Holds the neighbors of each node as a LinkedList.
-    public static LinkedList<Integer>[] neighbors = null;
+    // Holds the neighbors of each node (see Topology).
+    public static Topology topology = null;
 
     public static void main(String[] args)
     {
@@ -44,51 +44,37 @@ public class DistributedSystem
                 return;
             }
 
-            // Otherwise, first commandline argument is nodeID.
-            int nodeID = Integer.parseInt(args[0]);
-
             // Second commandline argument is config file location.
             String filename = args[1];
 
-            // Read all info from config file.
-            readConfigFile(filename);
-
-            //System.out.println("Node: " + nodeID + " on machine " + allNodes[nodeID].hostName + " on port " + allNodes[nodeID].listeningPort);
-
-            // Holds number of rounds used in the synchronizer for the distributed algorithm to calculate eccentricity.
-            int numOfRounds = allNodes.length - 2;
-
-            // Create instance of ClientServer - pass the node/process this program instance handles and the number of nodes
-            // in the distributed system topology. ClientServer used to synchronize.
-            SCTPClientServer cs = new SCTPClientServer(allNodes[nodeID], allNodes.length);
+            // First commandline argument is nodeID - or a list of node IDs (i.e. "0-49" or "0,5,9"), which runs all
+            // of them in this JVM.
+            if(args[0].indexOf(',') >= 0 || args[0].indexOf('-') >= 0)
+            {
+                runNodes(args[0], filename);
+                return;
+            }
+            int nodeID = Integer.parseInt(args[0]);
 
-            // Create server - pass the ClientServer for synchronization, the node/process for this program instance,
-            // and the number of rounds needed for the distributed algorithm to calculate the eccentricity.
-            SCTPServer server = new SCTPServer(cs, allNodes[nodeID], numOfRounds);
+            // Read all info from config file. The alpha synchronizer only needs the neighbors of this node; the beta
+            // and gamma synchronizers build their spanning trees from the neighbors of all nodes.
+            readConfigFile(filename, RunOptions.synchronizer.equalsIgnoreCase("alpha") ? nodeID :
+                    ConfigParser.ALL_NODES);
 
-            // Start server of this node.
-            Thread serverThread = new Thread(server);
-            serverThread.start();
+            //System.out.println("Node: " + nodeID + " on machine " + allNodes[nodeID].hostName + " on port " + allNodes[nodeID].listeningPort);
 
+            // Create instance of ClientServer - pass the node/process this program instance handles, the number of nodes
+            // in the distributed system topology and the topology itself (the beta and gamma synchronizers build their
+            // spanning trees from it). ClientServer used to synchronize.
+            SCTPClientServer cs = new SCTPClientServer(allNodes[nodeID], allNodes.length, topology);
+            // Make the node's metrics readable over JMX while it runs.
+            cs.getMetrics().registerMBean();
 
-            // Determine if neighbors are clients or servers.
-            // If node for this program instance is client (i.e. client node id > neighbor node id), then create client
-            // with neighbor server info and connect channel.
-            // Iterate through all neighbors of node.
-            for(int neighborID : neighbors[nodeID])
-            {
-                // If node for this program instance is the client.
-                if(nodeID > neighborID)
-                {
-                    // Create client where nodeID is client, neighborID is server.
-                    // Pass ClientServer for synchronization, the server and client node information, and number of rounds.
-                    SCTPClient client = new SCTPClient(cs, allNodes[neighborID], allNodes[nodeID], numOfRounds);
-
-                    // Connect client to server.
-                    Thread clientThread = new Thread(client);
-                    clientThread.start();
-                }
-            }
+            // Connect the node's channels to its neighbors over SCTP - the server accepts the neighbors with a higher
+            // node ID and a client connects to each neighbor with a lower node ID.
+            Transport transport = new SCTPTransport(allNodes);
+            transport.start(cs, allNodes[nodeID]);
+            NodeGroup.watchHalt(cs);
 
         }
 
@@ -101,6 +87,35 @@ public class DistributedSystem
 
     }
 
+    /*
+        Method: runNodes
+        Description: Runs several nodes in this JVM (see NodeGroup). Their channels are SCTP channels as with one JVM
+            per node, but the channels of all of them are handled by one shared reactor thread and their server and
+            client threads come from one shared worker pool. Prints the rounds per second and the memory per node
+            once all of them have terminated.
+        Parameters: String list of node IDs and String filename of where config file is located.
+        Returns: Nothing.
+     */
+    private static void runNodes(String list, String filename) throws Exception
+    {
+        // The nodes need the neighbors of all of them.
+        readConfigFile(filename);
+        if(allNodes == null)
+        {
+            return;
+        }
+        int[] nodeIDs = NodeGroup.parseNodeIDs(list, allNodes.length);
+
+        // One event loop for the channels of all nodes, whatever transport.mode is.
+        SCTPReactor reactor = new SCTPReactor(nodeIDs.length);
+        Thread reactorThread = new Thread(reactor, "sctp-reactor");
+        reactorThread.start();
+
+        Executor workers = NodeGroup.newWorkerPool("sctp-worker", 0);
+        Transport transport = new SCTPTransport(allNodes, reactor, workers);
+        new NodeGroup(allNodes, topology, nodeIDs).run("HOST", transport, "1 reactor thread");
+    }
+
     /*
         Method: readConfigFile
         Description: Reads the config file and extracts the number of nodes in the distributed system, the node
@@ -109,110 +124,46 @@ public class DistributedSystem
         Returns: Nothing.
      */
     public static void readConfigFile(String filename)
+    {
+        readConfigFile(filename, ConfigParser.ALL_NODES);
+    }
+
+    /*
+        Method: readConfigFile
+        Description: Reads the config file and extracts the number of nodes in the distributed system and the node
+            information (i.e. nodeID, hostname, listening port) for each node. Only the neighbors of the given node
+            are extracted, unless it is ConfigParser.ALL_NODES.
+        Parameters: String filename of where config file is located and integer node ID whose neighbors are needed.
+        Returns: Nothing.
+     */
+    public static void readConfigFile(String filename, int nodeID)
     {
         try {
             // Path of config file.
             Path path = Paths.get(filename);
 
-            // Maximum allowed size for the config file.
-            long max_file_size = 100000;
-
-            // Check if file is too large.
-            if(Files.size(path) > max_file_size)
+            // Check if file is too large (see RunOptions).
+            if(Files.size(path) > RunOptions.configMaxSize)
             {
                 // Print error statement and end program.
-                System.out.println("The config file is larger than 100kB, which is too large for this program.");
+                System.out.println("The config file is larger than " + RunOptions.configMaxSize +
+                        " bytes (config.maxSize), which is too large for this program.");
 
                 return;
             }
 
-            // Open and read in information from config file.
-            File config_file_obj = new File(filename);
-            Scanner config_reader = new Scanner(config_file_obj);
-
-            // Holds count of number of valid lines in config file.
-            int line_num = 0;
-
-            // Holds number of nodes in distributed system.
-            int n = 0;
-
-            // Holds number of valid lines in config file.
-            int max_line_num = 0;
-
-            // Holds the index for allNodes array which corresponds to the nodeID
-            int all_nodes_index = 0;
-
-            // Holds the index for neighbors array which corresponds to the nodeID
-            int neighbors_index = 0;
-
-            // While the file is not empty
-            while(config_reader.hasNextLine())
-            {
-
-                // Otherwise, read line, trim leading/trailing white space, and split around space delimiter/white space.
-                String[] line = config_reader.nextLine().trim().split("\\s+");
-
-                // Check that line is valid, i.e. first token of line is an unsigned integer.
-                if(!line[0].matches("\\d+"))
-                {
-                    // Skip this line and go to next line in config file because first token is not an unsigned int.
-                    continue;
-                }
-
-                // Increment number of valid lines.
-                line_num++;
-
-                // If first valid line in config file.
-                if(line_num == 1)
-                {
-                    // Number of nodes in distributed system.
-                    n = Integer.parseInt(line[0]);
-
-                    // Number of nodes is now known so can create array of Nodes and array of Neighbors.
-                    allNodes = new Node[n];
-                    neighbors = new LinkedList[n];
-
-                    // Total number of valid lines in config file which is 2n+1.
-                    max_line_num = 2*n+1;
-                }
-
-                // Else, if the line is one of the next n lines in the config file where nodeID, hostname, and port is given.
-                else if(line_num > 1 && line_num <= n+1)
-                {
-                    // Create a node with the information from the line in the config file and add to allNodes
-                    // Information : nodeID, hostname, listening port
-                    allNodes[all_nodes_index] =  new Node(Integer.parseInt(line[0]), line[1], Integer.parseInt(line[2]));
-
-                    // Increment all nodes index to get the next node information.
-                    all_nodes_index++;
-                }
-
-                // Else, if the line is one of the next n lines in the config file where neighbors of each node is given.
-                else if(line_num > n+1 && line_num <= max_line_num)
-                {
-                    // Create new linked list for neighbors of this node.
-                    neighbors[neighbors_index] = new LinkedList<>();
-
-                    // Iterate through each neighbor to add for the node.
-                    for(String id : line)
-                    {
-                        // Check that it is not the beginning of a comment.
-                        if(id.equals("#"))
-                        {
-                            // If beginning of a comment, ignore the rest of the line.
-                            break;
-                        }
-                        // Add neighbor for the node to the LinkedList for that node.
-                        neighbors[neighbors_index].add(Integer.parseInt(id));
-                    }
-
-                    // Add neighbors to the information stored for this node.
-                    allNodes[neighbors_index].addNeighbors(neighbors[neighbors_index]);
-
-                    // Increment neighbors index for the next node.
-                    neighbors_index++;
-                }
-            }
+            // Read in information from config file.
+            ConfigParser parser = new ConfigParser(path, nodeID);
+            parser.parse();
+            allNodes = parser.getNodes();
+            topology = parser.getTopology();
+
+            // Report how long reading the config file took.
+            long parseTime = Math.max(1, parser.getParseTime());
+            System.out.println(String.format("CONFIG: Read %d nodes (%s) from %d bytes in %.1f ms (%.1f MB/s)",
+                    allNodes == null ? 0 : allNodes.length,
+                    nodeID == ConfigParser.ALL_NODES ? "all neighbor lists" : "neighbors of node " + nodeID,
+                    parser.getBytesRead(), parseTime / 1e6, parser.getBytesRead() * 1000.0 / parseTime));
 
         } catch (IOException e) {
             System.out.println("An error occurred.");
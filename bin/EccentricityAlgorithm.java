@@ -0,0 +1,250 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+
+// Finds the k-hop neighbors and the eccentricity of a node - a breadth first search in which every node is the
+// root. The node's neighbors are its 1-hop neighbors. In round r a node sends the node IDs it discovered in the
+// previous round (its (r+1)-hop neighbors, the frontier) and adds every node ID it receives that it has not reached
+// yet to its (r+2)-hop neighbors. Once the frontier is empty no later round can find anything, so the eccentricity
+// is the number of the last non-empty level.
+// Depending on RunOptions the payload is the frontier or the node's full k-hop history, flattened as the size of
+// each level 0..r followed by its node IDs (the receiver only uses level r of it).
+public class EccentricityAlgorithm implements SynchronousAlgorithm {
+
+    // Keeps track of the k-hop neighbors of this node and which nodes have been reached (visited bitset).
+    // Max number of hops is n-1
+    private final KHopState kHopState;
+    // level 0 = node.neighbors or 1 hop neighbors
+    // level 1 = 2 hop neighbors
+    // level 2 = 3 hop neighbors
+    // ... and so on
+
+    // Payload of the current round (the same for every neighbor) and the round it was produced for.
+    private int[] payload;
+    private int payloadRound = -1;
+
+    // Constructor - the node is already counted and its neighbors are its 1-hop neighbors.
+    public EccentricityAlgorithm(Node nodeInfo, int numOfNodes)
+    {
+        // Maximum number of hops that a node could have to farthest node is n-1. Levels are allocated as they are
+        // filled.
+        kHopState = new KHopState(nodeInfo.nodeID, numOfNodes, numOfNodes - 1);
+
+        // Add 1-hop neighbors for this node - these are the neighbors of this node.
+        for(int port = 0; port < nodeInfo.getDegree(); port++)
+        {
+            kHopState.add(0, nodeInfo.getNeighbor(port));
+        }
+    }
+
+    @Override
+    public String getName()
+    {
+        return "eccentricity";
+    }
+
+    /*
+        Method: produce
+        Description: Returns the frontier (or the full k-hop history) of the round - nothing once the frontier is
+            empty. The array is created once per round and sent to every neighbor.
+        Parameters: Integer round number and integer port of the neighbor.
+        Returns: Array of node IDs or null.
+     */
+    @Override
+    public int[] produce(int round, int port)
+    {
+        if(isDone(round))
+        {
+            return null;
+        }
+        if(payloadRound != round)
+        {
+            payload = RunOptions.sendFrontierOnly() ? kHopState.getLevel(round) : getHistory(round);
+            payloadRound = round;
+        }
+        return payload;
+    }
+
+    /*
+        Method: consume
+        Description: Adds each node ID a neighbor discovered last round that this node has not reached to the k-hop
+            neighbors at round+1.
+        Parameters: Integer round number, integer port of the neighbor and the neighbor's payload.
+        Returns: Nothing
+     */
+    @Override
+    public void consume(int round, int port, int[] payload)
+    {
+        if(RunOptions.sendFrontierOnly())
+        {
+            kHopState.addAll(round + 1, payload);
+            return;
+        }
+
+        // Skip the levels before this round's level in the history.
+        int start = 0;
+        for(int level = 0; level < round; level++)
+        {
+            start += payload[start] + 1;
+        }
+        for(int i = start + 1; i <= start + payload[start]; i++)
+        {
+            kHopState.add(round + 1, payload[i]);
+        }
+    }
+
+    @Override
+    public void roundCompleted(int round)
+    {
+        // Nothing to do - node IDs are added to the next level as they are received.
+    }
+
+    /*
+        Method: isDone
+        Description: Determines if the frontier of the round is empty or the last round that can find new k-hop
+            neighbors has passed - either way the k-hop neighbors and the eccentricity are final.
+        Parameters: Integer current round number.
+        Returns: Boolean - true if nothing more can be discovered.
+     */
+    @Override
+    public boolean isDone(int round)
+    {
+        // A round past the last round only runs for other algorithms - there is nothing left to discover.
+        return round > getLastRound() || kHopState.size(round) == 0;
+    }
+
+    /*
+        Method: hasReachedAll
+        Description: Determines if every node the node can reach is within round hops, i.e. no node is round+1 hops
+            away.
+        Parameters: Integer current round number.
+        Returns: Boolean - true if the frontier of the round is empty.
+     */
+    public boolean hasReachedAll(int round)
+    {
+        return round >= kHopState.getMaxHop() || kHopState.size(round) == 0;
+    }
+
+    /*
+        Method: getLastRound
+        Description: Returns the last round that can find new k-hop neighbors - the (n-1)-hop neighbors are found
+            in round n-3, since the 1-hop neighbors are known before round 0.
+        Parameters: None
+        Returns: Integer round number.
+     */
+    @Override
+    public int getLastRound()
+    {
+        return kHopState.getMaxHop() - 2;
+    }
+
+    /*
+        Method: addResult
+        Description: Adds the k-hop neighbors of the node and its eccentricity to the output.
+        Parameters: List of output lines to add to.
+        Returns: Nothing
+     */
+    @Override
+    public void addResult(ArrayList<String> lines)
+    {
+        // Loop through each k-hop neighbor list
+        for(int i = 0; i < kHopState.getMaxHop(); i++)
+        {
+            lines.add(i + 1 + "-hop neighbors --> " + kHopState.levelToString(i));
+        }
+
+        // Determine the eccentricity - it will be the last non-empty list of the k-hop neighbors.
+        lines.add("Eccentricity: " + kHopState.getEccentricity());
+    }
+
+    /*
+        Method: saveState
+        Description: Writes the k-hop levels found so far - the 1-hop neighbors are known from the topology.
+        Parameters: DataOutput to write to.
+        Returns: Nothing
+     */
+    @Override
+    public void saveState(DataOutput out) throws IOException
+    {
+        int numOfLevels = kHopState.getEccentricity();
+        out.writeInt(numOfLevels);
+        for(int level = 1; level < numOfLevels; level++)
+        {
+            Checkpoint.writeInts(out, kHopState.getLevel(level));
+        }
+    }
+
+    /*
+        Method: restoreState
+        Description: Adds the saved k-hop levels in the order they were found, which also marks their node IDs as
+            reached.
+        Parameters: DataInput to read from.
+        Returns: Nothing
+     */
+    @Override
+    public void restoreState(DataInput in) throws IOException
+    {
+        int numOfLevels = in.readInt();
+        for(int level = 1; level < numOfLevels; level++)
+        {
+            kHopState.addAll(level, Checkpoint.readInts(in));
+        }
+    }
+
+    /*
+        Method: getEccentricity
+        Description: Returns the eccentricity found so far - the number of the last non-empty level.
+        Parameters: None
+        Returns: Integer eccentricity.
+     */
+    public int getEccentricity()
+    {
+        return kHopState.getEccentricity();
+    }
+
+    /*
+        Method: getLevels
+        Description: Returns a copy of the non-empty k-hop levels in discovery order - level i holds the (i+1)-hop
+            neighbors, so the number of levels is the eccentricity.
+        Parameters: None
+        Returns: Array of node ID arrays.
+     */
+    public int[][] getLevels()
+    {
+        int[][] levels = new int[kHopState.getEccentricity()][];
+        for(int level = 0; level < levels.length; level++)
+        {
+            levels[level] = kHopState.getLevel(level);
+        }
+        return levels;
+    }
+
+    /*
+        Method: getHistory
+        Description: Flattens the k-hop levels 0 to round into one array - the size of each level followed by its
+            node IDs.
+        Parameters: Integer round number.
+        Returns: Array holding the levels.
+     */
+    private int[] getHistory(int round)
+    {
+        int length = 0;
+        for(int level = 0; level <= round; level++)
+        {
+            length += kHopState.size(level) + 1;
+        }
+
+        int[] history = new int[length];
+        int position = 0;
+        for(int level = 0; level <= round; level++)
+        {
+            int[] ids = kHopState.getLevel(level);
+            history[position++] = ids.length;
+            System.arraycopy(ids, 0, history, position, ids.length);
+            position += ids.length;
+        }
+        return history;
+    }
+
+}
@@ -0,0 +1,287 @@
+import java.util.Arrays;
+
+// Gamma synchronizer - combines alpha and beta. The topology is partitioned into clusters of bounded radius (see
+// ClusterPartition). Inside a cluster, the beta scheme runs on the cluster's tree: round messages are only sent
+// when an algorithm has a payload and are acknowledged, and safe reports are convergecast to the cluster leader.
+// Between clusters, the alpha scheme runs on the preferred edges: once its cluster is safe, the leader broadcasts
+// it down the tree and the endpoints of the preferred edges tell the neighboring clusters. Nodes then convergecast
+// "ready" once they know their neighboring clusters are safe, and the leader sends the pulse down the tree.
+// Costs 2 messages per round message sent plus about 4 messages per node and 2 per preferred edge each round.
+// With early termination, a preferred edge is retired after a round in which every node of both of its clusters was
+// done, and a cluster stops once all of its nodes are done and all of its preferred edges are retired.
+public class GammaSynchronizer implements Synchronizer {
+
+    // Synchronizer of the node
+    private final SCTPClientServer cs;
+    // Number of neighbors of the node
+    private final int degree;
+    // Port of the parent in the cluster's tree (-1 for the leader) and ports of the children in the cluster's tree
+    private final int parent;
+    private final int[] children;
+    // Ports of the neighbors in other clusters connected to this node by a preferred edge that has not been retired.
+    private final boolean[] preferredNeighbors;
+    private int numOfPreferredNeighbors;
+
+    // Number of round messages sent this round that have not been acknowledged yet.
+    private int pendingAcks;
+    // Number of children that reported safe this round.
+    private int safeChildren;
+    // Holds if the algorithms of this node and of every node below it in the cluster's tree were done this round.
+    private boolean subtreeDone;
+    // Holds if this node has reported safe this round.
+    private boolean safe;
+
+    // Holds if the node knows its cluster is safe this round and if every node in the cluster was done.
+    private boolean clusterSafe;
+    private boolean clusterDone;
+    // Ports across preferred edges whose cluster is safe this round, and if every node of that cluster was done.
+    private final boolean[] neighborClusterSafe;
+    private final boolean[] neighborClusterDone;
+    private int numOfSafeNeighborClusters;
+    // Number of children that reported ready this round.
+    private int readyChildren;
+    // Holds if every preferred edge of this node and of every node below it in the cluster's tree is retired.
+    private boolean subtreeRetired;
+    // Holds if this node has reported ready (or sent the pulse, for the leader) this round.
+    private boolean ready;
+
+    // Constructor
+    public GammaSynchronizer(SCTPClientServer cs, Node nodeInfo, ClusterPartition clusters)
+    {
+        this.cs = cs;
+        degree = nodeInfo.getDegree();
+        int parentID = clusters.getParent(nodeInfo.nodeID);
+        parent = parentID < 0 ? -1 : nodeInfo.getPort(parentID);
+        children = nodeInfo.getPorts(clusters.getChildren(nodeInfo.nodeID));
+
+        preferredNeighbors = new boolean[degree];
+        for(int port : nodeInfo.getPorts(clusters.getPreferredNeighbors(nodeInfo.nodeID)))
+        {
+            preferredNeighbors[port] = true;
+            numOfPreferredNeighbors++;
+        }
+        neighborClusterSafe = new boolean[degree];
+        neighborClusterDone = new boolean[degree];
+    }
+
+    @Override
+    public String getName()
+    {
+        return "gamma";
+    }
+
+    /*
+        Method: roundStarted
+        Description: Queues the node's round message for every neighbor it has a payload for, unless all of the
+            node's algorithms are done.
+        Parameters: None
+        Returns: Nothing
+     */
+    @Override
+    public void roundStarted()
+    {
+        pendingAcks = 0;
+        safeChildren = 0;
+        subtreeDone = cs.isDone();
+        safe = false;
+        clusterSafe = false;
+        clusterDone = false;
+        Arrays.fill(neighborClusterSafe, false);
+        Arrays.fill(neighborClusterDone, false);
+        numOfSafeNeighborClusters = 0;
+        readyChildren = 0;
+        subtreeRetired = true;
+        ready = false;
+
+        // Nothing to tell the neighbors if the algorithms are done or have nothing to send to them.
+        if(!subtreeDone)
+        {
+            for(int port = 0; port < degree; port++)
+            {
+                Message msg = cs.createRoundMessage(port);
+                if(msg.hasPayload())
+                {
+                    cs.queueMessage(port, msg);
+                    pendingAcks++;
+                }
+            }
+        }
+
+        // A leaf without round messages to send is safe right away.
+        checkSafe();
+    }
+
+    @Override
+    public void messageSent(int port, Message msg)
+    {
+        // Nothing to do - a round message counts once it has been acknowledged.
+    }
+
+    /*
+        Method: messageReceived
+        Description: Handles a round message or control message from a neighbor.
+        Parameters: Integer port of the source neighbor and the received message.
+        Returns: Nothing
+     */
+    @Override
+    public void messageReceived(int port, Message msg)
+    {
+        switch(msg.msgType)
+        {
+            case round:
+                // Hand the payloads to the algorithms and acknowledge the message.
+                cs.recordReceived(port, msg);
+                cs.queueMessage(port, cs.createControlMessage(MessageType.ack, port, false));
+                break;
+            case ack:
+                pendingAcks--;
+                checkSafe();
+                break;
+            case safe:
+                safeChildren++;
+                subtreeDone &= msg.done;
+                checkSafe();
+                break;
+            case clusterSafe:
+                clusterSafe(msg.done);
+                break;
+            case neighborSafe:
+                if(!neighborClusterSafe[port])
+                {
+                    neighborClusterSafe[port] = true;
+                    numOfSafeNeighborClusters++;
+                }
+                neighborClusterDone[port] = msg.done;
+                checkReady();
+                break;
+            case ready:
+                readyChildren++;
+                subtreeRetired &= msg.done;
+                checkReady();
+                break;
+            case pulse:
+                pulse(msg.done);
+                break;
+            default:
+                throw new IllegalStateException("Unexpected " + msg.msgType + " message from node " +
+                        msg.sourceNodeID);
+        }
+    }
+
+    @Override
+    public boolean isChannelActive(int port)
+    {
+        // Channels are used until the node terminates.
+        return true;
+    }
+
+    /*
+        Method: checkSafe
+        Description: Reports safe to the parent once all round messages are acknowledged and all children are safe.
+            The leader knows its cluster is safe instead.
+        Parameters: None
+        Returns: Nothing
+     */
+    private void checkSafe()
+    {
+        if(safe || pendingAcks > 0 || safeChildren < children.length)
+        {
+            return;
+        }
+        safe = true;
+
+        if(parent < 0)
+        {
+            clusterSafe(subtreeDone);
+        }
+        else
+        {
+            cs.queueMessage(parent, cs.createControlMessage(MessageType.safe, parent, subtreeDone));
+        }
+    }
+
+    /*
+        Method: clusterSafe
+        Description: Passes on that the cluster is safe to the children and to the neighboring clusters across this
+            node's preferred edges.
+        Parameters: Boolean - true if every node in the cluster was done this round.
+        Returns: Nothing
+     */
+    private void clusterSafe(boolean done)
+    {
+        clusterSafe = true;
+        clusterDone = done;
+
+        for(int child : children)
+        {
+            cs.queueMessage(child, cs.createControlMessage(MessageType.clusterSafe, child, done));
+        }
+        for(int port = 0; port < degree; port++)
+        {
+            if(preferredNeighbors[port])
+            {
+                cs.queueMessage(port, cs.createControlMessage(MessageType.neighborSafe, port, done));
+            }
+        }
+        checkReady();
+    }
+
+    /*
+        Method: checkReady
+        Description: Reports ready to the parent once the cluster and the clusters across this node's preferred edges
+            are safe and all children are ready. The leader sends the pulse instead - it terminates the cluster if
+            every node in the cluster was done and all of its preferred edges are retired.
+        Parameters: None
+        Returns: Nothing
+     */
+    private void checkReady()
+    {
+        if(ready || !clusterSafe || numOfSafeNeighborClusters < numOfPreferredNeighbors ||
+                readyChildren < children.length)
+        {
+            return;
+        }
+        ready = true;
+
+        // Early termination - retire each preferred edge on which every node of both clusters was done this round.
+        // Both ends of the edge make the same decision after the same round.
+        if(RunOptions.terminateEarly() && clusterDone)
+        {
+            for(int port = 0; port < degree; port++)
+            {
+                if(neighborClusterSafe[port] && neighborClusterDone[port] && preferredNeighbors[port])
+                {
+                    preferredNeighbors[port] = false;
+                    numOfPreferredNeighbors--;
+                }
+            }
+        }
+        subtreeRetired &= numOfPreferredNeighbors == 0;
+
+        if(parent < 0)
+        {
+            pulse(cs.isLastRound() || (RunOptions.terminateEarly() && clusterDone && subtreeRetired));
+        }
+        else
+        {
+            cs.queueMessage(parent, cs.createControlMessage(MessageType.ready, parent, subtreeRetired));
+        }
+    }
+
+    /*
+        Method: pulse
+        Description: Sends the pulse to the children and completes the round.
+        Parameters: Boolean - true if the pulse tells the nodes of the cluster to terminate.
+        Returns: Nothing
+     */
+    private void pulse(boolean lastRound)
+    {
+        // Queue the pulse before the next round's messages so the children get it first.
+        for(int child : children)
+        {
+            cs.queueMessage(child, cs.createControlMessage(MessageType.pulse, child, lastRound));
+        }
+        cs.completeRound(lastRound);
+    }
+
+}
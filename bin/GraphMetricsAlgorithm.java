@@ -0,0 +1,312 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// Finds the diameter, radius and center of the topology in the network, so every node's output holds them and no
+// output files have to be collected. Runs in three phases on a BFS spanning tree rooted at node 0:
+//   Tree - the root sends JOIN to its neighbors in round 0. A node that receives JOIN for the first time joins the
+//     tree with the sender of the smallest node ID as its parent, and in the next round sends CHILD to its parent
+//     and JOIN to its other neighbors. A node at depth d knows all of its children after round d+1.
+//   Convergecast - once a node's eccentricity is final and all of its children reported, it sends REPORT to its
+//     parent with the smallest and largest eccentricity of its subtree and the node IDs that have the smallest one.
+//   Broadcast - once all children of the root reported, the root sends the RESULT (radius, diameter and center)
+//     down the tree and each node passes it on to its children.
+// Takes about 3 times the diameter rounds. Payloads start with the kind of the payload.
+public class GraphMetricsAlgorithm implements SynchronousAlgorithm {
+
+    // Node ID of the root of the tree.
+    static final int ROOT_ID = 0;
+
+    // Kinds of payloads - the first integer of each payload.
+    private static final int JOIN = 1;
+    private static final int CHILD = 2;
+    private static final int REPORT = 3;
+    private static final int RESULT = 4;
+    private static final int[] JOIN_PAYLOAD = {JOIN};
+    private static final int[] CHILD_PAYLOAD = {CHILD};
+
+    // Node of the algorithm and its eccentricity search.
+    private final Node nodeInfo;
+    private final EccentricityAlgorithm search;
+    // Last round the algorithm can need.
+    private final int lastRound;
+
+    // Holds if the node has joined the tree, the round it sends JOIN and CHILD in (its depth) and the port of its
+    // parent (-1 for the root).
+    private boolean joined = false;
+    private int depth = -1;
+    private int parent = -1;
+    // Ports of the node's children and how many of them there are and have reported.
+    private final boolean[] children;
+    private int numOfChildren = 0;
+    private int numOfReports = 0;
+
+    // Smallest and largest eccentricity of the node's subtree and the node IDs that have the smallest one.
+    private int minEccentricity = Integer.MAX_VALUE;
+    private int maxEccentricity = -1;
+    private int[] centers = new int[4];
+    private int numOfCenters = 0;
+    // Holds if the node has sent its REPORT (or the root has the result) and the round it is sent in.
+    private boolean reported = false;
+    private int reportRound = -1;
+    private int[] reportPayload;
+
+    // Result of the whole topology - radius, diameter and center - and the round it is sent to the children in.
+    private int[] resultPayload;
+    private int resultRound = -1;
+
+    // Constructor - the root joins the tree before round 0.
+    public GraphMetricsAlgorithm(Node nodeInfo, int numOfNodes, EccentricityAlgorithm search)
+    {
+        this.nodeInfo = nodeInfo;
+        this.search = search;
+        children = new boolean[nodeInfo.getDegree()];
+
+        // Eccentricities are final by round n-2 and the tree is at most n-1 deep: the deepest leaf can report in
+        // round n+1, the root has every report after round 2n-1 and the result reaches the deepest leaf in round
+        // 3n-2.
+        lastRound = 3 * numOfNodes - 2;
+
+        if(nodeInfo.nodeID == ROOT_ID)
+        {
+            joined = true;
+            depth = 0;
+        }
+    }
+
+    @Override
+    public String getName()
+    {
+        return "graphMetrics";
+    }
+
+    /*
+        Method: produce
+        Description: Returns the JOIN, CHILD, REPORT or RESULT payload the node sends to a neighbor in the round.
+        Parameters: Integer round number and integer port of the neighbor.
+        Returns: Array holding the kind of the payload and its values, or null.
+     */
+    @Override
+    public int[] produce(int round, int port)
+    {
+        if(round == depth)
+        {
+            return port == parent ? CHILD_PAYLOAD : JOIN_PAYLOAD;
+        }
+        if(round == reportRound && port == parent)
+        {
+            return reportPayload;
+        }
+        if(round == resultRound && children[port])
+        {
+            return resultPayload;
+        }
+        return null;
+    }
+
+    /*
+        Method: consume
+        Description: Handles a JOIN, CHILD, REPORT or RESULT payload from a neighbor.
+        Parameters: Integer round number, integer port of the neighbor and the neighbor's payload.
+        Returns: Nothing
+     */
+    @Override
+    public void consume(int round, int port, int[] payload)
+    {
+        switch(payload[0])
+        {
+            case JOIN:
+                // Join the tree - of the neighbors that sent JOIN this round, the one with the smallest node ID is
+                // the parent.
+                if(!joined || (depth == round + 1 && nodeInfo.getNeighbor(port) < nodeInfo.getNeighbor(parent)))
+                {
+                    joined = true;
+                    depth = round + 1;
+                    parent = port;
+                }
+                break;
+            case CHILD:
+                children[port] = true;
+                numOfChildren++;
+                break;
+            case REPORT:
+                numOfReports++;
+                merge(payload[1], payload[2], payload, 3);
+                break;
+            case RESULT:
+                // Pass the result on to the children in the next round.
+                resultPayload = payload;
+                resultRound = round + 1;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown graph metrics payload " + payload[0] + " from node " +
+                        nodeInfo.getNeighbor(port));
+        }
+    }
+
+    /*
+        Method: roundCompleted
+        Description: Once the node's eccentricity is final, its children are known and all of them reported, sends
+            the subtree's eccentricities to the parent in the next round - or, for the root, the result to the
+            children.
+        Parameters: Integer round number.
+        Returns: Nothing
+     */
+    @Override
+    public void roundCompleted(int round)
+    {
+        int next = round + 1;
+        if(!joined || reported || next < depth + 2 || numOfReports < numOfChildren || !search.isDone(next))
+        {
+            return;
+        }
+        reported = true;
+        merge(search.getEccentricity(), search.getEccentricity(), new int[]{nodeInfo.nodeID}, 0);
+
+        int[] payload = new int[3 + numOfCenters];
+        payload[1] = minEccentricity;
+        payload[2] = maxEccentricity;
+        System.arraycopy(centers, 0, payload, 3, numOfCenters);
+
+        if(parent < 0)
+        {
+            // Root - the subtree is the whole topology.
+            Arrays.sort(payload, 3, payload.length);
+            payload[0] = RESULT;
+            resultPayload = payload;
+            resultRound = next;
+        }
+        else
+        {
+            payload[0] = REPORT;
+            reportPayload = payload;
+            reportRound = next;
+        }
+    }
+
+    /*
+        Method: isDone
+        Description: Determines if the node has the result and has passed it on to its children (a leaf is done in
+            the round after the result reached it, not in the round it arrives).
+        Parameters: Integer current round number.
+        Returns: Boolean - true if the algorithm is done.
+     */
+    @Override
+    public boolean isDone(int round)
+    {
+        return resultPayload != null && (numOfChildren == 0 ? round >= resultRound : round > resultRound);
+    }
+
+    @Override
+    public int getLastRound()
+    {
+        return lastRound;
+    }
+
+    /*
+        Method: addResult
+        Description: Adds the diameter, radius and center of the topology to the output.
+        Parameters: List of output lines to add to.
+        Returns: Nothing
+     */
+    @Override
+    public void addResult(ArrayList<String> lines)
+    {
+        // The result does not reach nodes that are not connected to the root.
+        if(resultPayload == null)
+        {
+            lines.add("Diameter: unknown");
+            lines.add("Radius: unknown");
+            lines.add("Center: unknown");
+            return;
+        }
+        lines.add("Diameter: " + resultPayload[2]);
+        lines.add("Radius: " + resultPayload[1]);
+        lines.add("Center: " + Arrays.toString(Arrays.copyOfRange(resultPayload, 3, resultPayload.length)));
+    }
+
+    /*
+        Method: saveState
+        Description: Writes the node's place in the tree, its children, what its subtree reported so far and the
+            REPORT and RESULT payloads with the rounds they are sent in.
+        Parameters: DataOutput to write to.
+        Returns: Nothing
+     */
+    @Override
+    public void saveState(DataOutput out) throws IOException
+    {
+        out.writeBoolean(joined);
+        out.writeInt(depth);
+        out.writeInt(parent);
+        for(boolean child : children)
+        {
+            out.writeBoolean(child);
+        }
+        out.writeInt(numOfChildren);
+        out.writeInt(numOfReports);
+        out.writeInt(minEccentricity);
+        out.writeInt(maxEccentricity);
+        Checkpoint.writeInts(out, Arrays.copyOf(centers, numOfCenters));
+        out.writeBoolean(reported);
+        out.writeInt(reportRound);
+        Checkpoint.writeInts(out, reportPayload);
+        out.writeInt(resultRound);
+        Checkpoint.writeInts(out, resultPayload);
+    }
+
+    @Override
+    public void restoreState(DataInput in) throws IOException
+    {
+        joined = in.readBoolean();
+        depth = in.readInt();
+        parent = in.readInt();
+        for(int port = 0; port < children.length; port++)
+        {
+            children[port] = in.readBoolean();
+        }
+        numOfChildren = in.readInt();
+        numOfReports = in.readInt();
+        minEccentricity = in.readInt();
+        maxEccentricity = in.readInt();
+        int[] savedCenters = Checkpoint.readInts(in);
+        numOfCenters = savedCenters.length;
+        centers = Arrays.copyOf(savedCenters, Math.max(4, numOfCenters));
+        reported = in.readBoolean();
+        reportRound = in.readInt();
+        reportPayload = Checkpoint.readInts(in);
+        resultRound = in.readInt();
+        resultPayload = Checkpoint.readInts(in);
+    }
+
+    /*
+        Method: merge
+        Description: Adds the eccentricities of a subtree to the node's subtree.
+        Parameters: Integer smallest and largest eccentricity of the subtree, array holding the node IDs with the
+            smallest eccentricity and integer index of the first of them.
+        Returns: Nothing
+     */
+    private void merge(int min, int max, int[] ids, int start)
+    {
+        maxEccentricity = Math.max(maxEccentricity, max);
+        if(min > minEccentricity)
+        {
+            return;
+        }
+        if(min < minEccentricity)
+        {
+            minEccentricity = min;
+            numOfCenters = 0;
+        }
+        for(int i = start; i < ids.length; i++)
+        {
+            if(numOfCenters == centers.length)
+            {
+                centers = Arrays.copyOf(centers, numOfCenters * 2);
+            }
+            centers[numOfCenters++] = ids[i];
+        }
+    }
+
+}
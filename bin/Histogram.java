@@ -0,0 +1,164 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// This class records a distribution of non-negative values (i.e. nanoseconds) in the style of an HDR histogram.
+// Values below 32 get a bucket each; above that, every power of two is split into 16 buckets, so a bucket is never
+// wider than 1/16 (about 6%) of its values. Recording is one array increment without a lock, so any thread can record
+// while another reads percentiles. Values of 2^41 and more (about 36 minutes in nanoseconds) share the last bucket.
+public class Histogram {
+
+    // Number of bits of a value kept below its highest bit (16 buckets per power of two).
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Highest power of two with its own buckets.
+    private static final int MAX_EXPONENT = 40;
+    // Values below this have a bucket each.
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+
+    // Number of recorded values in each bucket.
+    private final AtomicLongArray counts = new AtomicLongArray(bucketIndex(Long.MAX_VALUE) + 1);
+    // Number, sum and max of the recorded values.
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong(0);
+
+    /*
+        Method: record
+        Description: Records a value. Negative values are recorded as 0.
+        Parameters: Long value.
+        Returns: Nothing
+     */
+    public void record(long value)
+    {
+        value = Math.max(0, value);
+        counts.incrementAndGet(bucketIndex(value));
+        count.increment();
+        sum.add(value);
+        if(value > max.get())
+        {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /*
+        Method: getCount
+        Description: Returns the number of recorded values.
+        Parameters: None
+        Returns: Long number of values.
+     */
+    public long getCount()
+    {
+        return count.sum();
+    }
+
+    /*
+        Method: getMean
+        Description: Returns the mean of the recorded values.
+        Parameters: None
+        Returns: Long mean (0 if nothing was recorded).
+     */
+    public long getMean()
+    {
+        long n = count.sum();
+        return n == 0 ? 0 : sum.sum() / n;
+    }
+
+    /*
+        Method: getMax
+        Description: Returns the largest recorded value.
+        Parameters: None
+        Returns: Long max (0 if nothing was recorded).
+     */
+    public long getMax()
+    {
+        return max.get();
+    }
+
+    /*
+        Method: getPercentile
+        Description: Returns the value below or at which the given percentage of the recorded values lie, i.e. the
+            upper end of the bucket it falls in (never more than the max).
+        Parameters: Double percentile from 0 to 100.
+        Returns: Long value at the percentile (0 if nothing was recorded).
+     */
+    public long getPercentile(double percentile)
+    {
+        long n = count.sum();
+        if(n == 0)
+        {
+            return 0;
+        }
+
+        // Number of values at or below the percentile - at least the first value.
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+        long seen = 0;
+        for(int i = 0; i < counts.length(); i++)
+        {
+            seen += counts.get(i);
+            if(seen >= target)
+            {
+                return Math.min(bucketUpperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /*
+        Method: toString
+        Description: Returns count, mean, percentiles and max of the recorded values divided by a unit, i.e. 1000 to
+            show nanoseconds as microseconds.
+        Parameters: Long unit to divide the values by and string name of the unit.
+        Returns: String summary of the distribution.
+     */
+    public String toString(long unit, String unitName)
+    {
+        return "count " + getCount() + ", mean " + getMean() / unit + " " + unitName + ", p50 " +
+                getPercentile(50) / unit + ", p90 " + getPercentile(90) / unit + ", p99 " + getPercentile(99) / unit +
+                ", max " + getMax() / unit;
+    }
+
+    /*
+        Method: bucketIndex
+        Description: Returns the bucket a value is counted in.
+        Parameters: Long non-negative value.
+        Returns: Integer index of the bucket.
+     */
+    private static int bucketIndex(long value)
+    {
+        if(value < LINEAR_LIMIT)
+        {
+            return (int) value;
+        }
+
+        // Highest bit of the value, capped so very large values go to the last bucket.
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if(exponent > MAX_EXPONENT)
+        {
+            return LINEAR_LIMIT + (MAX_EXPONENT - SUB_BUCKET_BITS) * SUB_BUCKETS - 1;
+        }
+
+        // The highest bit and the next SUB_BUCKET_BITS bits select the bucket.
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+        return LINEAR_LIMIT + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /*
+        Method: bucketUpperBound
+        Description: Returns the largest value counted in a bucket.
+        Parameters: Integer index of the bucket.
+        Returns: Long largest value of the bucket.
+     */
+    private static long bucketUpperBound(int index)
+    {
+        if(index < LINEAR_LIMIT)
+        {
+            return index;
+        }
+
+        int exponent = (index - LINEAR_LIMIT) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+        long subBucket = (index - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+}
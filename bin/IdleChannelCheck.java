@@ -0,0 +1,142 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
+
+// This program checks that channel threads waiting for a slow neighbor use no CPU - e.g.
+// "java IdleChannelCheck ../launch/config.txt 3". It runs every node of the topology in one JVM with a thread per
+// channel, like LoopbackHost with host.threads=0, except the delayed node, which is only started once the others
+// are stuck waiting for it. While they wait, it samples the CPU time (ThreadMXBean) of all channel threads for a
+// while and fails if they used more than a small bound in total - channel threads that poll instead of blocking
+// would use about a whole processor. The delayed node is then started and every node has to terminate.
+public class IdleChannelCheck
+{
+
+    // Time in milliseconds the channel threads are sampled for once the nodes are stuck.
+    private static final long SAMPLE_MILLIS = 1000;
+    // Most CPU time in milliseconds all waiting channel threads together may use while sampled.
+    private static final long MAX_CPU_MILLIS = 50;
+    // Time in milliseconds between two looks at the nodes' rounds while waiting for them to get stuck.
+    private static final long SETTLE_MILLIS = 200;
+
+    public static void main(String[] args)
+    {
+        try
+        {
+            // Commandline arguments are config file location and the node to delay (default the last one).
+            if(args.length < 1 || args.length > 2)
+            {
+                System.out.println("Usage: java IdleChannelCheck [config file] [delayed node ID]");
+                return;
+            }
+
+            // Read all info from config file.
+            DistributedSystem.readConfigFile(args[0]);
+            Node[] allNodes = DistributedSystem.allNodes;
+            if(allNodes == null)
+            {
+                return;
+            }
+            int delayedID = args.length == 2 ? Integer.parseInt(args[1]) : allNodes.length - 1;
+
+            ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+            if(!threadBean.isThreadCpuTimeSupported())
+            {
+                System.out.println("IDLE CHECK SKIPPED: the JVM does not measure thread CPU time.");
+                return;
+            }
+            threadBean.setThreadCpuTimeEnabled(true);
+
+            // A platform thread for each channel, kept so their CPU time can be read (virtual threads have none).
+            ArrayList<Thread> channelThreads = new ArrayList<>();
+            Executor threadPerChannel = task -> {
+                Thread thread;
+                synchronized(channelThreads)
+                {
+                    thread = new Thread(task, "idle-check-channel-" + channelThreads.size());
+                    channelThreads.add(thread);
+                }
+                thread.setDaemon(true);
+                thread.start();
+            };
+            LoopbackTransport transport = new LoopbackTransport(allNodes, threadPerChannel, true);
+
+            // Start every node but the delayed one.
+            SCTPClientServer[] nodes = new SCTPClientServer[allNodes.length];
+            for(Node node : allNodes)
+            {
+                if(node.nodeID != delayedID)
+                {
+                    nodes[node.nodeID] = new SCTPClientServer(node, allNodes.length, DistributedSystem.topology);
+                    transport.start(nodes[node.nodeID], node);
+                }
+            }
+
+            // Wait until no node moves to a new round anymore - all of them wait for the delayed node.
+            long roundSum = -1;
+            while(true)
+            {
+                Thread.sleep(SETTLE_MILLIS);
+                long sum = 0;
+                for(SCTPClientServer cs : nodes)
+                {
+                    sum += cs != null ? cs.getCurrentRoundNumber() : 0;
+                }
+                if(sum == roundSum)
+                {
+                    break;
+                }
+                roundSum = sum;
+            }
+
+            // Sample the CPU time of every channel thread while the nodes wait.
+            Thread[] threads;
+            synchronized(channelThreads)
+            {
+                threads = channelThreads.toArray(new Thread[0]);
+            }
+            long[] before = new long[threads.length];
+            for(int i = 0; i < threads.length; i++)
+            {
+                before[i] = threadBean.getThreadCpuTime(threads[i].getId());
+            }
+            Thread.sleep(SAMPLE_MILLIS);
+            long cpuTime = 0;
+            for(int i = 0; i < threads.length; i++)
+            {
+                long after = threadBean.getThreadCpuTime(threads[i].getId());
+                // -1 once a thread has ended - it used no more CPU.
+                if(before[i] >= 0 && after >= 0)
+                {
+                    cpuTime += after - before[i];
+                }
+            }
+            System.out.println(String.format("IDLE CHECK: %d channel threads waiting for node %d used %.1f ms of " +
+                    "CPU in %d ms (at most %d ms allowed)", threads.length, delayedID, cpuTime / 1e6, SAMPLE_MILLIS,
+                    MAX_CPU_MILLIS));
+
+            // Start the delayed node and wait for every node to terminate.
+            nodes[delayedID] = new SCTPClientServer(allNodes[delayedID], allNodes.length, DistributedSystem.topology);
+            transport.start(nodes[delayedID], allNodes[delayedID]);
+            for(SCTPClientServer cs : nodes)
+            {
+                cs.awaitRound(Integer.MAX_VALUE);
+            }
+            ResultSink.flush();
+
+            if(cpuTime > MAX_CPU_MILLIS * 1000000)
+            {
+                System.out.println("IDLE CHECK FAILED: waiting channel threads used CPU.");
+                System.exit(1);
+            }
+            System.out.println("IDLE CHECK PASSED");
+        }
+        catch(Exception e)
+        {
+            System.out.println("Error occurred.");
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+}
@@ -0,0 +1,166 @@
+import java.util.Arrays;
+
+// This class holds the k-hop neighbors discovered by a node using primitive arrays.
+// The set of node IDs already reached is a bitset packed into longs (64 node IDs per word). Each k-hop level is an
+// int array kept in discovery order, so printing a level gives the same output as the LinkedList it replaces.
+// Levels are only allocated once a node ID is added to them, so a graph of small diameter never allocates the
+// n-1 levels that could exist in the worst case.
+public class KHopState {
+
+    // Initial capacity of a level when its first node ID is added.
+    private static final int INITIAL_LEVEL_CAPACITY = 8;
+
+    // Number of levels that can exist - max number of hops a node can take to reach all other nodes.
+    private final int maxHop;
+    // Bitset of node IDs that are in a level or are the node itself - bit (id % 64) of word (id / 64).
+    private final long[] visited;
+    // Node IDs of each level in discovery order - levels[0] = 1 hop neighbors, levels[1] = 2 hop neighbors, ...
+    // A level stays null until its first node ID is added.
+    private final int[][] levels;
+    // Number of node IDs in each level.
+    private final int[] levelSizes;
+
+    // Constructor - nodeID is marked as reached so it never appears in a level.
+    public KHopState(int nodeID, int numOfNodes, int maxHop)
+    {
+        this.maxHop = maxHop;
+        visited = new long[(numOfNodes + 63) >>> 6];
+        levels = new int[maxHop][];
+        levelSizes = new int[maxHop];
+
+        visited[nodeID >>> 6] |= 1L << nodeID;
+    }
+
+    /*
+        Method: add
+        Description: Adds a node ID to a level if it has not been reached yet (test-and-set on the visited bitset).
+        Parameters: Integer level index (0 = 1 hop neighbors) and integer node ID.
+        Returns: Boolean - true if the node ID was added, false if it was already reached.
+     */
+    public boolean add(int level, int nodeID)
+    {
+        int word = nodeID >>> 6;
+        long bit = 1L << nodeID;
+        if((visited[word] & bit) != 0)
+        {
+            return false;
+        }
+        visited[word] |= bit;
+
+        int[] ids = levels[level];
+        int size = levelSizes[level];
+        if(ids == null)
+        {
+            ids = levels[level] = new int[INITIAL_LEVEL_CAPACITY];
+        }
+        else if(size == ids.length)
+        {
+            ids = levels[level] = Arrays.copyOf(ids, size << 1);
+        }
+        ids[size] = nodeID;
+        levelSizes[level] = size + 1;
+        return true;
+    }
+
+    /*
+        Method: addAll
+        Description: Adds every node ID that has not been reached yet to a level.
+        Parameters: Integer level index and array of node IDs.
+        Returns: Nothing
+     */
+    public void addAll(int level, int[] nodeIDs)
+    {
+        for(int id : nodeIDs)
+        {
+            add(level, id);
+        }
+    }
+
+    /*
+        Method: isVisited
+        Description: Determines if a node ID has been reached (i.e. is the node itself or in any level).
+        Parameters: Integer node ID.
+        Returns: Boolean - true if the node ID has been reached.
+     */
+    public boolean isVisited(int nodeID)
+    {
+        return (visited[nodeID >>> 6] & (1L << nodeID)) != 0;
+    }
+
+    /*
+        Method: size
+        Description: Returns the number of node IDs in a level.
+        Parameters: Integer level index.
+        Returns: Integer number of node IDs.
+     */
+    public int size(int level)
+    {
+        return levelSizes[level];
+    }
+
+    /*
+        Method: getLevel
+        Description: Returns a copy of the node IDs of a level in discovery order.
+        Parameters: Integer level index.
+        Returns: Array of node IDs (empty if nothing was found at that level).
+     */
+    public int[] getLevel(int level)
+    {
+        if(levels[level] == null)
+        {
+            return new int[0];
+        }
+        return Arrays.copyOf(levels[level], levelSizes[level]);
+    }
+
+    /*
+        Method: getMaxHop
+        Description: Returns the number of levels that can exist.
+        Parameters: None
+        Returns: Integer max number of hops.
+     */
+    public int getMaxHop()
+    {
+        return maxHop;
+    }
+
+    /*
+        Method: getEccentricity
+        Description: Returns the eccentricity - the number of the last non-empty level.
+        Parameters: None
+        Returns: Integer eccentricity.
+     */
+    public int getEccentricity()
+    {
+        int eccentricity = 0;
+        for(int i = 0; i < maxHop; i++)
+        {
+            if(levelSizes[i] > 0)
+            {
+                eccentricity = i + 1;
+            }
+        }
+        return eccentricity;
+    }
+
+    /*
+        Method: levelToString
+        Description: Formats a level the same way as LinkedList.toString, i.e. "[1, 4]" or "[]".
+        Parameters: Integer level index.
+        Returns: String of the node IDs of the level.
+     */
+    public String levelToString(int level)
+    {
+        StringBuilder sb = new StringBuilder("[");
+        for(int i = 0; i < levelSizes[level]; i++)
+        {
+            if(i > 0)
+            {
+                sb.append(", ");
+            }
+            sb.append(levels[level][i]);
+        }
+        return sb.append(']').toString();
+    }
+
+}
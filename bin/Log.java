@@ -0,0 +1,370 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+// This class is the log of one node. Channel threads and the synchronizer add entries to a bounded lock-free ring
+// (many writers, one reader) and return right away - one background thread shared by all nodes of the JVM drains
+// every node's ring to its file (node-<node ID>.log in RunOptions.logDir) and prints warnings and errors to the
+// console as well. A thread only waits if the ring is full, i.e. the disk cannot keep up.
+// An entry holds a text and one argument, which are only joined by the background thread, so
+// log.trace("MSG SENT: ", msg) neither builds a string on the message path nor allocates anything when
+// TRACE is disabled. Call sites that have to build their text first check isEnabled.
+public class Log {
+
+    // Levels of entries, from most to least detailed. Entries below the level set in RunOptions are skipped.
+    public enum Level { TRACE, DEBUG, INFO, WARN, ERROR, OFF }
+
+    // Most detailed level that is logged (RunOptions.logLevel).
+    private static Level threshold = Level.valueOf(RunOptions.logLevel.toUpperCase());
+
+    // Log of each node ID and the logs the background thread drains.
+    private static final ConcurrentHashMap<Integer, Log> logs = new ConcurrentHashMap<>();
+    private static final CopyOnWriteArrayList<Log> drained = new CopyOnWriteArrayList<>();
+    // Background thread that writes the entries of all logs (started with the first log).
+    private static Thread writerThread;
+
+    // Time zone the time of an entry is shown in, and the line an entry is formatted into by the background thread.
+    private static final TimeZone timeZone = TimeZone.getDefault();
+    private static final StringBuilder line = new StringBuilder();
+
+    // Node the log belongs to
+    private final int nodeID;
+
+    // Ring of entries - a slot holds the entry with sequence number s at index s & mask. sequences[i] tells the
+    // writers and the reader who owns slot i: equal to the next writer's sequence number if the slot is free, one
+    // more than that once the entry is written, and capacity more once the reader has taken it.
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final Level[] levels;
+    private final long[] times;
+    private final String[] threads;
+    private final String[] texts;
+    private final Object[] args;
+    private final Throwable[] errors;
+    // Sequence number of the next entry written (shared by writers) and of the next entry read (reader only).
+    private final AtomicLong tail = new AtomicLong(0);
+    private long head = 0;
+
+    // File the entries are written to - opened with the first entry.
+    private Writer file;
+
+    // Constructor - creates the ring (size rounded up to a power of two).
+    private Log(int nodeID, int size)
+    {
+        this.nodeID = nodeID;
+        int capacity = Integer.highestOneBit(Math.max(2, size - 1)) << 1;
+        mask = capacity - 1;
+        sequences = new AtomicLongArray(capacity);
+        for(int i = 0; i < capacity; i++)
+        {
+            sequences.set(i, i);
+        }
+        levels = new Level[capacity];
+        times = new long[capacity];
+        threads = new String[capacity];
+        texts = new String[capacity];
+        args = new Object[capacity];
+        errors = new Throwable[capacity];
+    }
+
+    /*
+        Method: forNode
+        Description: Returns the log of a node, creating it the first time.
+        Parameters: Integer node ID.
+        Returns: Log of the node.
+     */
+    public static Log forNode(int nodeID)
+    {
+        return logs.computeIfAbsent(nodeID, id -> {
+            Log log = new Log(id, RunOptions.logBufferSize);
+            drained.add(log);
+            startWriter();
+            return log;
+        });
+    }
+
+    /*
+        Method: setLevel
+        Description: Sets the most detailed level that is logged by all logs, i.e. for a harness.
+        Parameters: Level.
+        Returns: Nothing
+     */
+    public static void setLevel(Level level)
+    {
+        threshold = level;
+    }
+
+    /*
+        Method: isEnabled
+        Description: Determines if entries of a level are logged.
+        Parameters: Level.
+        Returns: Boolean - true if the level is logged.
+     */
+    public boolean isEnabled(Level level)
+    {
+        return level.ordinal() >= threshold.ordinal();
+    }
+
+    // Add an entry of each level. TRACE is used on the message path, so its text and argument are only joined when
+    // the entry is written.
+    public void trace(String text, Object arg)
+    {
+        if(isEnabled(Level.TRACE))
+        {
+            add(Level.TRACE, text, arg, null);
+        }
+    }
+
+    public void debug(String text)
+    {
+        if(isEnabled(Level.DEBUG))
+        {
+            add(Level.DEBUG, text, null, null);
+        }
+    }
+
+    public void info(String text)
+    {
+        if(isEnabled(Level.INFO))
+        {
+            add(Level.INFO, text, null, null);
+        }
+    }
+
+    public void warn(String text, Throwable error)
+    {
+        if(isEnabled(Level.WARN))
+        {
+            add(Level.WARN, text, null, error);
+        }
+    }
+
+    public void error(String text, Throwable error)
+    {
+        if(isEnabled(Level.ERROR))
+        {
+            add(Level.ERROR, text, null, error);
+        }
+    }
+
+    /*
+        Method: add
+        Description: Adds an entry to the ring. Waits for the background thread if the ring is full.
+        Parameters: Level, string text, argument appended to the text (or null) and exception (or null).
+        Returns: Nothing
+     */
+    private void add(Level level, String text, Object arg, Throwable error)
+    {
+        // Claim the next free slot.
+        long sequence;
+        int index;
+        while(true)
+        {
+            sequence = tail.get();
+            index = (int) sequence & mask;
+            long available = sequences.get(index) - sequence;
+            if(available == 0)
+            {
+                if(tail.compareAndSet(sequence, sequence + 1))
+                {
+                    break;
+                }
+            }
+            else if(available < 0)
+            {
+                // Ring is full - let the background thread catch up.
+                LockSupport.unpark(writerThread);
+                Thread.yield();
+            }
+        }
+
+        levels[index] = level;
+        times[index] = System.currentTimeMillis();
+        threads[index] = Thread.currentThread().getName();
+        texts[index] = text;
+        args[index] = arg;
+        errors[index] = error;
+        // Publish the entry to the background thread.
+        sequences.set(index, sequence + 1);
+    }
+
+    /*
+        Method: drain
+        Description: Writes the entries added so far to the node's file. Called with the lock of drainAll held.
+        Parameters: None
+        Returns: Boolean - true if any entry was written.
+     */
+    private boolean drain() throws IOException
+    {
+        boolean wrote = false;
+        while(true)
+        {
+            int index = (int) head & mask;
+            if(sequences.get(index) != head + 1)
+            {
+                break;
+            }
+
+            // Format the entry into the line reused for all entries.
+            line.setLength(0);
+            appendTime(times[index]);
+            line.append(' ').append(levels[index]).append(" [").append(threads[index]).append("] ").append(texts[index]);
+            if(args[index] != null)
+            {
+                line.append(args[index]);
+            }
+            if(errors[index] != null)
+            {
+                StringWriter trace = new StringWriter();
+                errors[index].printStackTrace(new PrintWriter(trace));
+                line.append(System.lineSeparator()).append(trace);
+            }
+            line.append(System.lineSeparator());
+            boolean console = levels[index].ordinal() >= Level.WARN.ordinal();
+
+            // Free the slot for the writers before writing, so a failing file cannot block them.
+            threads[index] = null;
+            texts[index] = null;
+            args[index] = null;
+            errors[index] = null;
+            sequences.set(index, head + (mask + 1));
+            head++;
+
+            if(console)
+            {
+                System.err.print("Node " + nodeID + ": " + line);
+            }
+            if(file == null)
+            {
+                file = openFile();
+            }
+            file.write(line.toString());
+            wrote = true;
+        }
+        return wrote;
+    }
+
+    /*
+        Method: appendTime
+        Description: Appends the time of day of an entry as HH:mm:ss.SSS to the line.
+        Parameters: Long time in milliseconds since the epoch.
+        Returns: Nothing
+     */
+    private static void appendTime(long time)
+    {
+        long millisOfDay = Math.floorMod(time + timeZone.getOffset(time), 86400000L);
+        appendDigits(millisOfDay / 3600000, 2);
+        line.append(':');
+        appendDigits(millisOfDay / 60000 % 60, 2);
+        line.append(':');
+        appendDigits(millisOfDay / 1000 % 60, 2);
+        line.append('.');
+        appendDigits(millisOfDay % 1000, 3);
+    }
+
+    /*
+        Method: appendDigits
+        Description: Appends a number to the line, padded with zeros to the given number of digits.
+        Parameters: Long number and integer number of digits.
+        Returns: Nothing
+     */
+    private static void appendDigits(long value, int digits)
+    {
+        for(long limit = 10; digits > 1; digits--, limit *= 10)
+        {
+            if(value < limit)
+            {
+                line.append('0');
+            }
+        }
+        line.append(value);
+    }
+
+    /*
+        Method: openFile
+        Description: Opens the node's log file. If it cannot be created, the entries go to the console instead.
+        Parameters: None
+        Returns: Writer for the node's entries.
+     */
+    private Writer openFile()
+    {
+        File dir = new File(RunOptions.logDir);
+        dir.mkdirs();
+        try {
+            return new BufferedWriter(new FileWriter(new File(dir, "node-" + nodeID + ".log")));
+        }
+        catch(IOException e)
+        {
+            System.out.println("Error in creating log file of node " + nodeID + " - logging to the console.");
+            return new PrintWriter(System.out);
+        }
+    }
+
+    /*
+        Method: startWriter
+        Description: Starts the background thread that drains all logs, and makes sure the last entries are
+            written when the JVM exits.
+        Parameters: None
+        Returns: Nothing
+     */
+    private static synchronized void startWriter()
+    {
+        if(writerThread != null)
+        {
+            return;
+        }
+
+        writerThread = new Thread(() -> {
+            while(true)
+            {
+                // Drain every log, then wait 10 ms if there was nothing to write - a full ring wakes the thread up earlier.
+                if(!drainAll())
+                {
+                    LockSupport.parkNanos(10000000);
+                }
+            }
+        }, "log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::drainAll));
+    }
+
+    /*
+        Method: drainAll
+        Description: Writes the entries of all logs to their files and flushes the files that were written.
+        Parameters: None
+        Returns: Boolean - true if any entry was written.
+     */
+    private static synchronized boolean drainAll()
+    {
+        boolean wrote = false;
+        for(Log log : drained)
+        {
+            try {
+                if(log.drain())
+                {
+                    log.file.flush();
+                    wrote = true;
+                }
+            }
+            catch(IOException e)
+            {
+                System.out.println("Error in writing log of node " + log.nodeID + ".");
+                e.printStackTrace();
+            }
+        }
+        return wrote;
+    }
+
+}
@@ -0,0 +1,54 @@
+import java.util.concurrent.ExecutorService;
+
+// This program runs every node of a topology inside one JVM, with channels connected by LoopbackTransport instead
+// of SCTP. It is used for regression and scaling tests of the synchronizer and the distributed algorithm without
+// SCTP support, the launcher script or a network - e.g. "java LoopbackHost ../launch/config.txt".
+// Run options (see RunOptions) apply to all nodes. Each node writes its output the same way as over SCTP. The nodes
+// are run by a pool of host.threads worker threads (see NodeGroup), so hundreds of nodes do not need a thread each.
+public class LoopbackHost
+{
+
+    public static void main(String[] args)
+    {
+        try
+        {
+            // Commandline argument is config file location.
+            if(args.length != 1)
+            {
+                System.out.println("Usage: java LoopbackHost [config file]");
+                return;
+            }
+
+            // Read all info from config file.
+            DistributedSystem.readConfigFile(args[0]);
+            Node[] allNodes = DistributedSystem.allNodes;
+            if(allNodes == null)
+            {
+                return;
+            }
+
+            // Run all nodes - one transport and one pool of worker threads are shared by all of them. With
+            // host.threads=0 each channel gets a thread of its own instead (see RunOptions).
+            int[] nodeIDs = NodeGroup.parseNodeIDs("0-" + (allNodes.length - 1), allNodes.length);
+            NodeGroup group = new NodeGroup(allNodes, DistributedSystem.topology, nodeIDs);
+            if(RunOptions.hostThreads == 0)
+            {
+                ThreadPerTask channelThreads = new ThreadPerTask(RunOptions.useVirtualThreads(), true);
+                group.run("LOOPBACK", new LoopbackTransport(allNodes, channelThreads, true),
+                        "a " + (channelThreads.isVirtual() ? "virtual" : "platform") + " thread per channel");
+                return;
+            }
+
+            ExecutorService workers = NodeGroup.newWorkerPool("loopback-worker", RunOptions.hostThreads);
+            group.run("LOOPBACK", new LoopbackTransport(allNodes, workers, false),
+                    RunOptions.hostThreads + (RunOptions.hostThreads == 1 ? " worker thread" : " worker threads"));
+            workers.shutdown();
+        }
+        catch(Exception e)
+        {
+            System.out.println("Error occurred.");
+            e.printStackTrace();
+        }
+    }
+
+}
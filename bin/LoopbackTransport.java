@@ -0,0 +1,355 @@
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+// Transport that connects the channels of many nodes inside one JVM with in-memory queues (see LoopbackHost).
+// One LoopbackTransport is shared by all nodes of the topology. Each directed channel is a lock-free queue of encoded
+// messages with a single reader - the receiving node. Nodes do not have threads of their own: sending a message
+// encodes it with the node's codec, adds it to the queue and schedules the receiving node on a worker pool shared by
+// all nodes (see NodeGroup), which offers every message it finds to the node's synchronizer and returns once there
+// is nothing left to do. A node is run by at most one worker at a time, so hundreds of nodes can share a few
+// threads. Messages go through the same codec, buffering and synchronizer code as over SCTP; only the network is
+// left out.
+// With a thread per channel, each channel is read by a ChannelReader on a thread of its own instead, which blocks
+// until a message arrives and hands it to the synchronizer with deliver - the way SCTPClient and SCTPClientHandler
+// do - to compare platform and virtual threads (see ThreadPerTask) without SCTP.
+public class LoopbackTransport implements Transport {
+
+    // Endpoint of each node ID
+    private final AtomicReferenceArray<Endpoint> endpoints;
+    // Runs the nodes that have messages to read, or the reader of each channel
+    private final Executor workers;
+    // True if each channel is read by its own thread
+    private final boolean threadPerChannel;
+
+    // Holds the state of one node's end of the loopback network.
+    private class Endpoint implements Runnable
+    {
+        // Holds node information of the node
+        final Node nodeInfo;
+        // Queue of encoded messages from each neighbor (by port) that the node has not read yet
+        final ConcurrentLinkedQueue<byte[]>[] inbound;
+        // Received message the synchronizer could not take yet, for each port (only used by the running worker).
+        final Message[] pending;
+        // True while the node is queued on or run by a worker.
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        // Reader of each port with a thread per channel (set before the node is started)
+        ChannelReader[] readers;
+        // Synchronizer of the node (set when the node is started) and whether its channels are registered
+        volatile SCTPClientServer cs;
+        volatile boolean started;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Endpoint(Node nodeInfo)
+        {
+            this.nodeInfo = nodeInfo;
+            inbound = new ConcurrentLinkedQueue[nodeInfo.getDegree()];
+            for(int port = 0; port < inbound.length; port++)
+            {
+                inbound[port] = new ConcurrentLinkedQueue<>();
+            }
+            pending = new Message[inbound.length];
+        }
+
+        /*
+            Method: schedule
+            Description: Queues the node on the worker pool, unless it is queued or running already or has not been
+                started yet. Can be called from any thread.
+            Parameters: None
+            Returns: Nothing
+         */
+        void schedule()
+        {
+            if(started && scheduled.compareAndSet(false, true))
+            {
+                workers.execute(this);
+            }
+        }
+
+        /*
+            Method: wake
+            Description: Tells the node that a neighbor added a message to a queue - schedules the node, or wakes
+                up the reader of the queue with a thread per channel. Can be called from any thread.
+            Parameters: Integer port of the queue.
+            Returns: Nothing
+         */
+        void wake(int port)
+        {
+            if(!threadPerChannel)
+            {
+                schedule();
+            }
+            else if(started)
+            {
+                LockSupport.unpark(readers[port].thread);
+            }
+        }
+
+        /*
+            Method: hasInput
+            Description: Determines if a queue has a message the node can read - queues held back by a message too
+                far ahead are left out, since only the node moving to a new round makes them readable again.
+            Parameters: None
+            Returns: Boolean - true if the node should run again.
+         */
+        private boolean hasInput()
+        {
+            for(int port = 0; port < inbound.length; port++)
+            {
+                if(pending[port] == null && !inbound[port].isEmpty())
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /*
+            Method: run()
+            Description: Run by a worker - reads the messages from the node's queues and offers them to the
+                synchronizer until there is nothing left to read. A message too far ahead of the node is held until
+                the node catches up.
+            Parameters: None
+            Returns: Nothing
+         */
+        @Override
+        public void run()
+        {
+            try {
+                // Repeat while the node keeps moving to new rounds, since a new round can make held messages fit.
+                int round;
+                do {
+                    round = cs.getCurrentRoundNumber();
+
+                    for(int port = 0; port < inbound.length; port++)
+                    {
+                        ConcurrentLinkedQueue<byte[]> queue = inbound[port];
+                        Message msg = pending[port];
+                        pending[port] = null;
+                        while(msg != null || (msg = decode(queue.poll())) != null)
+                        {
+                            if(!cs.offer(nodeInfo.getNeighbor(port), msg))
+                            {
+                                // Bounded lookahead - stop reading this queue until the node reaches the message's window.
+                                pending[port] = msg;
+                                break;
+                            }
+                            msg = null;
+                        }
+                    }
+
+                    cs.sendQueuedMessages();
+                } while(round != cs.getCurrentRoundNumber() && !cs.isFinished());
+            }
+            catch(Exception e)
+            {
+                cs.getLog().error("Error in loopback node " + nodeInfo.nodeID + ".", e);
+            }
+
+            // A message added after its queue was read would not schedule the node while it still runs - check once
+            // more after the node is released.
+            scheduled.set(false);
+            if(!cs.isFinished() && hasInput())
+            {
+                schedule();
+            }
+        }
+
+        /*
+            Method: decode
+            Description: Decodes a message read from a queue.
+            Parameters: Encoded message (null if the queue was empty).
+            Returns: The message or null.
+         */
+        Message decode(byte[] data) throws Exception
+        {
+            if(data == null)
+            {
+                return null;
+            }
+            ByteBuffer buf = ByteBuffer.wrap(data);
+            // fromByteBuffer flips the buffer, so hand it over as if the message had just been received into it.
+            buf.position(data.length);
+            return Message.fromByteBuffer(buf);
+        }
+    }
+
+    // Reads one queue of a node on a thread of its own (thread per channel).
+    private static class ChannelReader implements Runnable
+    {
+        // Endpoint of the node and port of the queue
+        final Endpoint endpoint;
+        final int port;
+        // Thread running the reader (set once it runs)
+        volatile Thread thread;
+
+        ChannelReader(Endpoint endpoint, int port)
+        {
+            this.endpoint = endpoint;
+            this.port = port;
+        }
+
+        /*
+            Method: run()
+            Description: Waits for messages on the queue and hands them to the synchronizer until the node has
+                terminated or the channel was retired (the node's channel to the neighbor wakes the reader up then,
+                see LoopbackChannel.retired). Blocks in the synchronizer if a message is too far ahead.
+            Parameters: None
+            Returns: Nothing
+         */
+        @Override
+        public void run()
+        {
+            thread = Thread.currentThread();
+            SCTPClientServer cs = endpoint.cs;
+            int neighborID = endpoint.nodeInfo.getNeighbor(port);
+            ConcurrentLinkedQueue<byte[]> queue = endpoint.inbound[port];
+
+            try {
+                while(!cs.isFinished() && cs.isChannelActive(neighborID))
+                {
+                    // A message added before the thread parks leaves a permit, so park returns right away.
+                    byte[] data = queue.poll();
+                    if(data == null)
+                    {
+                        LockSupport.park(this);
+                        continue;
+                    }
+                    cs.deliver(neighborID, endpoint.decode(data));
+                }
+            }
+            catch(Exception e)
+            {
+                cs.getLog().error("Error in loopback channel to node " + neighborID + ".", e);
+            }
+        }
+    }
+
+    // Holds one node's channel to a neighbor.
+    private class LoopbackChannel implements RoundChannel
+    {
+        // Endpoint of the node sending on the channel and endpoint of the neighbor
+        final Endpoint from;
+        final Endpoint to;
+        // Queue of the neighbor the channel adds messages to, and its port on the neighbor
+        final ConcurrentLinkedQueue<byte[]> queue;
+        final int port;
+        // Port of the neighbor on the sending node - the queue of the channel's other direction
+        final int fromPort;
+
+        LoopbackChannel(Endpoint from, Endpoint to)
+        {
+            this.from = from;
+            this.to = to;
+            port = to.nodeInfo.getPort(from.nodeInfo.nodeID);
+            queue = to.inbound[port];
+            fromPort = from.nodeInfo.getPort(to.nodeInfo.nodeID);
+        }
+
+        @Override
+        public int getNeighborID()
+        {
+            return to.nodeInfo.nodeID;
+        }
+
+        /*
+            Method: send
+            Description: Encodes the message into the neighbor's queue and wakes up the neighbor.
+            Parameters: Message to send.
+            Returns: Nothing
+         */
+        @Override
+        public void send(Message msg) throws Exception
+        {
+            SCTPClientServer cs = from.cs;
+            ByteBuffer buf = cs.encode(msg);
+            byte[] data = new byte[buf.remaining()];
+            buf.get(data);
+            cs.getBufferPool().release(buf);
+
+            queue.add(data);
+            // No-op if the neighbor has not been started yet - it reads the queue when it starts.
+            to.wake(port);
+            cs.getLog().trace("MSG SENT: ", msg);
+        }
+
+        /*
+            Method: retired
+            Description: Wakes up the sending node's reader of the neighbor's messages with a thread per channel, so
+                it stops instead of staying parked once no more messages come.
+            Parameters: None
+            Returns: Nothing
+         */
+        @Override
+        public void retired()
+        {
+            if(threadPerChannel)
+            {
+                from.wake(fromPort);
+            }
+        }
+    }
+
+    // Constructor - creates the queues of every channel of the topology. The nodes are run by the given workers, or
+    // with a thread per channel each channel's reader is (then the executor has to start a thread per task).
+    public LoopbackTransport(Node[] allNodes, Executor workers, boolean threadPerChannel)
+    {
+        this.workers = workers;
+        this.threadPerChannel = threadPerChannel;
+        endpoints = new AtomicReferenceArray<>(allNodes.length);
+        for(Node node : allNodes)
+        {
+            endpoints.set(node.nodeID, new Endpoint(node));
+        }
+    }
+
+    /*
+        Method: start
+        Description: Registers a channel to each neighbor with the node's synchronizer and schedules the node to
+            read its queues (or starts the reader of each queue). Neighbors that are not started yet receive the
+            node's messages once they are.
+        Parameters: Synchronizer of the node and the node information.
+        Returns: Nothing
+     */
+    @Override
+    public void start(SCTPClientServer cs, Node nodeInfo) throws Exception
+    {
+        Endpoint endpoint = endpoints.get(nodeInfo.nodeID);
+        endpoint.cs = cs;
+
+        // Restart protocol - the neighbors are in this JVM, so the round each resumed from is known without asking.
+        for(int port = 0; port < nodeInfo.getDegree(); port++)
+        {
+            int neighborID = nodeInfo.getNeighbor(port);
+            cs.neighborResumed(neighborID, Checkpoint.resumeRound(neighborID));
+        }
+        for(int port = 0; port < nodeInfo.getDegree(); port++)
+        {
+            cs.registerChannel(new LoopbackChannel(endpoint, endpoints.get(nodeInfo.getNeighbor(port))));
+        }
+
+        if(threadPerChannel)
+        {
+            // Neighbors wake up the readers once the node is started - a reader that has not run yet reads its queue
+            // before it parks.
+            endpoint.readers = new ChannelReader[nodeInfo.getDegree()];
+            for(int port = 0; port < endpoint.readers.length; port++)
+            {
+                endpoint.readers[port] = new ChannelReader(endpoint, port);
+            }
+            endpoint.started = true;
+            for(ChannelReader reader : endpoint.readers)
+            {
+                workers.execute(reader);
+            }
+            return;
+        }
+
+        endpoint.started = true;
+        endpoint.schedule();
+    }
+
+}
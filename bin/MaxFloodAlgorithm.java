@@ -0,0 +1,145 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+
+// Finds the largest value of any node and the node that has it by flooding - i.e. leader election (the value is the
+// node ID) or the max degree of the topology (the value is the degree). Ties are broken by the larger node ID.
+// A node sends its value in round 0 and afterwards only when the best value it knows changed in the previous round,
+// so after round r a node knows the best value of all nodes within r+1 hops. Once the eccentricity search of the
+// node has reached every node, the value is final once the last change has been forwarded.
+// Unlike the k-hop search, which knows the 1-hop neighbors before round 0, a value needs n-1 rounds to cross a path
+// of n nodes, so the algorithm can need one round more than the search.
+public class MaxFloodAlgorithm implements SynchronousAlgorithm {
+
+    // Name of the algorithm and the format of its output line - %1$d is the value and %2$d the node that has it.
+    private final String name;
+    private final String resultFormat;
+    // Eccentricity search of the node, which tells when every node has been reached.
+    private final EccentricityAlgorithm search;
+
+    // Best value and the node that has it, known so far.
+    private int bestValue;
+    private int bestNodeID;
+    // Holds if the best value changed in the previous round, i.e. has to be sent in the current round.
+    private boolean changed = true;
+    // Holds if the best value changed in the current round.
+    private boolean changedThisRound = false;
+    // Payload of the current round (the same for every neighbor).
+    private int[] payload;
+
+    // Constructor - starts with the node's own value.
+    public MaxFloodAlgorithm(String name, String resultFormat, int value, int nodeID, EccentricityAlgorithm search)
+    {
+        this.name = name;
+        this.resultFormat = resultFormat;
+        this.search = search;
+        bestValue = value;
+        bestNodeID = nodeID;
+    }
+
+    @Override
+    public String getName()
+    {
+        return name;
+    }
+
+    /*
+        Method: produce
+        Description: Returns the best value and its node if they changed in the previous round (always in round 0).
+        Parameters: Integer round number and integer port of the neighbor.
+        Returns: Array {value, node ID} or null.
+     */
+    @Override
+    public int[] produce(int round, int port)
+    {
+        if(!changed)
+        {
+            return null;
+        }
+        if(payload == null || payload[0] != bestValue || payload[1] != bestNodeID)
+        {
+            payload = new int[]{bestValue, bestNodeID};
+        }
+        return payload;
+    }
+
+    /*
+        Method: consume
+        Description: Keeps a neighbor's value if it is better than the best value known.
+        Parameters: Integer round number, integer port of the neighbor and the neighbor's payload {value, node ID}.
+        Returns: Nothing
+     */
+    @Override
+    public void consume(int round, int port, int[] payload)
+    {
+        if(payload[0] > bestValue || (payload[0] == bestValue && payload[1] > bestNodeID))
+        {
+            bestValue = payload[0];
+            bestNodeID = payload[1];
+            changedThisRound = true;
+        }
+    }
+
+    @Override
+    public void roundCompleted(int round)
+    {
+        // What changed this round is sent next round.
+        changed = changedThisRound;
+        changedThisRound = false;
+    }
+
+    /*
+        Method: isDone
+        Description: Determines if the best value is final and has been forwarded - every node has been reached (or
+            the last round has passed) and the value did not change in the previous round.
+        Parameters: Integer current round number.
+        Returns: Boolean - true if the algorithm is done.
+     */
+    @Override
+    public boolean isDone(int round)
+    {
+        return !changed && (search.hasReachedAll(round) || round > getLastRound());
+    }
+
+    /*
+        Method: getLastRound
+        Description: Returns the round in which a value reaches a node n-1 hops away.
+        Parameters: None
+        Returns: Integer round number.
+     */
+    @Override
+    public int getLastRound()
+    {
+        return search.getLastRound() + 1;
+    }
+
+    /*
+        Method: addResult
+        Description: Adds the best value and the node that has it to the output.
+        Parameters: List of output lines to add to.
+        Returns: Nothing
+     */
+    @Override
+    public void addResult(ArrayList<String> lines)
+    {
+        lines.add(String.format(resultFormat, bestValue, bestNodeID));
+    }
+
+    @Override
+    public void saveState(DataOutput out) throws IOException
+    {
+        out.writeInt(bestValue);
+        out.writeInt(bestNodeID);
+        out.writeBoolean(changed);
+    }
+
+    @Override
+    public void restoreState(DataInput in) throws IOException
+    {
+        bestValue = in.readInt();
+        bestNodeID = in.readInt();
+        changed = in.readBoolean();
+    }
+
+}
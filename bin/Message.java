@@ -4,10 +4,6 @@ import java.io.ObjectOutputStream;
 import java.io.ObjectInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.util.LinkedList;
-
-// Enumeration to store message types
-enum MessageType{string};
 
 // Object to store message passing between nodes
 // Message class can be modified to incorporate all fields that need to be passed
@@ -15,6 +11,9 @@ enum MessageType{string};
 // Most base classes and arrays are serializable
 public class Message implements Serializable 
 {
+	// Destination node ID of a round message encoded once for all neighbors it goes to (see BroadcastFrame).
+	public static final int ALL_NEIGHBORS = -1;
+
 	MessageType msgType;
 	// Holds the message string.
 	public String message;
@@ -24,8 +23,17 @@ public class Message implements Serializable
 	public int sourceNodeID;
 	// Holds the destination node's ID.
 	public int destNodeID;
-	// Holds the k-hop neighbor node IDs of the source node.
-	public LinkedList<Integer>[] kHopNeighbors;
+	// Holds the payloads of the source node's algorithms for this round, one entry per algorithm in the order the
+	// algorithms run (see SynchronousAlgorithm). An entry is null if the algorithm has nothing to send.
+	public int[][] payloads;
+	// Holds if all algorithms of the source node were done this round, i.e. the source node has nothing more to tell.
+	public boolean done;
+	// Holds the number of bytes the message took on the wire (set when the message is received, not sent).
+	public transient int wireSize;
+	// Holds the frame shared with the node's other messages of the round that carry the same payloads, or null if
+	// the message is encoded on its own - not a round message, or already sent once (set by the sender only, see
+	// BroadcastFrame).
+	public transient BroadcastFrame frame;
 
 	// Constructor
 	public Message(String msg)
@@ -52,42 +60,153 @@ public class Message implements Serializable
 	}
 
 	// Constructor
-	public Message(String message, int roundNumber, int sourceNodeID, int destNodeID, LinkedList<Integer>[] kHopNeighbors)
+	public Message(MessageType msgType, String message, int roundNumber, int sourceNodeID, int destNodeID)
 	{
+		this.msgType = msgType;
 		this.message = message;
 		this.sourceNodeID = sourceNodeID;
 		this.roundNumber = roundNumber;
 		this.destNodeID = destNodeID;
-		this.kHopNeighbors = kHopNeighbors;
 
 	}
 
+	// Constructor
+	public Message(String message, int roundNumber, int sourceNodeID, int destNodeID, int[][] payloads)
+	{
+		this.message = message;
+		this.sourceNodeID = sourceNodeID;
+		this.roundNumber = roundNumber;
+		this.destNodeID = destNodeID;
+		this.payloads = payloads;
+
+	}
+
+	// Describes the message for the log - its text, or for a message without text (round messages) its type, source,
+	// round and destination. Only called when a log entry is written.
+	@Override
+	public String toString()
+	{
+		if(message != null)
+		{
+			return message;
+		}
+		String type = msgType == null ? "MESSAGE" : msgType.name().toUpperCase();
+		String dest = destNodeID == ALL_NEIGHBORS ? "all neighbors" : "dest node " + destNodeID;
+		return type + " from node " + sourceNodeID + " at round " + roundNumber + " to " + dest;
+	}
+
+	// Determines if any algorithm sent a payload with this message
+	public boolean hasPayload()
+	{
+		if(payloads == null)
+		{
+			return false;
+		}
+		for(int[] payload : payloads)
+		{
+			if(payload != null)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
 	// Convert current instance of Message to ByteBuffer in order to send message over SCTP
+	// Uses the binary MessageCodec format unless Java serialization is selected in RunOptions
 	public ByteBuffer toByteBuffer() throws Exception
+	{
+		if(RunOptions.useJavaSerialization())
+		{
+			return toSerializedByteBuffer();
+		}
+
+		ByteBuffer buf = ByteBuffer.allocateDirect(MessageCodec.encodedSize(this));
+		MessageCodec.encode(this, buf);
+
+		// Buffer needs to be flipped after writing
+		// Buffer flip should happen only once
+		buf.flip();
+		return buf;
+	}
+
+	// Convert current instance of Message to a ByteBuffer taken from the pool in order to send message over SCTP
+	// The buffer has to be released to the pool once the message has been sent
+	public ByteBuffer toByteBuffer(BufferPool pool) throws Exception
+	{
+		ByteBuffer buf;
+		if(RunOptions.useJavaSerialization())
+		{
+			byte[] data = serialize();
+			buf = pool.acquire(data.length);
+			buf.put(data);
+		}
+		else
+		{
+			buf = pool.acquire(MessageCodec.encodedSize(this));
+			MessageCodec.encode(this, buf);
+		}
+
+		// Buffer needs to be flipped after writing
+		// Buffer flip should happen only once
+		buf.flip();
+		return buf;
+	}
+
+	// Convert current instance of Message to ByteBuffer using Java serialization
+	public ByteBuffer toSerializedByteBuffer() throws Exception
+	{
+		byte[] data = serialize();
+		ByteBuffer buf = ByteBuffer.allocateDirect(data.length);
+		buf.put(data);
+
+		// Buffer needs to be flipped after writing
+		// Buffer flip should happen only once		
+		buf.flip();
+		return buf;
+	}
+
+	// Convert current instance of Message to bytes using Java serialization
+	private byte[] serialize() throws Exception
 	{
 		ByteArrayOutputStream bos = new ByteArrayOutputStream();
 		ObjectOutputStream oos = new ObjectOutputStream(bos);
 		oos.writeObject(this);
 		oos.flush();
-		
-		ByteBuffer buf = ByteBuffer.allocateDirect(bos.size());
-		buf.put(bos.toByteArray());
-		
+
+		byte[] data = bos.toByteArray();
+
 		oos.close();
 		bos.close();
 
-		// Buffer needs to be flipped after writing
-		// Buffer flip should happen only once		
-		buf.flip();
-		return buf;
+		return data;
 	}
 
 	// Retrieve Message from ByteBuffer received from SCTP
+	// Binary MessageCodec frames are always accepted, Java serialization only with message.codec=java - reading an
+	// object stream from a neighbor otherwise would let any peer have arbitrary classes deserialized
 	public static Message fromByteBuffer(ByteBuffer buf) throws Exception
 	{
 		// Buffer needs to be flipped before reading
 		// Buffer flip should happen only once
 		buf.flip();
+		int wireSize = buf.limit();
+
+		if(MessageCodec.isBinaryFrame(buf))
+		{
+			// Decode directly from the buffer - no copy needed.
+			Message msg = MessageCodec.decode(buf);
+			msg.wireSize = wireSize;
+			buf.clear();
+			return msg;
+		}
+		if(!RunOptions.useJavaSerialization())
+		{
+			buf.clear();
+			throw new Exception("Message is not a binary frame - Java serialization is only read with " +
+					"message.codec=java.");
+		}
+
 		byte[] data = new byte[buf.limit()];
 		buf.get(data);
 		buf.clear();
@@ -95,6 +214,7 @@ public class Message implements Serializable
 		ByteArrayInputStream bis = new ByteArrayInputStream(data);
 		ObjectInputStream ois = new ObjectInputStream(bis);
 		Message msg = (Message) ois.readObject();
+		msg.wireSize = wireSize;
 
 		bis.close();
 		ois.close();
@@ -0,0 +1,96 @@
+import com.sun.nio.sctp.MessageInfo;
+import com.sun.nio.sctp.SctpChannel;
+
+import java.nio.ByteBuffer;
+
+// This class receives the messages of one channel into a buffer that is reused for every message.
+// SCTP hands a message that does not fit into the receive buffer over in parts - MessageInfo.isComplete() is false
+// until the last part has been received. The assembler then moves the parts received so far into a buffer twice
+// the size (from the node's BufferPool) and keeps receiving, so a message of any size is decoded whole instead of
+// being cut off at the buffer size. The larger buffer is kept for the following messages.
+// Works with blocking channels (receive waits for a whole message) and non-blocking channels (a message received
+// in parts over several calls is kept until it is complete).
+public class MessageAssembler {
+
+    // Pool the receive buffer is taken from and grown with
+    private final BufferPool pool;
+    // Buffer the channel's messages are received into
+    private ByteBuffer buffer;
+    // Set once the neighbor has closed the channel.
+    private boolean closed = false;
+
+    // Constructor - takes a receive buffer of the initial size from the pool.
+    public MessageAssembler(BufferPool pool, int initialSize)
+    {
+        this.pool = pool;
+        buffer = pool.acquire(initialSize);
+    }
+
+    /*
+        Method: receive
+        Description: Receives the next message from the channel. On a blocking channel, waits until the whole
+            message has been received. On a non-blocking channel, returns null if the message is not complete yet.
+        Parameters: SctpChannel to receive from.
+        Returns: The received message, or null if no whole message is available or the channel was closed.
+     */
+    public Message receive(SctpChannel sctpChannel) throws Exception
+    {
+        while(true)
+        {
+            // The buffer is full but the message is not complete yet - move it to a larger buffer.
+            if(!buffer.hasRemaining())
+            {
+                grow();
+            }
+
+            // Messages are received over SCTP using ByteBuffer
+            MessageInfo messageInfo = sctpChannel.receive(buffer, null, null);
+
+            // Nothing more to read right now (non-blocking channel).
+            if(messageInfo == null)
+            {
+                return null;
+            }
+
+            // Neighbor closed the channel.
+            if(messageInfo.bytes() == -1)
+            {
+                closed = true;
+                return null;
+            }
+
+            if(messageInfo.isComplete())
+            {
+                // Decodes the message and clears the buffer for the next one.
+                return Message.fromByteBuffer(buffer);
+            }
+        }
+    }
+
+    /*
+        Method: isClosed
+        Description: Determines if the neighbor has closed the channel.
+        Parameters: None
+        Returns: Boolean - true if the channel was closed.
+     */
+    public boolean isClosed()
+    {
+        return closed;
+    }
+
+    /*
+        Method: grow
+        Description: Moves the parts of the message received so far into a buffer twice the size.
+        Parameters: None
+        Returns: Nothing
+     */
+    private void grow()
+    {
+        ByteBuffer larger = pool.acquire(buffer.capacity() * 2);
+        buffer.flip();
+        larger.put(buffer);
+        pool.release(buffer);
+        buffer = larger;
+    }
+
+}
@@ -0,0 +1,457 @@
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// This class encodes and decodes a Message using a compact, versioned binary wire format.
+// Frame layout (all multi-byte integers after the header are unsigned varints):
+//      byte        format version (FORMAT_VERSION)
+//      int         length of the payload that follows (big endian)
+//      varint      message type (ordinal + 1, 0 = null)
+//      varint      round number
+//      varint      source node ID
+//      varint      destination node ID
+//      varint      length of UTF-8 message string + 1 (0 = null), followed by the string bytes
+//      varint      number of algorithm payloads + 1 (0 = null), then for each payload: size + 1 (0 = null) and the
+//                  integers of the payload
+//      varint      flags (FLAG_DONE)
+// Fields are only ever appended to the payload. A decoder skips fields it does not know and treats fields missing
+// from a shorter payload as null/0, so the version only changes when existing fields change.
+// The first byte of a Java serialization stream is always 0xAC, so the decoder can tell both formats apart.
+public class MessageCodec {
+
+    // Version of the binary format - increment when the layout above changes.
+    // Version 2 replaced the k-hop lists and the frontier with the algorithm payloads.
+    static final byte FORMAT_VERSION = 2;
+    // First byte of a Java serialization stream (STREAM_MAGIC 0xACED).
+    static final byte JAVA_SERIALIZATION_MAGIC = (byte) 0xAC;
+    // Size of the frame header - version byte and payload length.
+    static final int HEADER_SIZE = 1 + Integer.BYTES;
+    // Flag bit set when the message's done field is true.
+    static final int FLAG_DONE = 1;
+
+    /*
+        Method: encodedSize
+        Description: Calculates the number of bytes the message takes in the binary format, including the header.
+        Parameters: Message to measure.
+        Returns: Integer number of bytes of the encoded frame.
+     */
+    public static int encodedSize(Message msg)
+    {
+        return HEADER_SIZE + payloadSize(msg);
+    }
+
+    /*
+        Method: encode
+        Description: Writes the message as one binary frame into the buffer starting at the buffer's position.
+            The buffer's position is moved past the frame. The buffer is not flipped.
+        Parameters: Message to encode and ByteBuffer to write into (must have encodedSize(msg) bytes remaining).
+        Returns: Nothing
+     */
+    public static void encode(Message msg, ByteBuffer buf)
+    {
+        int payloadSize = payloadSize(msg);
+
+        // Header
+        buf.put(FORMAT_VERSION);
+        buf.putInt(payloadSize);
+
+        // Payload
+        putVarInt(buf, msg.msgType == null ? 0 : msg.msgType.ordinal() + 1);
+        putVarInt(buf, msg.roundNumber);
+        putVarInt(buf, msg.sourceNodeID);
+        putVarInt(buf, msg.destNodeID);
+
+        if(msg.message == null)
+        {
+            putVarInt(buf, 0);
+        }
+        else
+        {
+            byte[] text = msg.message.getBytes(StandardCharsets.UTF_8);
+            putVarInt(buf, text.length + 1);
+            buf.put(text);
+        }
+
+        putPayloads(buf, msg.payloads);
+        putVarInt(buf, flags(msg));
+    }
+
+    /*
+        Method: decode
+        Description: Reads one binary frame from the buffer starting at the buffer's position and moves the position
+            past the frame.
+        Parameters: ByteBuffer holding the frame (ready for reading).
+        Returns: The decoded Message.
+     */
+    public static Message decode(ByteBuffer buf) throws Exception
+    {
+        // Check the header before reading the payload.
+        if(buf.remaining() < HEADER_SIZE)
+        {
+            throw new Exception("Message frame is incomplete: " + buf.remaining() + " bytes received.");
+        }
+
+        byte version = buf.get();
+        if(version != FORMAT_VERSION)
+        {
+            throw new Exception("Unsupported message format version " + version + ".");
+        }
+
+        int payloadSize = buf.getInt();
+        if(payloadSize < 0)
+        {
+            throw new Exception("Message frame is corrupted: payload size " + payloadSize + ".");
+        }
+        if(payloadSize > buf.remaining())
+        {
+            throw new Exception("Message frame is incomplete: expected " + payloadSize + " bytes but " +
+                    buf.remaining() + " bytes received.");
+        }
+        int end = buf.position() + payloadSize;
+
+        // Read no further than the payload, so a corrupted length or count cannot reach into the next frame.
+        int limit = buf.limit();
+        buf.limit(end);
+        try {
+            Message msg = new Message(null);
+
+            int type = getVarInt(buf);
+            msg.msgType = type == 0 ? null : MessageType.values()[type - 1];
+            msg.roundNumber = getVarInt(buf);
+            msg.sourceNodeID = getVarInt(buf);
+            msg.destNodeID = getVarInt(buf);
+
+            int textLength = getVarInt(buf);
+            if(textLength != 0)
+            {
+                checkCount(buf, textLength - 1);
+                byte[] text = new byte[textLength - 1];
+                buf.get(text);
+                msg.message = new String(text, StandardCharsets.UTF_8);
+            }
+
+            msg.payloads = getPayloads(buf);
+            if(buf.position() < end)
+            {
+                int flags = getVarInt(buf);
+                msg.done = (flags & FLAG_DONE) != 0;
+            }
+
+            // Skip anything left in the payload (i.e. fields added by a later minor change of the sender).
+            buf.position(end);
+
+            return msg;
+        }
+        catch(BufferUnderflowException | IndexOutOfBoundsException e)
+        {
+            throw new Exception("Message frame is corrupted.", e);
+        }
+        finally {
+            buf.limit(limit);
+        }
+    }
+
+    /*
+        Method: isBinaryFrame
+        Description: Determines if the buffer starts with a binary frame instead of a Java serialization stream.
+        Parameters: ByteBuffer holding a received message (ready for reading).
+        Returns: Boolean - true if the frame uses the binary format.
+     */
+    public static boolean isBinaryFrame(ByteBuffer buf)
+    {
+        return buf.hasRemaining() && buf.get(buf.position()) != JAVA_SERIALIZATION_MAGIC;
+    }
+
+    // Calculates the size of the payload (everything after the header).
+    private static int payloadSize(Message msg)
+    {
+        int size = varIntSize(msg.msgType == null ? 0 : msg.msgType.ordinal() + 1)
+                + varIntSize(msg.roundNumber)
+                + varIntSize(msg.sourceNodeID)
+                + varIntSize(msg.destNodeID);
+
+        if(msg.message == null)
+        {
+            size += 1;
+        }
+        else
+        {
+            int textLength = utf8Length(msg.message);
+            size += varIntSize(textLength + 1) + textLength;
+        }
+
+        return size + payloadsSize(msg.payloads) + varIntSize(flags(msg));
+    }
+
+    // Packs the boolean fields of the message into flag bits.
+    private static int flags(Message msg)
+    {
+        return msg.done ? FLAG_DONE : 0;
+    }
+
+    // Calculates the size of an array of node IDs.
+    private static int idsSize(int[] ids)
+    {
+        if(ids == null)
+        {
+            return 1;
+        }
+
+        int size = varIntSize(ids.length + 1);
+        for(int id : ids)
+        {
+            size += varIntSize(id);
+        }
+        return size;
+    }
+
+    // Writes an array of node IDs.
+    private static void putIds(ByteBuffer buf, int[] ids)
+    {
+        if(ids == null)
+        {
+            putVarInt(buf, 0);
+            return;
+        }
+
+        putVarInt(buf, ids.length + 1);
+        for(int id : ids)
+        {
+            putVarInt(buf, id);
+        }
+    }
+
+    // Reads an array of node IDs.
+    private static int[] getIds(ByteBuffer buf)
+    {
+        int size = getVarInt(buf);
+        if(size == 0)
+        {
+            return null;
+        }
+
+        checkCount(buf, size - 1);
+        int[] ids = new int[size - 1];
+        for(int i = 0; i < ids.length; i++)
+        {
+            ids[i] = getVarInt(buf);
+        }
+        return ids;
+    }
+
+    // Calculates the size of the algorithm payloads.
+    private static int payloadsSize(int[][] payloads)
+    {
+        if(payloads == null)
+        {
+            return 1;
+        }
+
+        int size = varIntSize(payloads.length + 1);
+        for(int[] payload : payloads)
+        {
+            size += idsSize(payload);
+        }
+        return size;
+    }
+
+    // Writes the algorithm payloads.
+    private static void putPayloads(ByteBuffer buf, int[][] payloads)
+    {
+        if(payloads == null)
+        {
+            putVarInt(buf, 0);
+            return;
+        }
+
+        putVarInt(buf, payloads.length + 1);
+        for(int[] payload : payloads)
+        {
+            putIds(buf, payload);
+        }
+    }
+
+    // Reads the algorithm payloads.
+    private static int[][] getPayloads(ByteBuffer buf)
+    {
+        int count = getVarInt(buf);
+        if(count == 0)
+        {
+            return null;
+        }
+
+        checkCount(buf, count - 1);
+        int[][] payloads = new int[count - 1][];
+        for(int i = 0; i < payloads.length; i++)
+        {
+            payloads[i] = getIds(buf);
+        }
+        return payloads;
+    }
+
+    /*
+        Method: checkCount
+        Description: Checks a count read from a frame before an array of that size is allocated - every element
+            takes at least one byte, so a count larger than the bytes left in the payload (or negative, i.e. a
+            varint of more than 31 bits) can only come from a corrupted frame.
+        Parameters: ByteBuffer being read (limited to the payload) and integer count.
+        Returns: Nothing - throws IndexOutOfBoundsException if the count is not possible.
+     */
+    private static void checkCount(ByteBuffer buf, int count)
+    {
+        if(count < 0 || count > buf.remaining())
+        {
+            throw new IndexOutOfBoundsException("Count " + count + " is larger than the " + buf.remaining() +
+                    " bytes left in the frame.");
+        }
+    }
+
+    /*
+        Method: putVarInt
+        Description: Writes an integer as an unsigned varint - 7 bits per byte, high bit set if more bytes follow.
+            Values below 128 take one byte. Negative values take five bytes.
+        Parameters: ByteBuffer to write into and integer value.
+        Returns: Nothing
+     */
+    static void putVarInt(ByteBuffer buf, int value)
+    {
+        while((value & ~0x7F) != 0)
+        {
+            buf.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buf.put((byte) value);
+    }
+
+    /*
+        Method: getVarInt
+        Description: Reads an unsigned varint written by putVarInt.
+        Parameters: ByteBuffer to read from.
+        Returns: Integer value.
+     */
+    static int getVarInt(ByteBuffer buf)
+    {
+        int value = 0;
+        for(int shift = 0; shift < 35; shift += 7)
+        {
+            byte b = buf.get();
+            value |= (b & 0x7F) << shift;
+            if(b >= 0)
+            {
+                return value;
+            }
+        }
+        throw new IndexOutOfBoundsException("Varint is longer than 5 bytes.");
+    }
+
+    /*
+        Method: varIntSize
+        Description: Calculates the number of bytes putVarInt uses for a value.
+        Parameters: Integer value.
+        Returns: Integer number of bytes (1 to 5).
+     */
+    static int varIntSize(int value)
+    {
+        if((value & ~0x7F) == 0) return 1;
+        if((value & ~0x3FFF) == 0) return 2;
+        if((value & ~0x1FFFFF) == 0) return 3;
+        if((value & ~0xFFFFFFF) == 0) return 4;
+        return 5;
+    }
+
+    // Calculates the number of bytes of the UTF-8 encoding of a string without encoding it.
+    private static int utf8Length(String s)
+    {
+        int length = 0;
+        for(int i = 0; i < s.length(); i++)
+        {
+            char c = s.charAt(i);
+            if(c < 0x80)
+            {
+                length += 1;
+            }
+            else if(c < 0x800)
+            {
+                length += 2;
+            }
+            else if(Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1)))
+            {
+                length += 4;
+                i++;
+            }
+            else
+            {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /*
+        Method: main
+        Description: Compares the binary format with Java serialization for a message carrying the full k-hop
+            history of a node, printing the bytes per message and the average encode/decode time of each format.
+            Usage: java MessageCodec [number of nodes] [iterations]
+        Parameters: Commandline arguments.
+        Returns: Nothing
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int numOfNodes = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+
+        // Spread all node IDs over 7 k-hop levels like a low diameter topology would, flattened the way
+        // EccentricityAlgorithm sends them - the size of each level followed by its node IDs.
+        int levels = Math.min(7, Math.max(1, numOfNodes - 1));
+        int[] history = new int[levels + numOfNodes - 1];
+        int position = 0;
+        for(int level = 0; level < levels; level++)
+        {
+            int sizePosition = position++;
+            for(int id = 1; id < numOfNodes; id++)
+            {
+                if(Math.min(id % 7, levels - 1) == level)
+                {
+                    history[position++] = id;
+                }
+            }
+            history[sizePosition] = position - sizePosition - 1;
+        }
+        Message msg = new Message(null, 3, 0, 1, new int[][]{history});
+        msg.msgType = MessageType.round;
+
+        for(String codec : new String[]{"java", "binary"})
+        {
+            RunOptions.messageCodec = codec;
+
+            // Warm up before timing.
+            for(int i = 0; i < iterations; i++)
+            {
+                ByteBuffer buf = msg.toByteBuffer();
+                buf.position(buf.limit());
+                Message.fromByteBuffer(buf);
+            }
+
+            long encodeTime = 0;
+            long decodeTime = 0;
+            int bytes = 0;
+            for(int i = 0; i < iterations; i++)
+            {
+                long start = System.nanoTime();
+                ByteBuffer buf = msg.toByteBuffer();
+                encodeTime += System.nanoTime() - start;
+                bytes = buf.remaining();
+
+                // fromByteBuffer expects the buffer as it is left by a receive (not flipped).
+                buf.position(buf.limit());
+                start = System.nanoTime();
+                Message.fromByteBuffer(buf);
+                decodeTime += System.nanoTime() - start;
+            }
+
+            System.out.println(codec + ": " + bytes + " bytes/msg, encode " + (encodeTime / iterations / 1000.0) +
+                    " us/msg, decode " + (decodeTime / iterations / 1000.0) + " us/msg");
+        }
+    }
+
+}
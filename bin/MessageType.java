@@ -0,0 +1,5 @@
+// Enumeration to store message types
+// round = a node's message of a round, handshake = the client's hello and the server's acknowledgement when a channel
+// opens (see SCTPClient), the other types are control messages of the synchronizer strategies.
+// New types are only appended, since the binary codec sends the position of the type.
+enum MessageType{string, round, ack, safe, pulse, clusterSafe, neighborSafe, ready, handshake};
@@ -1,4 +1,4 @@
-import java.util.LinkedList;
+import java.util.Collection;
 
 // This class holds all the information for a node/process.
 public class Node {
@@ -9,8 +9,9 @@ public class Node {
     String hostName;
     // Holds listening port for the node.
     int listeningPort;
-    // Holds a list of the neighbor IDs for the node.
-    LinkedList<Integer> neighbors;
+    // Holds the topology the node is part of - its neighbors are the node's row of the topology, and a neighbor's
+    // index in that row is its port number on this node.
+    Topology topology;
 
     // Constructor - initialize all values.
     public Node(int nodeID, String hostName, int listeningPort)
@@ -34,14 +35,64 @@ public class Node {
     }
 
     /*
-        Method: addNeighbors
-        Description: Provides the list of node IDs of the neighbors for this node.
-        Parameters: LinkedList of neighbor node IDs (integers)
+        Method: setTopology
+        Description: Provides the topology that holds the neighbors of this node.
+        Parameters: Topology the node is part of.
         Returns: Nothing
      */
-    public void addNeighbors(LinkedList<Integer> neighbors)
+    public void setTopology(Topology topology)
     {
-        this.neighbors = neighbors;
+        this.topology = topology;
+    }
+
+    /*
+        Method: getDegree
+        Description: Returns the number of neighbors of this node.
+        Parameters: None
+        Returns: Integer degree.
+     */
+    public int getDegree()
+    {
+        return topology.getDegree(nodeID);
+    }
+
+    /*
+        Method: getNeighbor
+        Description: Returns the node ID of the neighbor on a port of this node.
+        Parameters: Integer port number (0 to degree-1).
+        Returns: Integer neighbor node ID.
+     */
+    public int getNeighbor(int port)
+    {
+        return topology.getNeighbor(nodeID, port);
+    }
+
+    /*
+        Method: getPort
+        Description: Returns the port number of a neighbor of this node.
+        Parameters: Integer neighbor node ID.
+        Returns: Integer port number, or -1 if the node is not a neighbor.
+     */
+    public int getPort(int neighborID)
+    {
+        return topology.getPort(nodeID, neighborID);
+    }
+
+    /*
+        Method: getPorts
+        Description: Returns the port numbers of some neighbors of this node, i.e. the children of the node in a tree.
+        Parameters: Collection of neighbor node IDs.
+        Returns: Array of port numbers in the order of the collection.
+     */
+    public int[] getPorts(Collection<Integer> neighborIDs)
+    {
+        int[] ports = new int[neighborIDs.size()];
+        int i = 0;
+        for(int neighborID : neighborIDs)
+        {
+            ports[i++] = getPort(neighborID);
+        }
+        return ports;
     }
 
 }
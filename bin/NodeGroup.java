@@ -0,0 +1,179 @@
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// This class runs a group of nodes of the topology inside one JVM - all nodes for LoopbackHost, or the nodes given to
+// DistributedSystem as a list (i.e. "0-49,60") so one JVM per machine can host hundreds of nodes instead of one JVM
+// per node. Every node keeps its own synchronizer, algorithms, log and metrics; the nodes share the transport, its
+// I/O event loop and its worker pool (see LoopbackTransport and SCTPTransport), the log writer and the result sink.
+// Once all nodes have terminated, the group reports the rounds per second and the heap each node takes, next to what
+// one JVM per node would take on top of that (the JVM's own heap and non-heap memory, paid by every JVM).
+public class NodeGroup {
+
+    // Holds all of the nodes and their information and the neighbors of each node.
+    private final Node[] allNodes;
+    private final Topology topology;
+    // IDs of the nodes run by this group
+    private final int[] nodeIDs;
+
+    // Constructor
+    public NodeGroup(Node[] allNodes, Topology topology, int[] nodeIDs)
+    {
+        this.allNodes = allNodes;
+        this.topology = topology;
+        this.nodeIDs = nodeIDs;
+    }
+
+    /*
+        Method: run
+        Description: Creates the synchronizer of every node of the group, starts the nodes with the transport and
+            waits until all of them have terminated and their output is written, then prints the run statistics.
+        Parameters: String label of the statistics line, transport shared by the nodes and String description of the
+            threads running the nodes (for the statistics).
+        Returns: Nothing
+     */
+    public void run(String label, Transport transport, String threads) throws Exception
+    {
+        // Memory of the JVM before any node is created - what every JVM takes without nodes.
+        long jvmHeap = usedHeap();
+        long jvmNonHeap = ManagementFactory.getMemoryMXBean().getNonHeapMemoryUsage().getUsed();
+        long startTime = System.nanoTime();
+
+        // Create a synchronizer for each node and connect its channels.
+        SCTPClientServer[] nodes = new SCTPClientServer[nodeIDs.length];
+        for(int i = 0; i < nodeIDs.length; i++)
+        {
+            nodes[i] = new SCTPClientServer(allNodes[nodeIDs[i]], allNodes.length, topology);
+            nodes[i].getMetrics().registerMBean();
+            transport.start(nodes[i], allNodes[nodeIDs[i]]);
+            watchHalt(nodes[i]);
+        }
+
+        // Wait for every node to terminate.
+        int maxRound = 0;
+        long nodeRounds = 0;
+        for(SCTPClientServer cs : nodes)
+        {
+            int lastRound = cs.awaitRound(Integer.MAX_VALUE);
+            maxRound = Math.max(maxRound, lastRound);
+            nodeRounds += lastRound + 1;
+        }
+        // Wait for the output files to be written.
+        ResultSink.flush();
+        long runTime = Math.max(1, System.nanoTime() - startTime);
+
+        // The nodes are still referenced, so the heap they added is what they hold at the end of the run.
+        long nodeHeap = Math.max(0, usedHeap() - jvmHeap) / nodeIDs.length;
+        Reference.reachabilityFence(nodes);
+
+        System.out.println(String.format("%s: %d nodes finished %d rounds in %d ms - %.1f rounds/s, " +
+                "%.1f node rounds/s on %s", label, nodeIDs.length, maxRound + 1, runTime / 1000000,
+                (maxRound + 1) * 1e9 / runTime, nodeRounds * 1e9 / runTime, threads));
+        System.out.println(String.format("MEMORY: %.1f KB heap per node; one JVM per node would add %.1f MB per " +
+                "node (JVM heap %.1f MB + non-heap %.1f MB)", nodeHeap / 1024.0, (jvmHeap + jvmNonHeap) / 1048576.0,
+                jvmHeap / 1048576.0, jvmNonHeap / 1048576.0));
+    }
+
+    /*
+        Method: watchHalt
+        Description: Test hook for restarts (checkpoint.haltAt) - if the node is the one to stop, starts a thread
+            that waits outside of the node until it reaches the round and then stops the JVM with Runtime.halt, so
+            the node gets no chance to finish its round. Only the JVM's process dies: the pages of the checkpoint
+            files are still written back by the operating system, and Checkpoint never calls force(), so a
+            failure of the whole machine (power loss, kernel crash) is not covered by the test.
+        Parameters: Synchronizer of a node that has been started.
+        Returns: Nothing
+     */
+    public static void watchHalt(SCTPClientServer cs)
+    {
+        int[] haltAt = RunOptions.haltAt();
+        if(haltAt == null || haltAt[0] != cs.getNodeID())
+        {
+            return;
+        }
+        Thread watcher = new Thread(() -> {
+            try {
+                if(cs.awaitRound(haltAt[1]) >= haltAt[1] && !cs.isFinished())
+                {
+                    System.out.println("HALT: Node " + haltAt[0] + " stops the JVM at round " + haltAt[1]);
+                    Runtime.getRuntime().halt(1);
+                }
+            }
+            catch(InterruptedException e)
+            {
+                // Nothing interrupts the watcher - if something does, the JVM is left running.
+            }
+        }, "halt-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /*
+        Method: usedHeap
+        Description: Returns the heap in use after a garbage collection.
+        Parameters: None
+        Returns: Long bytes of heap in use.
+     */
+    private static long usedHeap()
+    {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /*
+        Method: newWorkerPool
+        Description: Creates the pool of daemon threads shared by the nodes of a group.
+        Parameters: String name of the threads and integer number of threads (0 for a pool that grows as needed,
+            i.e. for tasks that block like the channel threads of the SCTP transport).
+        Returns: ExecutorService of the pool.
+     */
+    public static ExecutorService newWorkerPool(String name, int numOfThreads)
+    {
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return numOfThreads > 0 ? Executors.newFixedThreadPool(numOfThreads, factory) :
+                Executors.newCachedThreadPool(factory);
+    }
+
+    /*
+        Method: parseNodeIDs
+        Description: Reads a list of node IDs and ranges, i.e. "3", "0-9" or "0-4,7,10-12".
+        Parameters: String list of node IDs and integer number of nodes in the topology.
+        Returns: Array of node IDs in the order given.
+     */
+    public static int[] parseNodeIDs(String list, int numOfNodes)
+    {
+        ArrayList<Integer> nodeIDs = new ArrayList<>();
+        for(String part : list.split(","))
+        {
+            int dash = part.indexOf('-');
+            int first = Integer.parseInt(part.substring(0, dash < 0 ? part.length() : dash).trim());
+            int last = dash < 0 ? first : Integer.parseInt(part.substring(dash + 1).trim());
+            if(first < 0 || last >= numOfNodes || first > last)
+            {
+                throw new IllegalArgumentException("Node IDs " + part + " are not in 0 to " + (numOfNodes - 1) + ".");
+            }
+            for(int nodeID = first; nodeID <= last; nodeID++)
+            {
+                nodeIDs.add(nodeID);
+            }
+        }
+
+        int[] result = new int[nodeIDs.size()];
+        for(int i = 0; i < result.length; i++)
+        {
+            result[i] = nodeIDs.get(i);
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,339 @@
+import javax.management.ObjectName;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+// This class holds the metrics of one node: round durations, how long the node waited for its slowest neighbor each
+// round, the time spent encoding messages, future round messages buffered, and the messages and bytes sent and
+// received on each channel.
+// Messages are encoded by the channel threads outside of the synchronizer's lock, so all counters are LongAdders
+// (striped per thread) and the distributions are lock-free Histograms - recording never blocks a channel. The
+// metrics can be read over JMX while the node runs (registerMBean), are written to a summary file when the node
+// terminates (writeSummary), and each round is a JFR event (RoundEvent).
+public class NodeMetrics implements NodeMetricsMBean {
+
+    // Holds the messages and bytes sent to and received from one neighbor.
+    private static class ChannelCounters
+    {
+        final LongAdder messagesSent = new LongAdder();
+        final LongAdder bytesSent = new LongAdder();
+        final LongAdder messagesReceived = new LongAdder();
+        final LongAdder bytesReceived = new LongAdder();
+    }
+
+    // Node the metrics belong to
+    private final Node nodeInfo;
+    private final int nodeID;
+    // Counters of each neighbor by port number (see Topology). Created up front, so reading them needs no lock.
+    private final ChannelCounters[] channels;
+
+    // Duration of each round, time from the node's last sent message of a round until the round completed, and
+    // time to encode a message - all in nanoseconds.
+    private final Histogram roundTime = new Histogram();
+    private final Histogram neighborWait = new Histogram();
+    private final Histogram serializationTime = new Histogram();
+
+    // Number of future round messages buffered over the run and number currently buffered.
+    private final LongAdder bufferedMessages = new LongAdder();
+    private final LongAdder pendingBufferedMessages = new LongAdder();
+
+    // Time from the node's start until all its channels were up in nanoseconds (0 until then).
+    private volatile long timeToFirstRound = 0;
+    // Number of rounds the node completed.
+    private volatile int roundsCompleted = 0;
+    // JFR event of the current round (begun when the node entered the round).
+    private RoundEvent roundEvent;
+
+    // Constructor - creates the counters of each channel of the node.
+    public NodeMetrics(Node nodeInfo)
+    {
+        this.nodeInfo = nodeInfo;
+        this.nodeID = nodeInfo.nodeID;
+        channels = new ChannelCounters[nodeInfo.getDegree()];
+        for(int port = 0; port < channels.length; port++)
+        {
+            channels[port] = new ChannelCounters();
+        }
+    }
+
+    /*
+        Method: registerMBean
+        Description: Makes the metrics readable over JMX as "aos:type=NodeMetrics,node=<node ID>". A node registered
+            earlier with the same ID in this JVM is replaced.
+        Parameters: None
+        Returns: Nothing
+     */
+    public void registerMBean() throws Exception
+    {
+        ObjectName name = new ObjectName("aos:type=NodeMetrics,node=" + nodeID);
+        if(ManagementFactory.getPlatformMBeanServer().isRegistered(name))
+        {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        }
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+    }
+
+    /*
+        Method: channelsUp
+        Description: Records how long the node took from its start until the channels to all neighbors were up.
+        Parameters: Long time in nanoseconds.
+        Returns: Nothing
+     */
+    public void channelsUp(long nanos)
+    {
+        timeToFirstRound = nanos;
+    }
+
+    /*
+        Method: roundStarted
+        Description: Called when the node enters a round - starts timing the round's JFR event.
+        Parameters: Integer round number.
+        Returns: Nothing
+     */
+    public void roundStarted(int round)
+    {
+        roundEvent = new RoundEvent();
+        roundEvent.nodeID = nodeID;
+        roundEvent.round = round;
+        roundEvent.begin();
+    }
+
+    /*
+        Method: roundCompleted
+        Description: Records a completed round and commits its JFR event.
+        Parameters: Integer round number, long round duration and long neighbor wait time in nanoseconds, and long
+            bytes sent and received in the round.
+        Returns: Nothing
+     */
+    public void roundCompleted(int round, long roundNanos, long waitNanos, long bytesSent, long bytesReceived)
+    {
+        roundTime.record(roundNanos);
+        neighborWait.record(waitNanos);
+        roundsCompleted = round + 1;
+
+        if(roundEvent != null)
+        {
+            roundEvent.end();
+            if(roundEvent.shouldCommit())
+            {
+                roundEvent.neighborWait = waitNanos;
+                roundEvent.bytesSent = bytesSent;
+                roundEvent.bytesReceived = bytesReceived;
+                roundEvent.commit();
+            }
+            roundEvent = null;
+        }
+    }
+
+    /*
+        Method: messageEncoded
+        Description: Records a message encoded to be sent to a neighbor. Called by the channel threads.
+        Parameters: Integer destination node ID, integer encoded size in bytes and long time to encode in nanoseconds.
+        Returns: Nothing
+     */
+    public void messageEncoded(int destNodeID, int bytes, long nanos)
+    {
+        serializationTime.record(nanos);
+        int port = nodeInfo.getPort(destNodeID);
+        if(port >= 0)
+        {
+            channels[port].messagesSent.increment();
+            channels[port].bytesSent.add(bytes);
+        }
+    }
+
+    /*
+        Method: messageReceived
+        Description: Records a message received from a neighbor once it is processed.
+        Parameters: Integer port of the source neighbor and integer size of the message in bytes.
+        Returns: Nothing
+     */
+    public void messageReceived(int port, int bytes)
+    {
+        channels[port].messagesReceived.increment();
+        channels[port].bytesReceived.add(bytes);
+    }
+
+    /*
+        Method: messageBuffered
+        Description: Records a message buffered for a future round.
+        Parameters: None
+        Returns: Nothing
+     */
+    public void messageBuffered()
+    {
+        bufferedMessages.increment();
+        pendingBufferedMessages.increment();
+    }
+
+    /*
+        Method: bufferedMessageProcessed
+        Description: Records a buffered message processed once the node reached its round.
+        Parameters: None
+        Returns: Nothing
+     */
+    public void bufferedMessageProcessed()
+    {
+        pendingBufferedMessages.decrement();
+    }
+
+    /*
+        Method: writeSummary
+        Description: Writes all metrics of the node to a file, i.e. when the node terminates.
+        Parameters: File to write.
+        Returns: Nothing
+     */
+    public void writeSummary(File file) throws IOException
+    {
+        PrintWriter output = new PrintWriter(file);
+        output.println("Node " + nodeID);
+        output.println("Time to first round: " + getTimeToFirstRoundMillis() + " ms (" + channels.length + " channels)");
+        output.println("Rounds completed: " + roundsCompleted);
+        output.println("Round time: " + roundTime.toString(1000, "us"));
+        output.println("Neighbor wait: " + neighborWait.toString(1000, "us"));
+        output.println("Serialization time: " + serializationTime.toString(1, "ns"));
+        output.println("Messages sent: " + getMessagesSent() + ", bytes sent: " + getBytesSent());
+        output.println("Messages received: " + getMessagesReceived() + ", bytes received: " + getBytesReceived());
+        output.println("Buffered future round messages: " + getBufferedMessages());
+        output.println("Channels:");
+        for(String line : getChannelSummary())
+        {
+            output.println("    " + line);
+        }
+        output.close();
+    }
+
+    @Override
+    public int getNodeID()
+    {
+        return nodeID;
+    }
+
+    @Override
+    public long getTimeToFirstRoundMillis()
+    {
+        return timeToFirstRound / 1000000;
+    }
+
+    @Override
+    public int getRoundsCompleted()
+    {
+        return roundsCompleted;
+    }
+
+    @Override
+    public long getRoundTimeMeanMicros()
+    {
+        return roundTime.getMean() / 1000;
+    }
+
+    @Override
+    public long getRoundTimeP99Micros()
+    {
+        return roundTime.getPercentile(99) / 1000;
+    }
+
+    @Override
+    public long getRoundTimeMaxMicros()
+    {
+        return roundTime.getMax() / 1000;
+    }
+
+    @Override
+    public long getNeighborWaitMeanMicros()
+    {
+        return neighborWait.getMean() / 1000;
+    }
+
+    @Override
+    public long getNeighborWaitP99Micros()
+    {
+        return neighborWait.getPercentile(99) / 1000;
+    }
+
+    @Override
+    public long getSerializationMeanNanos()
+    {
+        return serializationTime.getMean();
+    }
+
+    @Override
+    public long getSerializationP99Nanos()
+    {
+        return serializationTime.getPercentile(99);
+    }
+
+    @Override
+    public long getMessagesSent()
+    {
+        long total = 0;
+        for(ChannelCounters counters : channels)
+        {
+            total += counters.messagesSent.sum();
+        }
+        return total;
+    }
+
+    @Override
+    public long getBytesSent()
+    {
+        long total = 0;
+        for(ChannelCounters counters : channels)
+        {
+            total += counters.bytesSent.sum();
+        }
+        return total;
+    }
+
+    @Override
+    public long getMessagesReceived()
+    {
+        long total = 0;
+        for(ChannelCounters counters : channels)
+        {
+            total += counters.messagesReceived.sum();
+        }
+        return total;
+    }
+
+    @Override
+    public long getBytesReceived()
+    {
+        long total = 0;
+        for(ChannelCounters counters : channels)
+        {
+            total += counters.bytesReceived.sum();
+        }
+        return total;
+    }
+
+    @Override
+    public long getBufferedMessages()
+    {
+        return bufferedMessages.sum();
+    }
+
+    @Override
+    public long getPendingBufferedMessages()
+    {
+        return pendingBufferedMessages.sum();
+    }
+
+    @Override
+    public String[] getChannelSummary()
+    {
+        // One line per port, in the order the config file lists the neighbors.
+        String[] lines = new String[channels.length];
+        for(int port = 0; port < channels.length; port++)
+        {
+            ChannelCounters counters = channels[port];
+            lines[port] = "Neighbor " + nodeInfo.getNeighbor(port) + ": sent " + counters.messagesSent.sum() +
+                    " messages (" + counters.bytesSent.sum() + " bytes), received " +
+                    counters.messagesReceived.sum() + " messages (" + counters.bytesReceived.sum() + " bytes)";
+        }
+        return lines;
+    }
+
+}
@@ -0,0 +1,41 @@
+// JMX interface of NodeMetrics - the attributes a JMX client (i.e. jconsole) shows for each node under
+// "aos:type=NodeMetrics,node=<node ID>". Times are in microseconds unless the name says otherwise.
+public interface NodeMetricsMBean {
+
+    int getNodeID();
+
+    // Time from the node's start until the channels to all neighbors were up and round 0 started.
+    long getTimeToFirstRoundMillis();
+
+    int getRoundsCompleted();
+
+    long getRoundTimeMeanMicros();
+
+    long getRoundTimeP99Micros();
+
+    long getRoundTimeMaxMicros();
+
+    long getNeighborWaitMeanMicros();
+
+    long getNeighborWaitP99Micros();
+
+    long getSerializationMeanNanos();
+
+    long getSerializationP99Nanos();
+
+    long getMessagesSent();
+
+    long getBytesSent();
+
+    long getMessagesReceived();
+
+    long getBytesReceived();
+
+    long getBufferedMessages();
+
+    long getPendingBufferedMessages();
+
+    // One line per channel with the messages and bytes sent to and received from the neighbor.
+    String[] getChannelSummary();
+
+}
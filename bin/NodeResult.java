@@ -0,0 +1,199 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// This class holds the result of a node once it has terminated - its k-hop neighbors and eccentricity, and the
+// result lines of the node's other algorithms - so it can be written by the ResultSink after the node's lock is
+// released. The result is written as text (config-<node ID>.txt, the same output as before) and/or in a compact
+// binary record (result-<node ID>.bin, see RunOptions) that ResultMerger combines into one indexed file.
+// Record layout (all integers are unsigned varints, see MessageCodec):
+//      byte        format version (FORMAT_VERSION)
+//      varint      node ID
+//      varint      max number of hops (n-1)
+//      varint      eccentricity e, followed by the e non-empty k-hop levels: for each level its size and its
+//                  node IDs sorted, each stored as the difference to the previous one
+//      varint      number of result lines of the other algorithms, followed by each line: length and UTF-8 bytes
+public class NodeResult {
+
+    // Version of the binary record - increment when the layout above changes.
+    static final byte FORMAT_VERSION = 1;
+
+    // Node the result belongs to.
+    final int nodeID;
+    // Max number of hops (number of k-hop lines in the text output).
+    final int maxHop;
+    // Node IDs of the k-hop levels 1 to eccentricity in discovery order (sorted in a decoded record).
+    final int[][] levels;
+    // Result lines of the node's other algorithms.
+    final ArrayList<String> lines;
+    // Metrics and log of the node - null in a decoded record.
+    final NodeMetrics metrics;
+    final Log log;
+
+    // Constructor
+    public NodeResult(int nodeID, int maxHop, int[][] levels, ArrayList<String> lines, NodeMetrics metrics, Log log)
+    {
+        this.nodeID = nodeID;
+        this.maxHop = maxHop;
+        this.levels = levels;
+        this.lines = lines;
+        this.metrics = metrics;
+        this.log = log;
+    }
+
+    /*
+        Method: getEccentricity
+        Description: Returns the eccentricity of the node - the number of its non-empty k-hop levels.
+        Parameters: None
+        Returns: Integer eccentricity.
+     */
+    public int getEccentricity()
+    {
+        return levels.length;
+    }
+
+    /*
+        Method: toText
+        Description: Formats the result the way it is written to config-<node ID>.txt - the node, its k-hop
+            neighbors, its eccentricity and the lines of the other algorithms.
+        Parameters: None
+        Returns: List of output lines.
+     */
+    public ArrayList<String> toText()
+    {
+        ArrayList<String> text = new ArrayList<>(maxHop + 2 + lines.size());
+        text.add("Node " + nodeID);
+        for(int i = 0; i < maxHop; i++)
+        {
+            text.add(i + 1 + "-hop neighbors --> " + (i < levels.length ? Arrays.toString(levels[i]) : "[]"));
+        }
+        text.add("Eccentricity: " + levels.length);
+        text.addAll(lines);
+        return text;
+    }
+
+    /*
+        Method: writeText
+        Description: Writes the text output of the node to a file.
+        Parameters: File to write.
+        Returns: Nothing
+     */
+    public void writeText(File file) throws IOException
+    {
+        try(Writer output = new BufferedWriter(new FileWriter(file))) {
+            for(String line : toText())
+            {
+                output.write(line + "\n");
+            }
+        }
+    }
+
+    /*
+        Method: encode
+        Description: Encodes the result as a binary record.
+        Parameters: None
+        Returns: ByteBuffer holding the record, ready for reading.
+     */
+    public ByteBuffer encode()
+    {
+        // Sort each level so its node IDs can be stored as small differences.
+        int[][] sorted = new int[levels.length][];
+        int size = 1 + MessageCodec.varIntSize(nodeID) + MessageCodec.varIntSize(maxHop) +
+                MessageCodec.varIntSize(levels.length);
+        for(int i = 0; i < levels.length; i++)
+        {
+            sorted[i] = levels[i].clone();
+            Arrays.sort(sorted[i]);
+            size += MessageCodec.varIntSize(sorted[i].length);
+            int previous = 0;
+            for(int id : sorted[i])
+            {
+                size += MessageCodec.varIntSize(id - previous);
+                previous = id;
+            }
+        }
+        byte[][] text = new byte[lines.size()][];
+        size += MessageCodec.varIntSize(text.length);
+        for(int i = 0; i < text.length; i++)
+        {
+            text[i] = lines.get(i).getBytes(StandardCharsets.UTF_8);
+            size += MessageCodec.varIntSize(text[i].length) + text[i].length;
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate(size);
+        buf.put(FORMAT_VERSION);
+        MessageCodec.putVarInt(buf, nodeID);
+        MessageCodec.putVarInt(buf, maxHop);
+        MessageCodec.putVarInt(buf, sorted.length);
+        for(int[] level : sorted)
+        {
+            MessageCodec.putVarInt(buf, level.length);
+            int previous = 0;
+            for(int id : level)
+            {
+                MessageCodec.putVarInt(buf, id - previous);
+                previous = id;
+            }
+        }
+        MessageCodec.putVarInt(buf, text.length);
+        for(byte[] line : text)
+        {
+            MessageCodec.putVarInt(buf, line.length);
+            buf.put(line);
+        }
+        buf.flip();
+        return buf;
+    }
+
+    /*
+        Method: decode
+        Description: Reads a binary record starting at the buffer's position and moves the position past it.
+        Parameters: ByteBuffer holding the record.
+        Returns: The decoded result (without metrics and log).
+     */
+    public static NodeResult decode(ByteBuffer buf) throws IOException
+    {
+        try {
+            byte version = buf.get();
+            if(version != FORMAT_VERSION)
+            {
+                throw new IOException("Unsupported result format version " + version + ".");
+            }
+
+            int nodeID = MessageCodec.getVarInt(buf);
+            int maxHop = MessageCodec.getVarInt(buf);
+            int[][] levels = new int[MessageCodec.getVarInt(buf)][];
+            for(int i = 0; i < levels.length; i++)
+            {
+                levels[i] = new int[MessageCodec.getVarInt(buf)];
+                int previous = 0;
+                for(int j = 0; j < levels[i].length; j++)
+                {
+                    previous += MessageCodec.getVarInt(buf);
+                    levels[i][j] = previous;
+                }
+            }
+            int numOfLines = MessageCodec.getVarInt(buf);
+            ArrayList<String> lines = new ArrayList<>(numOfLines);
+            for(int i = 0; i < numOfLines; i++)
+            {
+                byte[] line = new byte[MessageCodec.getVarInt(buf)];
+                buf.get(line);
+                lines.add(new String(line, StandardCharsets.UTF_8));
+            }
+            return new NodeResult(nodeID, maxHop, levels, lines, null, null);
+        }
+        catch(BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e)
+        {
+            throw new IOException("Result record is corrupted.", e);
+        }
+    }
+
+}
@@ -0,0 +1,190 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+// This program combines the binary result records of all nodes (result-<node ID>.bin, written with
+// -Doutput.format=binary or both) into one indexed file, so the results of a large run can be loaded for analysis
+// without reading n files. File layout:
+//      byte        format version (NodeResult.FORMAT_VERSION)
+//      int         number of nodes n
+//      long[n+1]   start of each node's record relative to the end of the index (the last entry is the size of
+//                  all records) - a node without a record has an empty one
+//      bytes       records of nodes 0 to n-1 (the content of their result-<node ID>.bin files)
+// The records are copied as they are, and loading reads the index once and decodes the records one after the
+// other, so merging and loading take O(n) plus the size of the records. The index also gives any node's record
+// without reading the others.
+// Usage: java ResultMerger [output folder] [merged file] (defaults: RunOptions.outputDir and results.bin in it)
+public class ResultMerger {
+
+    public static void main(String[] args)
+    {
+        try
+        {
+            Path dir = Paths.get(args.length > 0 ? args[0] : RunOptions.outputDir);
+            Path merged = args.length > 1 ? Paths.get(args[1]) : dir.resolve("results.bin");
+
+            long startTime = System.nanoTime();
+            int numOfRecords = merge(dir, merged);
+            long mergeTime = System.nanoTime() - startTime;
+
+            // Load the merged file back and sum up the eccentricities.
+            startTime = System.nanoTime();
+            NodeResult[] results = load(merged);
+            long loadTime = System.nanoTime() - startTime;
+
+            int diameter = 0;
+            int radius = Integer.MAX_VALUE;
+            for(NodeResult result : results)
+            {
+                if(result != null)
+                {
+                    diameter = Math.max(diameter, result.getEccentricity());
+                    radius = Math.min(radius, result.getEccentricity());
+                }
+            }
+
+            System.out.println("MERGED: " + numOfRecords + " of " + results.length + " node results into " + merged +
+                    " (" + Files.size(merged) + " bytes) in " + mergeTime / 1000000 + " ms, loaded in " +
+                    loadTime / 1000000 + " ms");
+            if(numOfRecords > 0)
+            {
+                System.out.println("Diameter: " + diameter + ", radius: " + radius);
+            }
+        }
+        catch(Exception e)
+        {
+            System.out.println("Error occurred.");
+            e.printStackTrace();
+        }
+    }
+
+    /*
+        Method: merge
+        Description: Combines the result records in a folder into one indexed file.
+        Parameters: Path of the folder holding the result-<node ID>.bin files and path of the merged file.
+        Returns: Integer number of records merged.
+     */
+    public static int merge(Path dir, Path merged) throws IOException
+    {
+        // Find the records - the largest node ID gives the number of nodes.
+        ArrayList<Integer> nodeIDs = new ArrayList<>();
+        int numOfNodes = 0;
+        try(DirectoryStream<Path> files = Files.newDirectoryStream(dir, "result-*.bin")) {
+            for(Path file : files)
+            {
+                int nodeID = parseNodeID(file.getFileName().toString());
+                if(nodeID >= 0)
+                {
+                    nodeIDs.add(nodeID);
+                    numOfNodes = Math.max(numOfNodes, nodeID + 1);
+                }
+            }
+        }
+
+        // Index of the records by node ID.
+        long[] sizes = new long[numOfNodes];
+        for(int nodeID : nodeIDs)
+        {
+            sizes[nodeID] = Files.size(dir.resolve("result-" + nodeID + ".bin"));
+        }
+        long[] offsets = new long[numOfNodes + 1];
+        for(int nodeID = 0; nodeID < numOfNodes; nodeID++)
+        {
+            offsets[nodeID + 1] = offsets[nodeID] + sizes[nodeID];
+        }
+
+        try(DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(merged.toFile()), 1 << 16))) {
+            output.writeByte(NodeResult.FORMAT_VERSION);
+            output.writeInt(numOfNodes);
+            for(long offset : offsets)
+            {
+                output.writeLong(offset);
+            }
+            for(int nodeID = 0; nodeID < numOfNodes; nodeID++)
+            {
+                if(sizes[nodeID] > 0)
+                {
+                    byte[] record = Files.readAllBytes(dir.resolve("result-" + nodeID + ".bin"));
+                    if(record[0] != NodeResult.FORMAT_VERSION)
+                    {
+                        throw new IOException("Unsupported result format version " + record[0] + " of node " +
+                                nodeID + ".");
+                    }
+                    output.write(record);
+                }
+            }
+        }
+        return nodeIDs.size();
+    }
+
+    /*
+        Method: load
+        Description: Loads every node's result from a merged file.
+        Parameters: Path of the merged file.
+        Returns: Array of results indexed by node ID (null for a node without a record).
+     */
+    public static NodeResult[] load(Path merged) throws IOException
+    {
+        try(FileChannel channel = FileChannel.open(merged, StandardOpenOption.READ)) {
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            byte version = buf.get();
+            if(version != NodeResult.FORMAT_VERSION)
+            {
+                throw new IOException("Unsupported result format version " + version + ".");
+            }
+
+            int numOfNodes = buf.getInt();
+            long[] offsets = new long[numOfNodes + 1];
+            for(int i = 0; i <= numOfNodes; i++)
+            {
+                offsets[i] = buf.getLong();
+            }
+            int recordsStart = buf.position();
+
+            NodeResult[] results = new NodeResult[numOfNodes];
+            for(int nodeID = 0; nodeID < numOfNodes; nodeID++)
+            {
+                if(offsets[nodeID + 1] > offsets[nodeID])
+                {
+                    buf.position(recordsStart + (int) offsets[nodeID]);
+                    results[nodeID] = NodeResult.decode(buf);
+                }
+            }
+            return results;
+        }
+    }
+
+    /*
+        Method: parseNodeID
+        Description: Reads the node ID from the name of a record file.
+        Parameters: String file name (result-<node ID>.bin).
+        Returns: Integer node ID, or -1 if the name does not hold one.
+     */
+    private static int parseNodeID(String name)
+    {
+        String digits = name.substring("result-".length(), name.length() - ".bin".length());
+        if(digits.isEmpty() || digits.length() > 9)
+        {
+            return -1;
+        }
+        for(int i = 0; i < digits.length(); i++)
+        {
+            if(!Character.isDigit(digits.charAt(i)))
+            {
+                return -1;
+            }
+        }
+        return Integer.parseInt(digits);
+    }
+
+}
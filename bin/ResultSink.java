@@ -0,0 +1,158 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.LinkedBlockingQueue;
+
+// This class writes the results of the nodes that terminated. A node hands its result over (submit) while it holds
+// its lock and returns right away - one background thread shared by all nodes of the JVM writes the node's output
+// (config-<node ID>.txt and/or result-<node ID>.bin, see RunOptions.outputFormat) and its metrics summary
+// (metrics-<node ID>.txt) to RunOptions.outputDir, creating the folder if it does not exist. Results still queued
+// when the JVM exits are written before it exits.
+public class ResultSink {
+
+    // Results waiting to be written.
+    private static final LinkedBlockingQueue<NodeResult> queue = new LinkedBlockingQueue<>();
+    // Number of results submitted that have not been written yet (guarded by the class lock).
+    private static int pending = 0;
+    // Background thread that writes the results (started with the first result).
+    private static Thread writerThread;
+
+    /*
+        Method: submit
+        Description: Queues the result of a node to be written by the background thread.
+        Parameters: Result of the node.
+        Returns: Nothing
+     */
+    public static void submit(NodeResult result)
+    {
+        synchronized(ResultSink.class)
+        {
+            pending++;
+            startWriter();
+        }
+        queue.add(result);
+    }
+
+    /*
+        Method: flush
+        Description: Blocks until every result submitted so far has been written, i.e. before a harness reads the
+            output files.
+        Parameters: None
+        Returns: Nothing
+     */
+    public static synchronized void flush() throws InterruptedException
+    {
+        while(pending > 0)
+        {
+            ResultSink.class.wait();
+        }
+    }
+
+    /*
+        Method: write
+        Description: Writes the output files of a node. Errors are logged to the node's log.
+        Parameters: Result of the node.
+        Returns: Nothing
+     */
+    private static void write(NodeResult result)
+    {
+        File dir = new File(RunOptions.outputDir);
+        dir.mkdirs();
+        try {
+            if(RunOptions.writeTextOutput())
+            {
+                File file = new File(dir, "config-" + result.nodeID + ".txt");
+                result.writeText(file);
+                result.log.info("Output files stored at: " + file.getAbsolutePath());
+            }
+            if(RunOptions.writeBinaryOutput())
+            {
+                writeRecord(result.encode(), new File(dir, "result-" + result.nodeID + ".bin"));
+            }
+            if(result.log.isEnabled(Log.Level.INFO))
+            {
+                for(String line : result.toText())
+                {
+                    result.log.info(line);
+                }
+            }
+            result.metrics.writeSummary(new File(dir, "metrics-" + result.nodeID + ".txt"));
+        }
+        catch(IOException | RuntimeException e)
+        {
+            result.log.error("Error in writing the output of node " + result.nodeID + " to " +
+                    dir.getAbsolutePath(), e);
+        }
+    }
+
+    /*
+        Method: writeRecord
+        Description: Writes a binary record to a file.
+        Parameters: ByteBuffer holding the record and file to write.
+        Returns: Nothing
+     */
+    private static void writeRecord(ByteBuffer record, File file) throws IOException
+    {
+        try(FileChannel channel = new FileOutputStream(file).getChannel()) {
+            while(record.hasRemaining())
+            {
+                channel.write(record);
+            }
+        }
+    }
+
+    /*
+        Method: startWriter
+        Description: Starts the background thread that writes the results, and makes sure the results still queued
+            are written when the JVM exits. Called with the class lock held.
+        Parameters: None
+        Returns: Nothing
+     */
+    private static void startWriter()
+    {
+        if(writerThread != null)
+        {
+            return;
+        }
+
+        writerThread = new Thread(() -> {
+            while(true)
+            {
+                NodeResult result;
+                try {
+                    result = queue.take();
+                }
+                catch(InterruptedException e)
+                {
+                    return;
+                }
+                try {
+                    write(result);
+                }
+                finally {
+                    synchronized(ResultSink.class)
+                    {
+                        pending--;
+                        ResultSink.class.notifyAll();
+                    }
+                }
+            }
+        }, "result-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+
+        // Wait for the background thread to write what is left - it keeps running while the JVM shuts down.
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                flush();
+            }
+            catch(InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }));
+    }
+
+}
@@ -0,0 +1,142 @@
+import java.util.ArrayDeque;
+
+// This class buffers messages that neighbors sent in future rounds until the node reaches that round.
+// Each neighbor gets a ring of "window" slots indexed by round number % window, and the rings are an array indexed
+// by the neighbor's port number (see Topology). With the alpha synchronizer a neighbor sends one message per round;
+// the beta and gamma synchronizers can also send control messages, so a slot holds the neighbor's messages for its
+// round in the order they arrived. Messages more than "window" rounds ahead of the node are not accepted - the
+// receiving thread has to wait (or stop reading) until the node catches up, which bounds how far a neighbor can
+// run ahead.
+public class RoundBuffer {
+
+    // Number of rounds a message can be ahead of the node's current round.
+    private final int window;
+    // Ring of slots for each port - slot (round % window) holds the neighbor's messages for that round.
+    // A slot's queue is created when the first message is buffered in it.
+    private final ArrayDeque<Message>[][] slots;
+
+    // Number of messages currently buffered.
+    private int occupancy = 0;
+    // Highest number of messages buffered at the same time.
+    private int highWaterMark = 0;
+    // Number of messages buffered over the whole run.
+    private long totalBuffered = 0;
+
+    // Constructor - creates the slots for each of the node's ports.
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public RoundBuffer(int window, int degree)
+    {
+        if(window < 1)
+        {
+            throw new IllegalArgumentException("Lookahead window must be at least 1 round.");
+        }
+        this.window = window;
+        slots = new ArrayDeque[degree][window];
+    }
+
+    /*
+        Method: fits
+        Description: Determines if a message for a round can be buffered while the node is at the current round.
+        Parameters: Integer current round number of the node and integer round number of the message.
+        Returns: Boolean - true if the message is no more than window rounds ahead.
+     */
+    public boolean fits(int currentRoundNumber, int roundNumber)
+    {
+        return roundNumber - currentRoundNumber <= window;
+    }
+
+    /*
+        Method: put
+        Description: Buffers a message received from a neighbor for a future round.
+        Parameters: Integer port of the neighbor and the received message.
+        Returns: Nothing
+     */
+    public void put(int port, Message msg)
+    {
+        ArrayDeque<Message>[] ring = slots[port];
+        int slot = msg.roundNumber % window;
+
+        if(ring[slot] == null)
+        {
+            ring[slot] = new ArrayDeque<>();
+        }
+        // A slot only holds messages of one round - the node takes them all when it enters that round, before a
+        // message window rounds further ahead can map to the same slot.
+        else if(!ring[slot].isEmpty() && ring[slot].peek().roundNumber != msg.roundNumber)
+        {
+            throw new IllegalStateException("Node " + msg.sourceNodeID + " sent a message for round " +
+                    msg.roundNumber + " while its messages for round " + ring[slot].peek().roundNumber +
+                    " are still buffered.");
+        }
+
+        ring[slot].add(msg);
+        occupancy++;
+        totalBuffered++;
+        highWaterMark = Math.max(highWaterMark, occupancy);
+    }
+
+    /*
+        Method: take
+        Description: Removes and returns the oldest message a neighbor sent for a round, if one has been buffered.
+            Call until it returns null to take all of the neighbor's messages for the round in order.
+        Parameters: Integer port of the neighbor and integer round number.
+        Returns: The buffered message or null if there is none.
+     */
+    public Message take(int port, int roundNumber)
+    {
+        ArrayDeque<Message> queue = slots[port][roundNumber % window];
+
+        if(queue == null || queue.isEmpty() || queue.peek().roundNumber != roundNumber)
+        {
+            return null;
+        }
+
+        occupancy--;
+        return queue.poll();
+    }
+
+    /*
+        Method: getWindow
+        Description: Returns the number of rounds a message can be ahead of the node.
+        Parameters: None
+        Returns: Integer lookahead window.
+     */
+    public int getWindow()
+    {
+        return window;
+    }
+
+    /*
+        Method: getOccupancy
+        Description: Returns the number of messages currently buffered.
+        Parameters: None
+        Returns: Integer number of buffered messages.
+     */
+    public int getOccupancy()
+    {
+        return occupancy;
+    }
+
+    /*
+        Method: getHighWaterMark
+        Description: Returns the highest number of messages buffered at the same time.
+        Parameters: None
+        Returns: Integer high-water mark.
+     */
+    public int getHighWaterMark()
+    {
+        return highWaterMark;
+    }
+
+    /*
+        Method: getTotalBuffered
+        Description: Returns the number of messages buffered over the whole run.
+        Parameters: None
+        Returns: Long number of buffered messages.
+     */
+    public long getTotalBuffered()
+    {
+        return totalBuffered;
+    }
+
+}
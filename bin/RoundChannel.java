@@ -0,0 +1,35 @@
+// Implemented by the objects that handle a node's channel to one neighbor (SCTPClient, SCTPClientHandler and the
+// reactor's channels). Once a channel is registered with the synchronizer, the synchronizer uses it to send the
+// messages it queued for the neighbor - the node's round messages and the control messages of the synchronizer
+// strategy - in the order they were queued.
+public interface RoundChannel {
+
+    /*
+        Method: getNeighborID
+        Description: Returns the node ID of the neighbor on the other end of the channel.
+        Parameters: None
+        Returns: Integer neighbor node ID.
+     */
+    int getNeighborID();
+
+    /*
+        Method: send
+        Description: Sends a message to the neighbor.
+        Parameters: Message to send.
+        Returns: Nothing
+     */
+    void send(Message msg) throws Exception;
+
+    /*
+        Method: retired
+        Description: Called once the node stops using the channel - the channel was retired or the node finished. A
+            channel whose reader waits for messages outside of the synchronizer wakes it up here, so the reader
+            sees the change and stops. Called with the node's lock held, so it must not block.
+        Parameters: None
+        Returns: Nothing
+     */
+    default void retired()
+    {
+    }
+
+}
@@ -0,0 +1,35 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+// JFR event for one round of a node, from the moment the node entered the round until it completed it. Recorded
+// when the JVM runs with Flight Recorder (i.e. "java -XX:StartFlightRecording=filename=run.jfr ..."), so round
+// boundaries line up with GC, thread and I/O events in the recording. Costs nothing measurable otherwise.
+@Name("aos.Round")
+@Label("Round")
+@Category({"AOS", "Synchronizer"})
+public class RoundEvent extends Event {
+
+    @Label("Node ID")
+    int nodeID;
+
+    @Label("Round")
+    int round;
+
+    // Time from the node's last sent message of the round until the round completed.
+    @Label("Neighbor Wait")
+    @Timespan(Timespan.NANOSECONDS)
+    long neighborWait;
+
+    @Label("Bytes Sent")
+    @DataAmount
+    long bytesSent;
+
+    @Label("Bytes Received")
+    @DataAmount
+    long bytesReceived;
+
+}
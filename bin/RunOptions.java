@@ -0,0 +1,170 @@
+// This class holds the run options for a node/process.
+// Options are read from Java system properties (i.e. "java -Dname=value ...") so that the commandline arguments
+// and config file format given by the launcher script stay the same. Options are not final so a harness running
+// nodes inside one JVM can change them before the nodes are created.
+public class RunOptions {
+
+    // Wire format used to send messages - "binary" (compact MessageCodec format) or "java" (Java serialization).
+    static String messageCodec = System.getProperty("message.codec", "binary");
+    // Payload of round messages - "frontier" (only the node IDs discovered in the previous round) or "full" (the
+    // whole k-hop neighbor history of the node).
+    static String messageMode = System.getProperty("message.mode", "frontier");
+    // When the synchronizer stops - "early" (once the algorithms of the node and of all its neighbors are done, i.e.
+    // after a number of rounds in the order of the diameter) or "fixed" (always the most rounds any of the algorithms
+    // can need, see SynchronousAlgorithm.getLastRound).
+    static String termination = System.getProperty("sync.termination", "early");
+    // Comma separated algorithms run in the same rounds (see SynchronousAlgorithm) - "eccentricity" (k-hop
+    // neighbors and eccentricity, always run first), "graphMetrics" (diameter, radius and center of the topology),
+    // "leader" (largest node ID) and "maxDegree" (largest degree).
+    static String algorithms = System.getProperty("sync.algorithms", "eccentricity,graphMetrics");
+    // How channels are handled - "threads" (one blocking thread per channel) or "reactor" (one thread multiplexes
+    // all of the node's channels with a Selector).
+    static String transportMode = System.getProperty("transport.mode", "threads");
+    // Kind of thread each channel handler of LoopbackHost's thread per channel mode runs on - "platform" or
+    // "virtual" (needs Java 21 - an older JVM fails at startup, see ThreadPerTask). SCTP channels refuse "virtual",
+    // since their receives pin the carrier thread.
+    static String channelThreads = System.getProperty("channel.threads", "platform");
+    // Number of worker threads that run the nodes hosted in one JVM by LoopbackHost (default: one per processor).
+    // With 0, each channel gets a thread of its own instead (see channel.threads), like the threads transport.
+    static int hostThreads = Integer.getInteger("host.threads", Runtime.getRuntime().availableProcessors());
+    // Number of rounds a neighbor's message can be ahead of the node and still be buffered. A receiver that reads a
+    // message further ahead stops reading from that channel until the node catches up.
+    static int lookaheadWindow = Integer.getInteger("sync.lookahead", 2);
+    // Number of SCTP streams each channel is opened with - control messages go on stream 0 and round messages on
+    // the others by round (see SCTPStreams); 0 means the lookahead window + 2. The default of 1 sends everything on
+    // stream 0, until the split has been run and measured over SCTP.
+    static int sctpStreams = Integer.getInteger("sctp.streams", 1);
+    // Synchronizer strategy - "alpha" (a message on every channel each round), "beta" (acknowledged round messages
+    // plus a convergecast and broadcast on a spanning tree) or "gamma" (beta inside clusters, alpha between them).
+    static String synchronizer = System.getProperty("sync.synchronizer", "alpha");
+    // Max number of hops between a cluster leader and the nodes of its cluster for the gamma synchronizer.
+    static int clusterRadius = Integer.getInteger("sync.clusterRadius", 2);
+    // Most detailed level written to each node's log - "trace" (every message), "debug", "info" (rounds and run
+    // statistics), "warn", "error" or "off".
+    static String logLevel = System.getProperty("log.level", "info");
+    // Folder the output of each node (config-<node ID>.txt, result-<node ID>.bin and metrics-<node ID>.txt) is
+    // written to - created if it does not exist.
+    static String outputDir = System.getProperty("output.dir", "Documents/AOS/Projects/Project1/");
+    // Format of each node's output - "text" (config-<node ID>.txt), "binary" (compact result-<node ID>.bin records
+    // that ResultMerger combines into one indexed file) or "both".
+    static String outputFormat = System.getProperty("output.format", "text");
+    // Folder the log of each node (node-<node ID>.log) is written to (the output folder unless set).
+    static String logDir = System.getProperty("log.dir", outputDir);
+    // Number of log entries a node can hold before they are written - a full buffer makes the logging thread wait.
+    static int logBufferSize = Integer.getInteger("log.bufferSize", 8192);
+    // Time in milliseconds a client waits before it tries to connect to a neighbor's server again, doubled after
+    // every failed attempt up to the max (each wait is a random time of half to all of the backoff).
+    static long connectBackoff = Long.getLong("connect.backoff", 50);
+    static long connectMaxBackoff = Long.getLong("connect.maxBackoff", 2000);
+    // Largest config file in bytes a node reads (default 1 GB).
+    static long configMaxSize = Long.getLong("config.maxSize", 1L << 30);
+    // Number of rounds between two checkpoints of a node's state (0 = no checkpoints) - written at the start of every
+    // checkpoint.interval-th round to checkpoint-<node ID>-<0|1>.bin (see Checkpoint). Needs the alpha synchronizer.
+    static int checkpointInterval = Integer.getInteger("checkpoint.interval", 0);
+    // Holds if nodes resume from their last checkpoint instead of round 0, i.e. when relaunched after a node died.
+    static boolean checkpointResume = Boolean.getBoolean("checkpoint.resume");
+    // Folder the checkpoints are written to (the output folder unless set).
+    static String checkpointDir = System.getProperty("checkpoint.dir", outputDir);
+    // Stops the JVM once a node has reached a round, to test restarts - "<node ID>:<round>" (empty = never). The
+    // JVM's process dies, not its machine - see NodeGroup.watchHalt.
+    static String checkpointHaltAt = System.getProperty("checkpoint.haltAt", "");
+
+    /*
+        Method: useJavaSerialization
+        Description: Determines if messages should be sent using Java serialization instead of the binary codec.
+        Parameters: None
+        Returns: Boolean - true if Java serialization is selected, false if the binary codec is selected.
+     */
+    public static boolean useJavaSerialization()
+    {
+        return messageCodec.equalsIgnoreCase("java");
+    }
+
+    /*
+        Method: sendFrontierOnly
+        Description: Determines if round messages should carry only the newly discovered node IDs (the frontier).
+        Parameters: None
+        Returns: Boolean - true if only the frontier is sent, false if the full k-hop history is sent.
+     */
+    public static boolean sendFrontierOnly()
+    {
+        return !messageMode.equalsIgnoreCase("full");
+    }
+
+    /*
+        Method: terminateEarly
+        Description: Determines if nodes stop as soon as their neighborhood has nothing left to discover.
+        Parameters: None
+        Returns: Boolean - true for early termination, false to always run the max number of rounds.
+     */
+    public static boolean terminateEarly()
+    {
+        return !termination.equalsIgnoreCase("fixed");
+    }
+
+    /*
+        Method: writeTextOutput
+        Description: Determines if each node writes its output as text (config-<node ID>.txt).
+        Parameters: None
+        Returns: Boolean - true for the text or both formats.
+     */
+    public static boolean writeTextOutput()
+    {
+        return !outputFormat.equalsIgnoreCase("binary");
+    }
+
+    /*
+        Method: writeBinaryOutput
+        Description: Determines if each node writes its output as a binary record (result-<node ID>.bin).
+        Parameters: None
+        Returns: Boolean - true for the binary or both formats.
+     */
+    public static boolean writeBinaryOutput()
+    {
+        return outputFormat.equalsIgnoreCase("binary") || outputFormat.equalsIgnoreCase("both");
+    }
+
+    /*
+        Method: useReactor
+        Description: Determines if the node's channels are handled by one reactor thread instead of a thread each.
+        Parameters: None
+        Returns: Boolean - true for the reactor, false for a thread per channel.
+     */
+    public static boolean useReactor()
+    {
+        return transportMode.equalsIgnoreCase("reactor");
+    }
+
+    /*
+        Method: useVirtualThreads
+        Description: Determines if channel handlers run on virtual threads instead of platform threads.
+        Parameters: None
+        Returns: Boolean - true for virtual threads.
+     */
+    public static boolean useVirtualThreads()
+    {
+        return channelThreads.equalsIgnoreCase("virtual");
+    }
+
+    /*
+        Method: haltAt
+        Description: Reads checkpoint.haltAt.
+        Parameters: None
+        Returns: Array of the node ID and the round the JVM is stopped at, or null if it is never stopped.
+     */
+    public static int[] haltAt()
+    {
+        if(checkpointHaltAt.isEmpty())
+        {
+            return null;
+        }
+        int colon = checkpointHaltAt.indexOf(':');
+        if(colon < 0)
+        {
+            throw new IllegalArgumentException("checkpoint.haltAt " + checkpointHaltAt + " is not <node ID>:<round>.");
+        }
+        return new int[]{Integer.parseInt(checkpointHaltAt.substring(0, colon).trim()),
+                Integer.parseInt(checkpointHaltAt.substring(colon + 1).trim())};
+    }
+
+}
@@ -1,9 +1,12 @@
 import com.sun.nio.sctp.*;
+import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.ThreadLocalRandom;
 
 // This object is an SCTPClient used to connect to SCTPServer.
-class SCTPClient implements Runnable
+class SCTPClient implements Runnable, RoundChannel
 {
 	// Size of ByteBuffer to accept incoming messages
 	private int MAX_MSG_SIZE = 4096;
@@ -11,9 +14,6 @@ class SCTPClient implements Runnable
 	InetSocketAddress addr;
 	// Synchronizer
 	SCTPClientServer cs;
-	// Number of rounds for a node to send/receive messages.
-	int numOfRounds = 0;
-
 	// Holds server node information
 	Node serverInfo;
 	// Holds client node information
@@ -21,14 +21,27 @@ class SCTPClient implements Runnable
 
 	// SCTP channel
 	SctpChannel sctpChannel = null;
+	// Receives messages from the server into a reused buffer, reassembling messages that arrive in parts
+	MessageAssembler assembler;
+	// Maps the messages sent to the server to the streams of the association
+	SCTPStreams streams;
+
+	// Reactor that handles the node's channels (null when each channel gets its own thread)
+	SCTPReactor reactor;
 
 	// Constructor - initialize port and hostname of server to connect to
-	public SCTPClient(SCTPClientServer cs, Node serverInfo, Node clientInfo, int numOfRounds) throws Exception
+	public SCTPClient(SCTPClientServer cs, Node serverInfo, Node clientInfo) throws Exception
+	{
+		this(cs, serverInfo, clientInfo, null);
+	}
+
+	// Constructor - initialize port and hostname of server to connect to and the reactor to hand the channel to
+	public SCTPClient(SCTPClientServer cs, Node serverInfo, Node clientInfo, SCTPReactor reactor) throws Exception
 	{
 		this.serverInfo = serverInfo;
 		this.clientInfo = clientInfo;
 		this.cs = cs;
-		this.numOfRounds = numOfRounds;
+		this.reactor = reactor;
 	}
 
 	/*
@@ -40,31 +53,39 @@ class SCTPClient implements Runnable
 	@Override
 	 public void run()
 	 {
-	 	// Start at round 0.
-	 	int roundNumber = 0;
 		// Get address of server using name and port number.
 		addr = new InetSocketAddress(serverInfo.hostName, serverInfo.listeningPort);
 
-		// Try to connect to server
+		// Try to connect to server right away. Each client of the node runs in its own thread, so all neighbors are
+		// connected to in parallel.
 
-		// Loops until connection is made.
+		// Loops until connection is made. After each failed attempt (i.e. the server is not up yet) the client waits
+		// a random time of half to all of the backoff, which doubles up to the max (see RunOptions) - so clients of
+		// the same server do not retry in lockstep.
 		boolean connected = false;
+		long backoff = RunOptions.connectBackoff;
+		int attempts = 0;
+		long startTime = System.nanoTime();
 
 		while(!connected) {
 
 			try {
-				Thread.sleep(3000);
-
+				attempts++;
 				// Open SCTP channel to connect to server using the address
-				sctpChannel = SctpChannel.open(addr, 0, 0);
-				System.out.println("CHANNEL: Client connected to server " + serverInfo.hostName + " of node " + serverInfo.nodeID);
+				// with as many outbound and inbound streams as configured (see SCTPStreams).
+				sctpChannel = SctpChannel.open(addr, SCTPStreams.configured(), SCTPStreams.configured());
+				cs.getLog().info("CHANNEL: Client connected to server " + serverInfo.hostName + " of node " +
+						serverInfo.nodeID + " after " + attempts + " attempts in " +
+						(System.nanoTime() - startTime) / 1000000 + " ms");
 				connected = true;
 			} catch (Exception e) {
-				System.out.println("Server is offline..Attempting to reconnect.");
-				e.printStackTrace();
+				long delay = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+				cs.getLog().debug("Server of node " + serverInfo.nodeID + " is offline..Attempting to reconnect in " +
+						delay + " ms.");
+				backoff = Math.min(backoff * 2, RunOptions.connectMaxBackoff);
 
 				try {
-					Thread.sleep(500);
+					Thread.sleep(delay);
 				} catch (InterruptedException e1) {
 					e1.printStackTrace();
 				}
@@ -72,84 +93,119 @@ class SCTPClient implements Runnable
 		}
 
 		try {
+			// Streams the server agreed to.
+			streams = SCTPStreams.of(sctpChannel);
 
 			// Initial message exchange between client and server:
 
 			// Send message to give server the client node information.
-			// MessageInfo for SCTP layer
-			MessageInfo messageInfo = MessageInfo.createOutgoing(null, 0);
+			// MessageInfo for SCTP layer - the handshake is a control message.
+			MessageInfo messageInfo = MessageInfo.createOutgoing(null, SCTPStreams.CONTROL);
 			Message msg = new Message("Sending client info to server node " + serverInfo.nodeID,
 					clientInfo.nodeID);
+			msg.msgType = MessageType.handshake;
+			// Restart protocol - tell the server the round this node resumed from (0 unless restarted).
+			msg.roundNumber = cs.getResumedRound();
 			// Messages are sent over SCTP using ByteBuffer
 			sctpChannel.send(msg.toByteBuffer(), messageInfo);
-			System.out.println("INITIAL MSG SENT: " + msg.message);
+			cs.getLog().info("INITIAL MSG SENT: " + msg.message);
+
+			// Receive ACK message from server. The server starts sending its round messages right after the ACK,
+			// on other streams than the ACK, and SCTP does not order messages across streams - a round message can
+			// arrive first. Those are kept and delivered once the channel is registered.
+			assembler = new MessageAssembler(cs.getBufferPool(), MAX_MSG_SIZE);
+			ArrayDeque<Message> earlyMessages = new ArrayDeque<>();
+			Message ack;
+			while((ack = assembler.receive(sctpChannel)) != null && ack.msgType != MessageType.handshake)
+			{
+				earlyMessages.add(ack);
+			}
+			if(ack == null)
+			{
+				throw new IOException("Server of node " + serverInfo.nodeID + " closed the channel before its ACK.");
+			}
+			// The ACK carries the round the server resumed from - replay what it missed before registering.
+			cs.neighborResumed(serverInfo.nodeID, ack.roundNumber);
 
-			// Buffer to hold ACK message from server.
-			ByteBuffer buf = ByteBuffer.allocateDirect(MAX_MSG_SIZE);
-			// Messages are received over SCTP from client using ByteBuffer
-			sctpChannel.receive(buf, null, null);
+			// With a reactor, hand the channel to the reactor - this thread is done.
+			if(reactor != null)
+			{
+				reactor.register(cs, sctpChannel, serverInfo.nodeID, assembler, earlyMessages);
+				return;
+			}
 
-			// For each round, the client on this channel will send a message and receive a message from the server.
-			// Loops until the node's current round number equals the number of rounds it is supposed to go.
-			while(cs.getCurrentRoundNumber() < numOfRounds)
+			// Register with the synchronizer - from now on it sends the client node's round messages to the server
+			// on this channel, starting with the current round.
+			cs.registerChannel(this);
+
+			// Messages that arrived before the ACK come first.
+			for(Message earlyMessage : earlyMessages)
 			{
-				// If the local client's round number equals the node's current round number.
-				if(roundNumber == cs.getCurrentRoundNumber()) {
-					// If the local client's round number has reached the max number of rounds, then stop looping.
-					if(roundNumber == numOfRounds)
-					{
-						break;
-					}
-
-					// Send message to server.
-					send();
-					// Update synchronizer that message was sent to the server node.
-					cs.messageSent(serverInfo.nodeID);
-
-					// Receive message from server.
-					Message receivedMessage = receive();
-					System.out.println("MSG RECEIVED: " + receivedMessage.message);
-
-					// Update synchronizer that message was received from the server node.
-					cs.messageReceived(serverInfo.nodeID, receivedMessage);
-
-					// Increment local client's round number - client sends and receives one message with server per round.
-					roundNumber++;
+				cs.deliver(serverInfo.nodeID, earlyMessage);
+			}
+
+			// This thread keeps reading messages from the server and hands them to the synchronizer, which processes
+			// or buffers them. Loops until the node has terminated or the channel to the server was retired because
+			// both nodes have nothing left to discover.
+			while(!cs.isFinished() && cs.isChannelActive(serverInfo.nodeID))
+			{
+				// Receive message from server.
+				Message receivedMessage = receive();
+				if(receivedMessage == null)
+				{
+					break;
 				}
 
+				// Update synchronizer that message was received from the server node.
+				cs.deliver(serverInfo.nodeID, receivedMessage);
 			}
 
+			cs.getLog().info("CHANNEL DONE: Channel to node " + serverInfo.nodeID + " used " +
+					SCTPClientServer.getThreadCpuTime() / 1000000 + " ms of CPU");
+
 		}
 		catch (Exception e) {
-			e.printStackTrace();
+			cs.getLog().error("Error in channel to node " + serverInfo.nodeID + ".", e);
 
 		}
 	}
 
 	/*
-		Method: send
-		Description: Sends message to the server node.
+		Method: getNeighborID
+		Description: Returns the server node ID - the neighbor on the other end of this channel.
 		Parameters: None
+		Returns: Integer server node ID.
+	 */
+	@Override
+	public int getNeighborID()
+	{
+		return serverInfo.nodeID;
+	}
+
+	/*
+		Method: send
+		Description: Called by the synchronizer to send a message queued for the server node, i.e. the client
+			node's round message, which includes the client node's current round number, the client node ID,
+			server node ID, and the k-hop neighbors of the client node.
+		Parameters: Message to send.
 		Returns: Nothing
 	 */
-	public void send()
+	@Override
+	public void send(Message msg)
 	{
 		try {
-			// MessageInfo for SCTP layer.
-			MessageInfo messageInfo = MessageInfo.createOutgoing(null, 0);
-			// Message to send to server. Message includes the client node's current round number, the client node ID,
-			// server node ID, and the k-hop neighbors of the client node.
-			Message msg = new Message("Message from node " + clientInfo.nodeID + " at round " +
-					cs.getCurrentRoundNumber() + " to dest node " + serverInfo.nodeID,
-					cs.getCurrentRoundNumber(), clientInfo.nodeID, serverInfo.nodeID, cs.getKHopNeighbors());
-			// Messages are sent over SCTP using ByteBuffer
-			sctpChannel.send(msg.toByteBuffer(), messageInfo);
-			System.out.println("MSG SENT: " + msg.message);
+			// MessageInfo for SCTP layer - sends the message on the stream of its kind and round.
+			MessageInfo messageInfo = streams.outgoing(msg);
+			ByteBuffer buf = cs.encode(msg);
+			// Messages are sent over SCTP using ByteBuffer - the blocking send copies the message, so the buffer
+			// can go back to the pool right away.
+			sctpChannel.send(buf, messageInfo);
+			cs.getBufferPool().release(buf);
+			cs.getLog().trace("MSG SENT: ", msg);
 		}
 		catch(Exception e)
 		{
-			System.out.println("Error in sending message.");
-			e.printStackTrace();
+			cs.getLog().error("Error in sending message.", e);
 		}
 	}
 
@@ -162,18 +218,12 @@ class SCTPClient implements Runnable
 	public Message receive()
 	{
 		try {
-			// Buffer to hold message from client.
-			ByteBuffer buf = ByteBuffer.allocateDirect(MAX_MSG_SIZE);
-			// Messages are received over SCTP from client using ByteBuffer
-			sctpChannel.receive(buf, null, null);
-
-			// Return the message received.
-			return Message.fromByteBuffer(buf);
+			// Return the message received (null if the server closed the channel).
+			return assembler.receive(sctpChannel);
 		}
 		catch(Exception e)
 		{
-			System.out.println("Error in receiving message.");
-			e.printStackTrace();
+			cs.getLog().error("Error in receiving message.", e);
 		}
 
 		return null;
@@ -4,7 +4,7 @@ import com.sun.nio.sctp.SctpChannel;
 import java.nio.ByteBuffer;
 
 // ClientHandler class to manage SCTPServer connection to a SCTPClient.
-class SCTPClientHandler implements Runnable
+class SCTPClientHandler implements Runnable, RoundChannel
 {
     // Size of ByteBuffer to accept incoming messages
     private int MAX_MSG_SIZE = 4096;
@@ -14,21 +14,22 @@ class SCTPClientHandler implements Runnable
 
     // SCTP channel
     SctpChannel sctpChannel;
+    // Receives messages from the client into a reused buffer, reassembling messages that arrive in parts
+    MessageAssembler assembler;
+    // Maps the messages sent to the client to the streams of the association
+    SCTPStreams streams;
     // Holds client node ID
     int clientNodeID;
     // Holds server node information
     Node serverInfo;
 
-    // Holds number of rounds for a node to send/receive messages
-    int numOfRounds = 0;
-
     // Constructor
-    public SCTPClientHandler(SCTPClientServer cs, SctpChannel sctpChannel, Node serverInfo, int numOfRounds)
+    public SCTPClientHandler(SCTPClientServer cs, SctpChannel sctpChannel, Node serverInfo)
     {
         this.cs = cs;
         this.sctpChannel = sctpChannel;
         this.serverInfo = serverInfo;
-        this.numOfRounds = numOfRounds;
+        assembler = new MessageAssembler(cs.getBufferPool(), MAX_MSG_SIZE);
     }
 
     /*
@@ -41,102 +42,106 @@ class SCTPClientHandler implements Runnable
     public void run()
     {
         try {
-            // Start at round 0
-            int roundNumber = 0;
-
-            // Handle initial message exchange between client and server:
-
-            // Buffer to hold message from client.
-            ByteBuffer buf = ByteBuffer.allocateDirect(MAX_MSG_SIZE);
-            // Messages are received over SCTP from client using ByteBuffer
-            sctpChannel.receive(buf, null, null);
-            // Store client information.
-            clientNodeID = Message.fromByteBuffer(buf).sourceNodeID;
-
-            System.out.println("INITIAL MSG RECEIVED: Client node is " + clientNodeID);
-
-            // Send back acknowledgement that initial message was received.
-            // MessageInfo for SCTP layer
-            MessageInfo messageInfo = MessageInfo.createOutgoing(null, 0);
-            Message msg = new Message("ACK");
-            // Messages are sent over SCTP using ByteBuffer
-            sctpChannel.send(msg.toByteBuffer(), messageInfo);
-
-            // For each round, the server on this channel will receive and send a message with the client.
-            // Loops until the node's current round number equals the number of rounds it is supposed to go.
-            while(cs.getCurrentRoundNumber() < numOfRounds)
+            // Handle initial message exchange between client and server.
+            handshake();
+
+            // Register with the synchronizer - from now on it sends the server node's round messages to the client
+            // on this channel, starting with the current round.
+            cs.registerChannel(this);
+
+            // This thread keeps reading messages from the client and hands them to the synchronizer, which processes
+            // or buffers them. Loops until the node has terminated or the channel to the client was retired because
+            // both nodes have nothing left to discover.
+            while(!cs.isFinished() && cs.isChannelActive(clientNodeID))
             {
-                // If the local server's round number or previous round number equals the node's current round number.
-                // The roundNumber - 1 allows to accept message from client from "future" round (that will be buffered until
-                // server's node reaches that round).
-                if(roundNumber == cs.getCurrentRoundNumber() || roundNumber - 1 == cs.getCurrentRoundNumber()) {
-
-                    // If the local server's round number has reached the max number of rounds, then stop looping.
-                    if(roundNumber == numOfRounds)
-                    {
-                        break;
-                    }
-                    // Receive message from client.
-                    Message receivedMessage = receive();
-                    // If server's local round number is greater than the server node's current round number
-                    if(receivedMessage.roundNumber > cs.getCurrentRoundNumber())
-                    {
-                        // Server received a "future" message so updates synchronizer to buffer this message.
-                        cs.bufferMessage();
-                        System.out.println("BUFFERED MSG RECEIVED: " + receivedMessage.message);
-                    }
-                    // Otherwise, message is for the current round.
-                    else
-                    {
-                        System.out.println("MSG RECEIVED: " + receivedMessage.message);
-                    }
-                    // Update synchronizer that message was received from client.
-                    cs.messageReceived(clientNodeID, receivedMessage);
-
-                    // If server's local round number is same as server node's current round number
-                    if(roundNumber == cs.getCurrentRoundNumber()) {
-                        // Send message to client.
-                        send();
-                        // Update syncrhonizer that message sent to client.
-                        cs.messageSent(clientNodeID);
-                        // Increment local server's round number - server sends and receives one message with client per round.
-                        roundNumber++;
-                    }
+                // Receive message from client.
+                Message receivedMessage = receive();
+                if(receivedMessage == null)
+                {
+                    break;
                 }
 
+                // Update synchronizer that message was received from client.
+                cs.deliver(clientNodeID, receivedMessage);
             }
 
+            cs.getLog().info("CHANNEL DONE: Channel to node " + clientNodeID + " used " +
+                    SCTPClientServer.getThreadCpuTime() / 1000000 + " ms of CPU");
 
         } catch (Exception e) {
-            e.printStackTrace();
+            cs.getLog().error("Error in channel to node " + clientNodeID + ".", e);
         }
 
     }
 
     /*
-        Method: send
-        Description: Sends message to the client node.
+        Method: handshake
+        Description: Handles the initial message exchange with the client - receives the client node information
+            and sends back an acknowledgement. Both carry the round the node resumed from after a restart.
+        Parameters: None
+        Returns: Integer client node ID.
+     */
+    public int handshake() throws Exception
+    {
+        // Receive message from client and store client information.
+        Message hello = assembler.receive(sctpChannel);
+        clientNodeID = hello.sourceNodeID;
+        // Streams the client agreed to.
+        streams = SCTPStreams.of(sctpChannel);
+
+        cs.getLog().info("INITIAL MSG RECEIVED: Client node is " + clientNodeID);
+
+        // Restart protocol - the client tells the round it resumed from (0 unless restarted from a checkpoint).
+        cs.neighborResumed(clientNodeID, hello.roundNumber);
+
+        // Send back acknowledgement that initial message was received, with the round this node resumed from.
+        // MessageInfo for SCTP layer - the acknowledgement is a control message.
+        MessageInfo messageInfo = MessageInfo.createOutgoing(null, SCTPStreams.CONTROL);
+        Message msg = new Message("ACK");
+        msg.msgType = MessageType.handshake;
+        msg.roundNumber = cs.getResumedRound();
+        // Messages are sent over SCTP using ByteBuffer
+        sctpChannel.send(msg.toByteBuffer(), messageInfo);
+
+        return clientNodeID;
+    }
+
+    /*
+        Method: getNeighborID
+        Description: Returns the client node ID - the neighbor on the other end of this channel.
         Parameters: None
+        Returns: Integer client node ID.
+     */
+    @Override
+    public int getNeighborID()
+    {
+        return clientNodeID;
+    }
+
+    /*
+        Method: send
+        Description: Called by the synchronizer to send a message queued for the client node, i.e. the server node's
+            round message, which includes the server node's current round number, the server node ID, client node
+            ID, and the k-hop neighbors of the server node.
+        Parameters: Message to send.
         Returns: Nothing
     */
-    public void send()
+    @Override
+    public void send(Message msg)
     {
         try {
-            // MessageInfo for SCTP layer
-            MessageInfo messageInfo = MessageInfo.createOutgoing(null, 0);
-            // Message to send to client. Message includes the server node's current round number, the server node ID,
-            // client node ID, and the k-hop neighbors of the server node.
-            Message msg = new Message("Message from node " + serverInfo.nodeID + " at round " +
-                    cs.getCurrentRoundNumber() + " to dest node " + clientNodeID,
-                    cs.getCurrentRoundNumber(), serverInfo.nodeID, clientNodeID, cs.getKHopNeighbors());
-            // Messages are sent over SCTP using ByteBuffer
-            sctpChannel.send(msg.toByteBuffer(), messageInfo);
-            System.out.println("MSG SENT: " + msg.message);
+            // MessageInfo for SCTP layer - sends the message on the stream of its kind and round.
+            MessageInfo messageInfo = streams.outgoing(msg);
+            ByteBuffer buf = cs.encode(msg);
+            // Messages are sent over SCTP using ByteBuffer - the blocking send copies the message, so the buffer
+            // can go back to the pool right away.
+            sctpChannel.send(buf, messageInfo);
+            cs.getBufferPool().release(buf);
+            cs.getLog().trace("MSG SENT: ", msg);
         }
         catch(Exception e)
         {
-            System.out.println("Error in sending message.");
-            e.printStackTrace();
+            cs.getLog().error("Error in sending message.", e);
         }
     }
 
@@ -149,18 +154,12 @@ class SCTPClientHandler implements Runnable
     public Message receive()
     {
         try {
-            // Buffer to hold message from client.
-            ByteBuffer buf = ByteBuffer.allocateDirect(MAX_MSG_SIZE);
-            // Messages are received over SCTP from client using ByteBuffer
-            sctpChannel.receive(buf, null, null);
-
-            // Return the message received.
-            return Message.fromByteBuffer(buf);
+            // Return the message received (null if the client closed the channel).
+            return assembler.receive(sctpChannel);
         }
         catch(Exception e)
         {
-            System.out.println("Error in receiving message.");
-            e.printStackTrace();
+            cs.getLog().error("Error in receiving message.", e);
         }
 
         return null;
@@ -1,250 +1,1120 @@
 
-import java.io.File;
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 // Object to handle synchronization between nodes and each node's channels with other nodes.
 public class SCTPClientServer {
 
     // Information known to the node (i.e. shared between all channels node is part of).
+    // Each instance holds the state of one node, so one JVM can run several nodes (see LoopbackHost).
+
+    // Lock that guards the node's state, and the condition threads wait on until the node moves to a new round or
+    // terminates. A lock is used instead of synchronized methods so a channel handler on a virtual thread (see
+    // RunOptions) that waits for a round releases its carrier thread instead of pinning it.
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition roundChanged = lock.newCondition();
 
     // Variable to keep track of which round number the node is on.
-    static private int currentRoundNumber = 0;
+    private int currentRoundNumber = 0;
     // Holds number of nodes in topology.
-    static private int numOfNodes;
+    private int numOfNodes;
 
     // Each ClientServer is associated with one node. NodeInfo is the node and its information.
-    static Node nodeInfo;
+    Node nodeInfo;
+
+    // Strategy that decides which messages are sent each round and when a round is complete (see RunOptions).
+    Synchronizer synchronizer;
+    // Set by the strategy once the current round is complete, and if the node terminates after it.
+    boolean roundComplete = false;
+    boolean lastRound = false;
+    // Set once the node has stopped executing rounds and written its output.
+    boolean finished = false;
+    // Set once the channels to all neighbors are registered - the readiness barrier before round 0. Queued messages
+    // are only sent from then on.
+    boolean channelsUp = false;
+
+    // Per-neighbor state is held in arrays indexed by the neighbor's port number on the node (see Topology).
+    // Channels registered with the synchronizer - used to send the messages queued for the neighbor - and how many
+    // are registered.
+    RoundChannel[] channels;
+    int numOfChannels = 0;
+    // Channels that have been told they were retired (see releaseRetiredChannels).
+    boolean[] releasedChannels;
+    // Messages queued for each neighbor that have not been sent yet, in the order they have to be sent. While a
+    // thread sends a port's messages, the port's spare outbox takes new messages, and the sent one becomes the spare.
+    ArrayDeque<Message>[] outboxes;
+    ArrayDeque<Message>[] spareOutboxes;
+    // Neighbors a thread is currently sending queued messages to - one thread at a time keeps each channel in order.
+    boolean[] sendingTo;
+    // Ports with queued messages that no thread is sending to, in the order they got them (a ring of up to degree
+    // ports) - sendQueuedMessages takes the next one instead of scanning every port. readyPort marks the ports in it.
+    int[] readyPorts;
+    int readyHead = 0;
+    int numOfReadyPorts = 0;
+    boolean[] readyPort;
+    // Frames of the current round's messages - each round message shares the frame of an earlier message of the
+    // round that carries the same payloads, so the payload is encoded once for all of them (see BroadcastFrame).
+    // Frames are found by the message's payload arrays (compared by identity) and done flag.
+    final HashMap<BroadcastFrame.Key, BroadcastFrame> roundFrames = new HashMap<>();
+    int roundFramesRound = -1;
+    // Messages received from neighbors for future rounds, until the node reaches that round.
+    RoundBuffer roundBuffer;
+    // Direct buffers the node's channels send and receive messages with.
+    BufferPool bufferPool;
+    // Log of the node - entries are written to the node's log file by a background thread.
+    Log log;
+    // Round, channel and encoding metrics of the node (readable over JMX once registered).
+    NodeMetrics metrics;
+
+    // Checkpoints of the node's state, written every RunOptions.checkpointInterval rounds (null if not written).
+    Checkpoint checkpoint;
+    // Round the node resumed from after a restart (0 if it started from round 0) - messages of earlier rounds are
+    // only replayed to neighbors that resumed from an earlier round.
+    int resumedRound = 0;
+    // Round messages sent to each neighbor in the last 2 * checkpoint interval rounds, in round order. Saved with
+    // each checkpoint, so after a restart the node can replay them to a neighbor whose checkpoint is older - the
+    // neighbor then runs those rounds again exactly as before (null without checkpoints).
+    ArrayDeque<Message>[] sentLog;
+
+    // Last round the node's algorithms can need - the node terminates after it at the latest.
+    int lastRoundNumber = 0;
+
+    // Algorithms the node runs in its rounds (see RunOptions) - the eccentricity search always runs first. The
+    // payloads of a round message are in the same order.
+    SynchronousAlgorithm[] algorithms;
+    EccentricityAlgorithm search;
 
-    // Keeps track of messages sent from node and received by node for each round.
-    static HashMap<Integer, Boolean> messagesSentThisRound;
-    static HashMap<Integer, Boolean> messagesReceivedThisRound;
+    // Number of messages sent by the node over the whole run, and how many of them were control messages.
+    long totalMessagesSent = 0;
+    long controlMessagesSent = 0;
 
-    // Max number of hops a node can take to reach all other nodes.
-    static int maxHop = 0;
+    // Number of message bytes sent and received by the node this round and over the whole run.
+    long bytesSentThisRound = 0;
+    long bytesReceivedThisRound = 0;
+    long totalBytesSent = 0;
+    long totalBytesReceived = 0;
 
-    // Keeps track of the k-hop neighbors of this node.
-    // Max number of hops is n-1
-    static LinkedList<Integer>[] kHopNeighbors;
-    // khopneighbors[0] = node.neighbors or 1 hop neighbors
-    // khopneighbors[1] = 2 hop neighbors
-    // khopneighbors[2] = 3 hop neighbors
-    // ... and so on
+    // Time (System.nanoTime) the node was created, and the time the current round started - round 0 starts once all
+    // channels are up.
+    long createdTime = System.nanoTime();
+    long roundStartTime = createdTime;
+    // Time (System.nanoTime) the node last sent a message - the rest of a round is spent waiting for neighbors.
+    long lastSendTime = 0;
+    // Sum of the durations of all completed rounds in nanoseconds.
+    long totalRoundTime = 0;
+    // Most threads seen alive in the JVM at the end of a round.
+    int maxLiveThreads = 0;
 
-    // Keeps track of which nodes are in kHopNeighbors for this node.
-    static boolean[] nodeCounted;
+    // Constructor - only the alpha synchronizer can be used without the whole topology.
+    public SCTPClientServer(Node nodeInfo, int numOfNodes) throws Exception
+    {
+        this(nodeInfo, numOfNodes, null);
+    }
 
-    // Constructor
-    public SCTPClientServer(Node nodeInfo, int numOfNodes)
+    // Constructor - topology holds the neighbors of all nodes, which the beta and gamma synchronizers partition into
+    // clusters.
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public SCTPClientServer(Node nodeInfo, int numOfNodes, Topology topology) throws Exception
     {
         this.nodeInfo = nodeInfo;
         this.numOfNodes = numOfNodes;
 
-        messagesSentThisRound = new HashMap<>();
-        messagesReceivedThisRound = new HashMap<>();
+        int degree = nodeInfo.getDegree();
+        channels = new RoundChannel[degree];
+        releasedChannels = new boolean[degree];
+        outboxes = new ArrayDeque[degree];
+        spareOutboxes = new ArrayDeque[degree];
+        sendingTo = new boolean[degree];
+        readyPorts = new int[degree];
+        readyPort = new boolean[degree];
+        roundBuffer = new RoundBuffer(RunOptions.lookaheadWindow, degree);
+        bufferPool = new BufferPool();
+        metrics = new NodeMetrics(nodeInfo);
+        log = Log.forNode(nodeInfo.nodeID);
 
-        // Make mappings between neighbor ID keys and values (initialize to false)
-        for(int neighborID : nodeInfo.neighbors)
+        for(int port = 0; port < degree; port++)
         {
-            messagesSentThisRound.put(neighborID, false);
-            messagesReceivedThisRound.put(neighborID, false);
+            outboxes[port] = new ArrayDeque<>();
+            spareOutboxes[port] = new ArrayDeque<>();
         }
 
-        // Maximum number of hops that a node could have to farthest node is n-1
-        maxHop = numOfNodes - 1;
-
-        // Create array (of size of number of nodes in topology) of linkedlists
-        kHopNeighbors = new LinkedList[maxHop];
+        algorithms = createAlgorithms();
+        for(SynchronousAlgorithm algorithm : algorithms)
+        {
+            lastRoundNumber = Math.max(lastRoundNumber, algorithm.getLastRound());
+        }
 
-        // Add 1-hop neighbors for this node - these are the neighbors of this node.
-        kHopNeighbors[0] = nodeInfo.neighbors;
-        for(int i = 1; i < maxHop; i++)
+        // Create the synchronizer strategy and queue the node's messages for round 0. They are sent as the channels
+        // are registered.
+        if(topology == null && !RunOptions.synchronizer.equalsIgnoreCase("alpha"))
         {
-            kHopNeighbors[i] = new LinkedList<>();
+            throw new IllegalArgumentException("The " + RunOptions.synchronizer + " synchronizer needs the topology.");
+        }
+        switch(RunOptions.synchronizer.toLowerCase())
+        {
+            case "alpha":
+                synchronizer = new AlphaSynchronizer(this, nodeInfo);
+                break;
+            case "beta":
+                synchronizer = new BetaSynchronizer(this, nodeInfo, new ClusterPartition(topology, Integer.MAX_VALUE));
+                break;
+            case "gamma":
+                synchronizer = new GammaSynchronizer(this, nodeInfo,
+                        new ClusterPartition(topology, RunOptions.clusterRadius));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown synchronizer: " + RunOptions.synchronizer);
         }
 
-        nodeCounted = new boolean[numOfNodes];
-        // This node is already counted.
-        nodeCounted[nodeInfo.nodeID] = true;
-        // This node's neighbors are already counted - iterate through neighbor IDs.
-        for(int neighborID : nodeInfo.neighbors)
+        // A restarted node restores its latest checkpoint before it queues the messages of the round it resumes
+        // from (see Checkpoint).
+        if(RunOptions.checkpointInterval > 0 || RunOptions.checkpointResume)
         {
-            // Filling 1-hop neighbors
-            nodeCounted[neighborID] = true;
+            if(!(synchronizer instanceof AlphaSynchronizer))
+            {
+                throw new IllegalArgumentException("Checkpoints need the alpha synchronizer.");
+            }
+            sentLog = new ArrayDeque[degree];
+            for(int port = 0; port < degree; port++)
+            {
+                sentLog[port] = new ArrayDeque<>();
+            }
+            byte[] state = RunOptions.checkpointResume ? Checkpoint.load(nodeInfo.nodeID) : null;
+            if(state != null)
+            {
+                long start = System.nanoTime();
+                restoreState(new DataInputStream(new ByteArrayInputStream(state)));
+                log.info("RESTORED: Node " + nodeInfo.nodeID + " resumed from round " + resumedRound + " in " +
+                        (System.nanoTime() - start) / 1000 + " us (" + state.length + " bytes)");
+            }
+            if(RunOptions.checkpointInterval > 0)
+            {
+                checkpoint = new Checkpoint(nodeInfo.nodeID, state != null);
+            }
+        }
+
+        lock.lock();
+        try {
+            synchronizer.roundStarted();
+        }
+        finally {
+            lock.unlock();
         }
 
     }
 
     /*
         Method: messageSent
-        Description: Updates number of message sent this round for this node and checks if all messages have been
-            sent and received for this round.
-        Parameters: Integer destination nodeID for the sent message.
+        Description: Updates the synchronizer that a queued message was sent and moves the node to the next round if
+            that completed the round.
+        Parameters: Integer port of the neighbor the message was sent to and the sent message.
         Returns: Nothing
      */
-    public synchronized void messageSent(int destNodeID) throws Exception
+    public void messageSent(int port, Message msg) throws Exception
     {
+        lock.lock();
+        try {
+            lastSendTime = System.nanoTime();
+            totalMessagesSent++;
+            if(msg.msgType != MessageType.round)
+            {
+                controlMessagesSent++;
+            }
 
-        // Update that a message was sent to destination node ID for this round.
-        messagesSentThisRound.replace(destNodeID, true);
+            // A message replayed to a neighbor that resumed from an earlier round was counted before the restart.
+            if(msg.roundNumber < resumedRound)
+            {
+                return;
+            }
+            if(checkpoint != null && msg.msgType == MessageType.round)
+            {
+                logSent(port, msg);
+            }
 
-        // Check if all messages have been sent and received this round for this node.
-        if(isAllTrue(messagesReceivedThisRound) && isAllTrue(messagesSentThisRound))
-        {
-            // Go to the next round for this node.
-            goToNextRound();
+            synchronizer.messageSent(port, msg);
+            advanceRounds();
+        }
+        finally {
+            lock.unlock();
         }
-
     }
 
 
     /*
         Method: messageReceived
-        Description: Updates number of messages received this round by this node, updates k-hop neighbors for the node,
-            and checks if all messages have been sent and received for this node for this round.
+        Description: Hands a message of the current round to the synchronizer and moves the node to the next round
+            if that completed the round.
         Parameters: Integer source node ID of node that sent message and the received message.
         Returns: Nothing
      */
-    public synchronized void messageReceived(int sourceNodeID, Message receivedMessage) throws Exception
+    public void messageReceived(int sourceNodeID, Message receivedMessage) throws Exception
     {
+        lock.lock();
+        try {
+            dispatch(portOf(sourceNodeID), receivedMessage);
+            advanceRounds();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
 
-        // Update that a message was received from this source node ID for this round.
-        messagesReceivedThisRound.replace(sourceNodeID, true);
+    /*
+        Method: dispatch
+        Description: Counts a message of the current round and hands it to the synchronizer.
+        Parameters: Integer port of the neighbor that sent message and the received message.
+        Returns: Nothing
+     */
+    private void dispatch(int port, Message receivedMessage) throws Exception
+    {
+        bytesReceivedThisRound += receivedMessage.wireSize;
+        metrics.messageReceived(port, receivedMessage.wireSize);
+        synchronizer.messageReceived(port, receivedMessage);
+    }
 
-        // For each k-hop neighbor node ID of the source node ID (i.e. node that this message was received from).
-        for(int msgNeighborID : receivedMessage.kHopNeighbors[currentRoundNumber])
+    /*
+        Method: portOf
+        Description: Returns the port of a neighbor of the node.
+        Parameters: Integer neighbor node ID.
+        Returns: Integer port number.
+     */
+    private int portOf(int neighborID)
+    {
+        int port = nodeInfo.getPort(neighborID);
+        if(port < 0)
         {
-            // Compare each of those node IDs with list of received neighbors - if false, add to khopneighbors[round+1] list
-            // If k-hop neighbor node ID of the source node has not been reached already.
-            if(!nodeCounted[msgNeighborID])
+            throw new IllegalArgumentException("Node " + neighborID + " is not a neighbor of node " +
+                    nodeInfo.nodeID + ".");
+        }
+        return port;
+    }
+
+    /*
+        Method: createAlgorithms
+        Description: Creates the algorithms selected in RunOptions. The eccentricity search always runs first, since
+            the other algorithms use it to know when every node has been reached.
+        Parameters: None
+        Returns: Array of algorithms in the order their payloads are sent.
+     */
+    private SynchronousAlgorithm[] createAlgorithms()
+    {
+        search = new EccentricityAlgorithm(nodeInfo, numOfNodes);
+        ArrayList<SynchronousAlgorithm> selected = new ArrayList<>();
+        selected.add(search);
+
+        for(String name : RunOptions.algorithms.split(","))
+        {
+            switch(name.trim().toLowerCase())
             {
-                // Add this node to the k-hop neighbor for this node.
-                kHopNeighbors[currentRoundNumber+1].add(msgNeighborID);
-                // Mark that this node ID has been counted for this node now.
-                nodeCounted[msgNeighborID] = true;
+                case "":
+                case "eccentricity":
+                    break;
+                case "leader":
+                    selected.add(new MaxFloodAlgorithm("leader", "Leader: node %2$d", nodeInfo.nodeID,
+                            nodeInfo.nodeID, search));
+                    break;
+                case "maxdegree":
+                    selected.add(new MaxFloodAlgorithm("maxDegree", "Max degree: %1$d (node %2$d)",
+                            nodeInfo.getDegree(), nodeInfo.nodeID, search));
+                    break;
+                case "graphmetrics":
+                    selected.add(new GraphMetricsAlgorithm(nodeInfo, numOfNodes, search));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown algorithm: " + name);
             }
         }
+        return selected.toArray(new SynchronousAlgorithm[0]);
+    }
 
-        // Check if all messages have been sent and received this round for this node.
-        if(isAllTrue(messagesReceivedThisRound) && isAllTrue(messagesSentThisRound))
+    /*
+        Method: recordReceived
+        Description: Hands the payloads of a round message for the current round to the algorithms they belong to.
+            Called by the synchronizer strategy.
+        Parameters: Integer port of the neighbor that sent message and the received message.
+        Returns: Nothing
+     */
+    void recordReceived(int port, Message receivedMessage)
+    {
+        if(receivedMessage.payloads == null)
         {
-            // Go to the next round for this node.
-            goToNextRound();
+            return;
         }
 
+        // The payload at index i belongs to algorithm i - a null payload means it had nothing to send.
+        int count = Math.min(receivedMessage.payloads.length, algorithms.length);
+        for(int i = 0; i < count; i++)
+        {
+            if(receivedMessage.payloads[i] != null)
+            {
+                algorithms[i].consume(currentRoundNumber, port, receivedMessage.payloads[i]);
+            }
+        }
+    }
 
+    /*
+        Method: registerChannel
+        Description: Registers the channel to a neighbor once it is connected. Once the channels to all neighbors are
+            registered, the node starts round 0 - the messages queued for round 0 are sent and from then on the
+            synchronizer sends the messages queued for each neighbor on its channel. Messages received before that
+            are processed as usual.
+        Parameters: Channel to the neighbor.
+        Returns: Nothing
+     */
+    public void registerChannel(RoundChannel channel) throws Exception
+    {
+        lock.lock();
+        try {
+            int port = portOf(channel.getNeighborID());
+            if(channels[port] == null)
+            {
+                numOfChannels++;
+            }
+            channels[port] = channel;
+            if(!channelsUp && numOfChannels == channels.length)
+            {
+                startFirstRound();
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+        sendQueuedMessages();
     }
 
     /*
-        Method: bufferMessage
-        Description: Tells thread channel to wait if message received from future round until the node reaches that round.
+        Method: startFirstRound
+        Description: Readiness barrier - called once the channels to all neighbors are up. Starts timing round 0 and
+            records how long the node took to connect its channels.
         Parameters: None
         Returns: Nothing
      */
-    public synchronized void bufferMessage() throws Exception
+    private void startFirstRound()
+    {
+        channelsUp = true;
+        roundStartTime = System.nanoTime();
+        metrics.channelsUp(roundStartTime - createdTime);
+        metrics.roundStarted(currentRoundNumber);
+        log.info("READY: Node " + nodeInfo.nodeID + " connected all " + numOfChannels + " channels in " +
+                (roundStartTime - createdTime) / 1000000 + " ms (time to first round)");
+    }
+
+    /*
+        Method: offer
+        Description: Hands a message received from a neighbor to the synchronizer without blocking. A message for the
+            current round is processed, a message for a future round within the lookahead window is buffered until
+            the node reaches that round. Does not send any messages - call sendQueuedMessages afterwards.
+        Parameters: Integer source node ID and the received message.
+        Returns: Boolean - false if the message is too far ahead and has to be offered again after the node moves on.
+     */
+    public boolean offer(int sourceNodeID, Message receivedMessage) throws Exception
     {
+        lock.lock();
+        try {
+            // Nothing more is processed once the node has terminated.
+            if(finished)
+            {
+                return true;
+            }
 
-        System.out.println("BUFFER: Message from future round received. Buffering message.");
-        // Wait until node moves to next round.
-        wait();
+            // Message of a round the node completed before it resumed - a neighbor that resumed from an earlier
+            // round runs it again.
+            if(receivedMessage.roundNumber < resumedRound)
+            {
+                return true;
+            }
 
+            // Message from a future round.
+            if(receivedMessage.roundNumber > currentRoundNumber)
+            {
+                if(!roundBuffer.fits(currentRoundNumber, receivedMessage.roundNumber))
+                {
+                    return false;
+                }
+                roundBuffer.put(portOf(sourceNodeID), receivedMessage);
+                metrics.messageBuffered();
+                log.trace("BUFFERED MSG RECEIVED: ", receivedMessage);
+                return true;
+            }
+
+            // Otherwise, message is for the current round.
+            log.trace("MSG RECEIVED: ", receivedMessage);
+            messageReceived(sourceNodeID, receivedMessage);
+            return true;
+        }
+        finally {
+            lock.unlock();
+        }
     }
 
     /*
-        Method: getCurrentRoundNumber
-        Description: Returns the current round number for the node.
+        Method: deliver
+        Description: Hands a message received from a neighbor to the synchronizer and sends any messages that were
+            queued as a result. If the message is more than the lookahead window ahead of the node, the calling
+            receiver thread blocks until the node catches up.
+        Parameters: Integer source node ID and the received message.
+        Returns: Nothing
+     */
+    public void deliver(int sourceNodeID, Message receivedMessage) throws Exception
+    {
+        lock.lock();
+        try {
+            while(!offer(sourceNodeID, receivedMessage))
+            {
+                awaitRound(receivedMessage.roundNumber - roundBuffer.getWindow());
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+        sendQueuedMessages();
+    }
+
+    /*
+        Method: sendQueuedMessages
+        Description: Sends the messages queued for each neighbor on the registered channels. Messages are sent
+            outside of the synchronizer's lock; sending may complete the round, in which case the messages queued for
+            the next round are sent as well. Messages queued when the node terminated (i.e. a pulse telling the
+            children to terminate) are still sent.
         Parameters: None
-        Returns: Integer current round number for the node.
+        Returns: Nothing
+     */
+    public void sendQueuedMessages() throws Exception
+    {
+        while(true)
+        {
+            // Claim the queued messages of a channel no other thread is sending on, so each channel sends its
+            // messages in the order they were queued.
+            int port;
+            ArrayDeque<Message> batch;
+            lock.lock();
+            try {
+                // Nothing is sent before the channels to all neighbors are up.
+                if(!channelsUp || numOfReadyPorts == 0)
+                {
+                    return;
+                }
+                port = readyPorts[readyHead];
+                readyHead = (readyHead + 1) % readyPorts.length;
+                numOfReadyPorts--;
+                readyPort[port] = false;
+                // Take the outbox as it is - the spare takes the messages queued meanwhile.
+                batch = outboxes[port];
+                outboxes[port] = spareOutboxes[port];
+                spareOutboxes[port] = null;
+                sendingTo[port] = true;
+            }
+            finally {
+                lock.unlock();
+            }
+
+            // The channel stays claimed until the synchronizer has been updated, since the batch is reused.
+            try {
+                for(Message msg : batch)
+                {
+                    channels[port].send(msg);
+                }
+
+                // Update synchronizer that the messages were sent to the neighbor.
+                for(Message msg : batch)
+                {
+                    messageSent(port, msg);
+                }
+            }
+            finally {
+                lock.lock();
+                try {
+                    batch.clear();
+                    spareOutboxes[port] = batch;
+                    sendingTo[port] = false;
+                    markReady(port);
+                }
+                finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    /*
+        Method: queueMessage
+        Description: Queues a message to be sent to a neighbor. Called by the synchronizer strategy; the message is
+            sent by the next call to sendQueuedMessages.
+        Parameters: Integer port of the destination neighbor and the message.
+        Returns: Nothing
+     */
+    void queueMessage(int port, Message msg)
+    {
+        outboxes[port].add(msg);
+        markReady(port);
+    }
+
+    /*
+        Method: markReady
+        Description: Adds a port to the ready ports if it has queued messages and no thread is sending to it (a port
+            being sent to is added once its thread is done). Called while holding the node's lock.
+        Parameters: Integer port of the neighbor.
+        Returns: Nothing
+     */
+    private void markReady(int port)
+    {
+        if(!readyPort[port] && !sendingTo[port] && !outboxes[port].isEmpty())
+        {
+            readyPort[port] = true;
+            readyPorts[(readyHead + numOfReadyPorts) % readyPorts.length] = port;
+            numOfReadyPorts++;
+        }
+    }
+
+    /*
+        Method: logSent
+        Description: Adds a round message sent to a neighbor to the sent log and drops the messages of rounds the
+            neighbor cannot need after a restart.
+        Parameters: Integer port of the neighbor and the sent message.
+        Returns: Nothing
+     */
+    private void logSent(int port, Message msg)
+    {
+        // The message has been encoded, so its shared frame is not kept alive by the log.
+        msg.frame = null;
+        ArrayDeque<Message> sent = sentLog[port];
+        sent.add(msg);
+        while(sent.peek().roundNumber <= msg.roundNumber - 2 * RunOptions.checkpointInterval)
+        {
+            sent.poll();
+        }
+    }
+
+    /*
+        Method: neighborResumed
+        Description: Restart protocol - called with the round a neighbor resumed from before its channel is
+            registered. If the neighbor resumed from an earlier round than this node, the round messages this node
+            sent to it from that round on are queued again, in front of the messages of the current round, so the
+            neighbor runs the missing rounds again with the same input. The neighbor drops the messages of rounds
+            before it resumed in the same way.
+        Parameters: Integer neighbor node ID and integer round it resumed from.
+        Returns: Nothing
      */
-    public synchronized int getCurrentRoundNumber()
+    public void neighborResumed(int neighborID, int neighborRound)
     {
-        return currentRoundNumber;
+        lock.lock();
+        try {
+            if(neighborRound >= resumedRound)
+            {
+                return;
+            }
+            // Neighbors resume at most 2 checkpoint intervals apart (one for the round they were apart, one for a
+            // checkpoint cut off by the failure).
+            if(neighborRound < resumedRound - 2 * RunOptions.checkpointInterval)
+            {
+                throw new IllegalStateException("Node " + nodeInfo.nodeID + " resumed from round " + resumedRound +
+                        " cannot replay round " + neighborRound + " to node " + neighborID +
+                        " - relaunch with the checkpoint.interval of the failed run.");
+            }
+            int port = portOf(neighborID);
+            int replayed = 0;
+            Iterator<Message> sent = sentLog[port].descendingIterator();
+            while(sent.hasNext())
+            {
+                Message msg = sent.next();
+                if(msg.roundNumber >= neighborRound && msg.roundNumber < resumedRound)
+                {
+                    outboxes[port].addFirst(msg);
+                    replayed++;
+                }
+            }
+            markReady(port);
+            log.info("REPLAY: Node " + nodeInfo.nodeID + " replays " + replayed + " messages of rounds " +
+                    neighborRound + " to " + (resumedRound - 1) + " to node " + neighborID);
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+        Method: saveState
+        Description: Writes the state the node enters the current round with - the round, the state of each
+            algorithm and of the synchronizer, and the sent log. Called while holding the node's lock.
+        Parameters: DataOutput to write to.
+        Returns: Nothing
+     */
+    void saveState(DataOutput out) throws IOException
+    {
+        out.writeInt(currentRoundNumber);
+        for(SynchronousAlgorithm algorithm : algorithms)
+        {
+            algorithm.saveState(out);
+        }
+        ((AlphaSynchronizer) synchronizer).saveState(out);
+        // Only the round, done flag and payloads of a logged message are saved - the rest follows from the port.
+        for(ArrayDeque<Message> sent : sentLog)
+        {
+            out.writeInt(sent.size());
+            for(Message msg : sent)
+            {
+                out.writeInt(msg.roundNumber);
+                out.writeBoolean(msg.done);
+                out.writeInt(msg.payloads.length);
+                for(int[] payload : msg.payloads)
+                {
+                    Checkpoint.writeInts(out, payload);
+                }
+            }
+        }
+    }
+
+    /*
+        Method: restoreState
+        Description: Reads the state written by saveState, so the node resumes from the round it was written in.
+        Parameters: DataInput to read from.
+        Returns: Nothing
+     */
+    private void restoreState(DataInput in) throws IOException
+    {
+        currentRoundNumber = in.readInt();
+        for(SynchronousAlgorithm algorithm : algorithms)
+        {
+            algorithm.restoreState(in);
+        }
+        ((AlphaSynchronizer) synchronizer).restoreState(in);
+        for(int port = 0; port < sentLog.length; port++)
+        {
+            int count = in.readInt();
+            for(int i = 0; i < count; i++)
+            {
+                int roundNumber = in.readInt();
+                boolean done = in.readBoolean();
+                int[][] payloads = new int[in.readInt()][];
+                for(int j = 0; j < payloads.length; j++)
+                {
+                    payloads[j] = Checkpoint.readInts(in);
+                }
+                int destNodeID = nodeInfo.getNeighbor(port);
+                Message msg = new Message(null, roundNumber, nodeInfo.nodeID, destNodeID, payloads);
+                msg.msgType = MessageType.round;
+                msg.done = done;
+                sentLog[port].add(msg);
+            }
+        }
+        resumedRound = currentRoundNumber;
     }
 
     /*
-        Method: getKHopNeighbors
-        Description: Returns the node's current list array of k-hop neighbors.
+        Method: writeCheckpoint
+        Description: Writes a checkpoint of the state the node enters the current round with. A failed write is
+            logged and the node goes on - the previous checkpoint is still valid.
         Parameters: None
-        Returns: List array of k-hop neighbors.
+        Returns: Nothing
+     */
+    private void writeCheckpoint()
+    {
+        long start = System.nanoTime();
+        try {
+            int bytes = checkpoint.write(this);
+            if(log.isEnabled(Log.Level.INFO))
+            {
+                log.info("CHECKPOINT: Node " + nodeInfo.nodeID + " wrote round " + currentRoundNumber + " (" + bytes +
+                        " bytes) in " + (System.nanoTime() - start) / 1000 + " us");
+            }
+        }
+        catch(IOException e)
+        {
+            log.error("CHECKPOINT FAILED: Node " + nodeInfo.nodeID + " at round " + currentRoundNumber, e);
+        }
+    }
+
+    /*
+        Method: createRoundMessage
+        Description: Creates the message this node sends to a neighbor in the current round. It carries the payload
+            of every algorithm for the neighbor (null if an algorithm has nothing to send).
+        Parameters: Integer port of the destination neighbor.
+        Returns: Message for the current round.
+     */
+    public Message createRoundMessage(int port)
+    {
+        lock.lock();
+        try {
+            int destNodeID = nodeInfo.getNeighbor(port);
+
+            int[][] payloads = new int[algorithms.length][];
+            for(int i = 0; i < algorithms.length; i++)
+            {
+                payloads[i] = algorithms[i].produce(currentRoundNumber, port);
+            }
+            // No text - round messages are sent every round on every channel, and logs describe them from their
+            // fields (see Message.toString).
+            Message msg = new Message(null, currentRoundNumber, nodeInfo.nodeID, destNodeID, payloads);
+
+            msg.msgType = MessageType.round;
+            // Tell the neighbor if all algorithms of this node are done - once done they stay done for all later
+            // rounds.
+            msg.done = isDone();
+            shareFrame(msg);
+            return msg;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+        Method: shareFrame
+        Description: Lets a round message share the frame of an earlier message of the current round with the same
+            payloads, so all neighbors that get the same payload are sent one encoding of it.
+        Parameters: Round message just created.
+        Returns: Nothing
      */
-    public synchronized LinkedList[] getKHopNeighbors()
+    private void shareFrame(Message msg)
     {
-        return kHopNeighbors;
+        if(roundFramesRound != currentRoundNumber)
+        {
+            roundFrames.clear();
+            roundFramesRound = currentRoundNumber;
+        }
+        // Every message takes its reference here, before a channel can send it - a frame whose messages have all
+        // been sent already is encoded again for a later one.
+        BroadcastFrame.Key key = new BroadcastFrame.Key(msg);
+        BroadcastFrame frame = roundFrames.get(key);
+        if(frame == null)
+        {
+            frame = new BroadcastFrame(msg, bufferPool);
+            roundFrames.put(key, frame);
+        }
+        frame.share();
+        msg.frame = frame;
+    }
+
+    /*
+        Method: createControlMessage
+        Description: Creates a control message of the synchronizer strategy for the current round.
+        Parameters: Message type, integer port of the destination neighbor and boolean flag sent in the message's
+            done field.
+        Returns: Control message for the current round.
+     */
+    Message createControlMessage(MessageType msgType, int port, boolean flag)
+    {
+        int destNodeID = nodeInfo.getNeighbor(port);
+        String text = msgType.name().toUpperCase() + " from node " + nodeInfo.nodeID + " at round " +
+                currentRoundNumber + " to dest node " + destNodeID;
+        Message msg = new Message(msgType, text, currentRoundNumber, nodeInfo.nodeID, destNodeID);
+        msg.done = flag;
+        return msg;
     }
 
     /*
-        Method: isAllTrue
-        Description: Determines if all the values for the hashmap are true.
-        Parameters: Hashmap to check.
-        Returns: Boolean - true if all values are true, false if at least one value is false.
+        Method: isDone
+        Description: Determines if all algorithms of the node are done, i.e. the node has nothing to tell its
+            neighbors this round or any later round.
+        Parameters: None
+        Returns: Boolean - true if every algorithm is done.
      */
-    private boolean isAllTrue(HashMap<Integer, Boolean> messages)
+    boolean isDone()
     {
-        // Iterate through each value for each key in the map.
-        for(boolean value : messages.values())
+        for(SynchronousAlgorithm algorithm : algorithms)
         {
-            // If a value is false, then return false.
-            if(!value)
+            if(!algorithm.isDone(currentRoundNumber))
             {
                 return false;
             }
         }
-        // If all values are true, then return true.
         return true;
     }
 
+    /*
+        Method: isLastRound
+        Description: Determines if the current round is the last round any algorithm can need, i.e. the max number
+            of rounds (n-3 for the k-hop search alone).
+        Parameters: None
+        Returns: Boolean - true if the node has to terminate after the current round.
+     */
+    boolean isLastRound()
+    {
+        return currentRoundNumber == lastRoundNumber;
+    }
+
+    /*
+        Method: completeRound
+        Description: Called by the synchronizer strategy once the current round is complete. The node moves to the
+            next round (or terminates) after the strategy returns.
+        Parameters: Boolean - true if the node terminates after this round.
+        Returns: Nothing
+     */
+    void completeRound(boolean lastRound)
+    {
+        roundComplete = true;
+        this.lastRound = lastRound;
+    }
+
+    /*
+        Method: encode
+        Description: Encodes a message a channel sends to a neighbor into a buffer from the node's pool, or returns a
+            view of the frame it shares with other neighbors' messages (encoded by the first channel that sends it),
+            and records its size and the time it took. Called by the channels outside of the synchronizer's lock.
+        Parameters: Message to send.
+        Returns: ByteBuffer ready to send - give it back to the pool once it has been sent (the pool hands views of
+            shared frames back to their frame).
+     */
+    public ByteBuffer encode(Message msg) throws Exception
+    {
+        long start = System.nanoTime();
+        ByteBuffer buf = msg.frame != null ? msg.frame.duplicate() : msg.toByteBuffer(bufferPool);
+        metrics.messageEncoded(msg.destNodeID, buf.remaining(), System.nanoTime() - start);
+        addBytesSent(buf.remaining());
+        return buf;
+    }
+
+    /*
+        Method: addBytesSent
+        Description: Adds the size of a message sent by one of the node's channels to the byte counts of this round.
+        Parameters: Integer number of bytes sent.
+        Returns: Nothing
+     */
+    public void addBytesSent(int bytes)
+    {
+        lock.lock();
+        try {
+            bytesSentThisRound += bytes;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+        Method: awaitRound
+        Description: Round barrier - blocks the calling thread until the node reaches the given round number or
+            terminates. Waiting threads use no CPU; they are signalled when the node moves to a new round.
+        Parameters: Integer round number to wait for.
+        Returns: Integer current round number for the node.
+     */
+    public int awaitRound(int roundNumber) throws InterruptedException
+    {
+        lock.lock();
+        try {
+            // Loop to guard against spurious wake ups and notifications for earlier rounds.
+            while(currentRoundNumber < roundNumber && !finished)
+            {
+                roundChanged.await();
+            }
+            return currentRoundNumber;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+        Method: getBufferPool
+        Description: Returns the pool of direct buffers the node's channels send and receive messages with.
+        Parameters: None
+        Returns: BufferPool of the node.
+     */
+    public BufferPool getBufferPool()
+    {
+        return bufferPool;
+    }
+
+    /*
+        Method: getLog
+        Description: Returns the log of the node.
+        Parameters: None
+        Returns: Log of the node.
+     */
+    public Log getLog()
+    {
+        return log;
+    }
+
+    /*
+        Method: getMetrics
+        Description: Returns the metrics of the node.
+        Parameters: None
+        Returns: NodeMetrics of the node.
+     */
+    public NodeMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    /*
+        Method: getNodeID
+        Description: Returns the ID of the node.
+        Parameters: None
+        Returns: Integer node ID.
+     */
+    public int getNodeID()
+    {
+        return nodeInfo.nodeID;
+    }
+
+    /*
+        Method: getThreadCpuTime
+        Description: Returns the CPU time used by the calling thread so far, i.e. to check that idle channel threads
+            do not use CPU while waiting for other channels.
+        Parameters: None
+        Returns: Long CPU time in nanoseconds (-1 if the JVM does not measure thread CPU time).
+     */
+    public static long getThreadCpuTime()
+    {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        return threadBean.isCurrentThreadCpuTimeSupported() ? threadBean.getCurrentThreadCpuTime() : -1;
+    }
+
+    /*
+        Method: getCurrentRoundNumber
+        Description: Returns the current round number for the node.
+        Parameters: None
+        Returns: Integer current round number for the node.
+     */
+    public int getCurrentRoundNumber()
+    {
+        lock.lock();
+        try {
+            return currentRoundNumber;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+        Method: getResumedRound
+        Description: Returns the round the node resumed from after a restart, which it tells its neighbors when it
+            connects.
+        Parameters: None
+        Returns: Integer round number (0 if the node started from round 0).
+     */
+    public int getResumedRound()
+    {
+        return resumedRound;
+    }
+
+    /*
+        Method: isChannelActive
+        Description: Determines if the node still exchanges round messages with a neighbor. Channel threads check this
+            after they see a new round number and stop once it is false.
+        Parameters: Integer neighbor node ID.
+        Returns: Boolean - true if messages are still sent to and received from the neighbor.
+     */
+    public boolean isChannelActive(int neighborID)
+    {
+        lock.lock();
+        try {
+            return !finished && synchronizer.isChannelActive(portOf(neighborID));
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+        Method: isFinished
+        Description: Determines if the node has stopped executing rounds.
+        Parameters: None
+        Returns: Boolean - true if the node has terminated and written its output.
+     */
+    public boolean isFinished()
+    {
+        lock.lock();
+        try {
+            return finished;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+        Method: advanceRounds
+        Description: Moves the node to the next round as long as the synchronizer strategy completes rounds. Entering
+            a round processes the messages buffered for it, which can complete that round as well.
+        Parameters: None
+        Returns: Nothing
+     */
+    private void advanceRounds() throws Exception
+    {
+        while(roundComplete && !finished)
+        {
+            roundComplete = false;
+            goToNextRound();
+        }
+    }
+
     /*
         Method: goToNextRound
-        Description: Move node to next round unless all k-hop neighbors and eccentricity has been found for the node.
+        Description: Move node to next round unless the synchronizer strategy decided the node terminates after the
+            current round, i.e. all algorithms of the node are done (or the max number of rounds was reached).
         Parameters: None
         Returns: Nothing
      */
-    public void goToNextRound() throws IOException {
-        System.out.println("ROUND DONE: All messages sent and received for node " + nodeInfo.nodeID + " at round " + currentRoundNumber);
-        System.out.println();
+    private void goToNextRound() throws Exception {
+        // Measure how long the round took and how many threads the node is using.
+        long now = System.nanoTime();
+        long roundTime = now - roundStartTime;
+        totalRoundTime += roundTime;
+        maxLiveThreads = Math.max(maxLiveThreads, Thread.activeCount());
+        // Time waited for the slowest neighbor - 0 if the round completed with a message this node sent.
+        long neighborWait = now - Math.max(roundStartTime, lastSendTime);
+        metrics.roundCompleted(currentRoundNumber, roundTime, neighborWait, bytesSentThisRound,
+                bytesReceivedThisRound);
+        roundStartTime = now;
 
-        // If current round number equals the max number of rounds (i.e. maxHop-2)
-        if(currentRoundNumber == maxHop-2)
+        // Only build the round's log entries if they are logged.
+        if(log.isEnabled(Log.Level.INFO))
         {
-            // Display the node, k-hop neighbors of the node, and the eccentricity of the node.
-            // Write those displayed values to an output file as well - config-nodeID.txt
-            String filename = "config-" + nodeInfo.nodeID + ".txt";
-            String filepath = "Documents/AOS/Projects/Project1/";
-
-            //check for write-ability and open output file
-            File outFile = new File(filepath + filename);
-            PrintWriter output = new PrintWriter(outFile);
-
-            if(outFile.canWrite()) {
-
-                System.out.println("Output files stored at: " + outFile.getAbsolutePath());
-
-                // Node ID
-                String printline = "Node " + nodeInfo.nodeID;
-                System.out.println(printline);
-                output.write(printline + "\n");
-                int eccentricity = 0;
-
-                // Loop through each k-hop neighbor list
-                for (int i = 0; i < maxHop; i++) {
-                    // Print all k-hop neighbor lists for the node.
-                    printline = i + 1 + "-hop neighbors --> " + kHopNeighbors[i];
-                    System.out.println(printline);
-                    output.write(printline + "\n");
-                    // Determine the eccentricity - it will be the last non-empty list of the k-hop neighbors.
-                    if (!kHopNeighbors[i].isEmpty()) {
-                        eccentricity = i + 1;
-                    }
-                }
+            log.info("ROUND DONE: All messages sent and received for node " + nodeInfo.nodeID + " at round " +
+                    currentRoundNumber);
+            log.info("ROUND TIME: Node " + nodeInfo.nodeID + " at round " + currentRoundNumber + " took " +
+                    roundTime / 1000 + " us");
+            log.info("ROUND BYTES: Node " + nodeInfo.nodeID + " at round " + currentRoundNumber + " sent " +
+                    bytesSentThisRound + " bytes and received " + bytesReceivedThisRound + " bytes");
+        }
 
-                // Display eccentricity of the node.
-                printline = "Eccentricity: " + eccentricity;
-                System.out.println(printline);
-                output.write(printline + "\n");
+        for(SynchronousAlgorithm algorithm : algorithms)
+        {
+            algorithm.roundCompleted(currentRoundNumber);
+        }
 
-                output.close();
-            }
+        // Add this round's byte counts to the totals and reset them for the next round.
+        totalBytesSent += bytesSentThisRound;
+        totalBytesReceived += bytesReceivedThisRound;
+        bytesSentThisRound = 0;
+        bytesReceivedThisRound = 0;
+
+        // If the strategy decided this was the last round (i.e. the max number of rounds or nothing left to discover).
+        if(lastRound)
+        {
+            finished = true;
+            log.info("TERMINATED: Node " + nodeInfo.nodeID + " terminated at round " + currentRoundNumber);
+            log.info("RUN STATS: Node " + nodeInfo.nodeID + " (transport " + RunOptions.transportMode +
+                    ", degree " + nodeInfo.getDegree() + ") time to first round " +
+                    metrics.getTimeToFirstRoundMillis() + " ms, average round latency " +
+                    totalRoundTime / (currentRoundNumber + 1) / 1000 + " us, max live threads " + maxLiveThreads);
+            log.info("BUFFER STATS: Node " + nodeInfo.nodeID + " buffered " + roundBuffer.getTotalBuffered() +
+                    " future round messages, high-water mark " + roundBuffer.getHighWaterMark() + " (window " +
+                    roundBuffer.getWindow() + " rounds)");
+            log.info("SYNC STATS: Node " + nodeInfo.nodeID + " (synchronizer " + synchronizer.getName() +
+                    ") " + (currentRoundNumber + 1) + " rounds, " + totalMessagesSent + " messages sent (" +
+                    controlMessagesSent + " control), " + totalBytesSent + " bytes sent");
+            log.info("POOL STATS: Node " + nodeInfo.nodeID + " used " + bufferPool.getAcquires() +
+                    " pooled buffers, " + bufferPool.getAllocations() + " direct buffer allocations");
+
+            writeOutput();
+
+            // Wake up any channel threads waiting for a new round, and readers waiting for a message, so they can
+            // stop.
+            roundChanged.signalAll();
+            releaseRetiredChannels();
 
             // Do not move to next round - return.
             return;
@@ -252,16 +1122,83 @@ public class SCTPClientServer {
 
         // Move to next round.
         currentRoundNumber++;
-        // Reset messages received and sent for new round with a value of false.
-        messagesReceivedThisRound.replaceAll((key, value) -> value = false);
-        messagesSentThisRound.replaceAll((key, value) -> value = false);
-        System.out.println("\n\nNEW ROUND: Node " + nodeInfo.nodeID + " moved to round " + currentRoundNumber);
+        if(log.isEnabled(Log.Level.INFO))
+        {
+            log.info("NEW ROUND: Node " + nodeInfo.nodeID + " moved to round " + currentRoundNumber);
+        }
+        metrics.roundStarted(currentRoundNumber);
+
+        // Checkpoint the state the node enters the round with, before any message of the round is queued.
+        if(checkpoint != null && currentRoundNumber % RunOptions.checkpointInterval == 0)
+        {
+            writeCheckpoint();
+        }
+
+        // Let the strategy queue the node's messages for the new round.
+        synchronizer.roundStarted();
+
+        // Process the messages neighbors already sent for the new round. If they complete the round, the caller
+        // moves the node on once more.
+        for(int port = 0; port < channels.length; port++)
+        {
+            Message bufferedMessage;
+            while((bufferedMessage = roundBuffer.take(port, currentRoundNumber)) != null)
+            {
+                log.trace("BUFFERED MSG PROCESSED: ", bufferedMessage);
+                metrics.bufferedMessageProcessed();
+                dispatch(port, bufferedMessage);
+            }
+        }
+
         // Notify all threads associated with this node that they are starting a new round. Any buffered messages will now
         // be processed.
-        notifyAll();
-        System.out.println("NOTIFIED: All threads notified of new round.");
+        roundChanged.signalAll();
+        log.debug("NOTIFIED: All threads notified of new round.");
+
+        // Readers of channels retired at the end of the last round stop.
+        releaseRetiredChannels();
+    }
+
+    /*
+        Method: releaseRetiredChannels
+        Description: Tells every registered channel the node no longer uses - retired by the synchronizer strategy,
+            or all of them once the node has finished - that it was retired, once per channel.
+        Parameters: None
+        Returns: Nothing
+     */
+    private void releaseRetiredChannels()
+    {
+        for(int port = 0; port < channels.length; port++)
+        {
+            if(!releasedChannels[port] && channels[port] != null &&
+                    (finished || !synchronizer.isChannelActive(port)))
+            {
+                releasedChannels[port] = true;
+                channels[port].retired();
+            }
+        }
+    }
 
+    /*
+        Method: writeOutput
+        Description: Hands the node's result - its k-hop neighbors, its eccentricity and the result of each other
+            algorithm - and its metrics to the ResultSink, which writes the output files after the node's lock is
+            released.
+        Parameters: None
+        Returns: Nothing
+     */
+    private void writeOutput()
+    {
+        // The k-hop levels are copied as they are, so their text is only built by the sink.
+        ArrayList<String> lines = new ArrayList<>();
+        for(int i = 1; i < algorithms.length; i++)
+        {
+            algorithms[i].addResult(lines);
+        }
+        ResultSink.submit(new NodeResult(nodeInfo.nodeID, numOfNodes - 1, search.getLevels(), lines, metrics, log));
 
+        log.info("TOTAL BYTES: Node " + nodeInfo.nodeID + " sent " + totalBytesSent +
+                " bytes and received " + totalBytesReceived + " bytes");
     }
 
 
@@ -0,0 +1,400 @@
+import com.sun.nio.sctp.SctpChannel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// This object multiplexes the SCTP channels of one or more nodes on one thread using a Selector - one node's
+// channels when each node runs in its own JVM, or the channels of all nodes hosted in one JVM (see NodeGroup).
+// Encoded messages and received messages use direct buffers from each node's BufferPool.
+// Channels are connected and the initial message exchange is done by SCTPClient and SCTPServer as before, then each
+// channel is handed to the reactor with register(). From then on the reactor thread does all sends and receives in
+// non-blocking mode and drives the synchronizers from readiness events - received messages are offered to the
+// channel's synchronizer, and the round messages it sends when its node enters a round are written by the reactor
+// thread.
+class SCTPReactor implements Runnable
+{
+    // Number of nodes the reactor serves - it stops once all of them have been attached and have terminated.
+    private final int numOfNodes;
+
+    // Selector over all registered channels
+    Selector selector;
+    // Nodes and channels handed over by other threads that have not been added to the reactor yet.
+    private final ConcurrentLinkedQueue<NodeState> newNodes = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<ChannelState> newChannels = new ConcurrentLinkedQueue<>();
+    // State of every node attached to the reactor.
+    private final ArrayList<NodeState> nodes = new ArrayList<>();
+    // Nodes whose channels had events in the current loop - only they can have moved to a new round.
+    private final ArrayList<NodeState> touched = new ArrayList<>();
+
+    // Holds the state the reactor keeps for one node.
+    private static class NodeState
+    {
+        // Synchronizer of the node
+        final SCTPClientServer cs;
+        // State of every channel of the node registered with the selector.
+        final ArrayList<ChannelState> channels = new ArrayList<>();
+        // True while the node is in the touched list.
+        boolean touched;
+
+        NodeState(SCTPClientServer cs)
+        {
+            this.cs = cs;
+        }
+    }
+
+    // Holds the state the reactor keeps for one channel.
+    private class ChannelState implements RoundChannel
+    {
+        // Node the channel belongs to and its synchronizer
+        NodeState node;
+        SCTPClientServer cs;
+        // SCTP channel
+        SctpChannel sctpChannel;
+        // Holds neighbor node ID on the other end of the channel
+        int neighborID;
+        // Receives the channel's messages - a message can arrive in parts over several reads
+        MessageAssembler assembler;
+        // Streams of the channel's association and the encoded messages waiting on each for room in the channel's
+        // send buffer (pooled buffers) - queued control messages are sent first.
+        SCTPStreams streams;
+        // Received message the synchronizer could not take yet (too far ahead) - reading stops until it is taken.
+        Message pendingMessage;
+        // Messages received before the channel was handed over (see SCTPClient) - read before the channel.
+        ArrayDeque<Message> earlyMessages;
+        // Selection key of the channel
+        SelectionKey key;
+
+        ChannelState(SCTPClientServer cs, SctpChannel sctpChannel, int neighborID, MessageAssembler assembler,
+                ArrayDeque<Message> earlyMessages) throws IOException
+        {
+            this.cs = cs;
+            this.sctpChannel = sctpChannel;
+            this.neighborID = neighborID;
+            this.assembler = assembler;
+            this.earlyMessages = earlyMessages;
+            streams = SCTPStreams.of(sctpChannel);
+        }
+
+        @Override
+        public int getNeighborID()
+        {
+            return neighborID;
+        }
+
+        // Called by the synchronizer (on the reactor thread) to send a message queued for the neighbor.
+        @Override
+        public void send(Message msg) throws Exception
+        {
+            SCTPReactor.this.send(this, msg);
+        }
+    }
+
+    // Constructor - initialize the number of nodes the reactor serves
+    public SCTPReactor(int numOfNodes) throws Exception
+    {
+        this.numOfNodes = numOfNodes;
+        selector = Selector.open();
+    }
+
+    /*
+        Method: attach
+        Description: Adds a node to the reactor. Must be called before any of the node's channels is registered. Can
+            be called from any thread.
+        Parameters: Synchronizer of the node.
+        Returns: Nothing
+     */
+    public void attach(SCTPClientServer cs)
+    {
+        newNodes.add(new NodeState(cs));
+        selector.wakeup();
+    }
+
+    /*
+        Method: register
+        Description: Hands a connected channel to the reactor. Can be called from any thread.
+        Parameters: Synchronizer of the node the channel belongs to, SctpChannel connected to the neighbor (initial
+            message exchange done), integer neighbor node ID and the assembler the initial message exchange
+            received with, and the messages received during the initial message exchange that are not part of it
+            (delivered once the channel is registered).
+        Returns: Nothing
+     */
+    public void register(SCTPClientServer cs, SctpChannel sctpChannel, int neighborID, MessageAssembler assembler,
+            ArrayDeque<Message> earlyMessages) throws IOException
+    {
+        newChannels.add(new ChannelState(cs, sctpChannel, neighborID, assembler, earlyMessages));
+        selector.wakeup();
+    }
+
+    /*
+        Method: run()
+        Description: Event loop - waits for channels to become readable/writable and handles them until all nodes
+            have terminated.
+        Parameters: None
+        Returns: Nothing
+     */
+    @Override
+    public void run()
+    {
+        // Node whose synchronizer is being driven, to log an error to the right node.
+        SCTPClientServer cs = null;
+
+        try {
+            // Keep going after the nodes have terminated until the last messages (i.e. a pulse telling the children
+            // to terminate) have left the send buffers.
+            while(nodes.size() < numOfNodes || !isFinished() || hasQueuedSends())
+            {
+                selector.select();
+
+                // Add nodes and register channels handed over since the last loop.
+                NodeState node;
+                while((node = newNodes.poll()) != null)
+                {
+                    nodes.add(node);
+                    node.cs.getLog().info("REACTOR: Reactor started at node " + node.cs.getNodeID() + " (" +
+                            numOfNodes + " nodes share it)");
+                }
+                ChannelState state;
+                while((state = newChannels.poll()) != null)
+                {
+                    cs = state.cs;
+                    state.node = findNode(cs);
+                    state.sctpChannel.configureBlocking(false);
+                    state.key = state.sctpChannel.register(selector, SelectionKey.OP_READ, state);
+                    state.node.channels.add(state);
+                    touch(state.node);
+                    cs.getLog().debug("REACTOR: Channel to node " + state.neighborID + " registered.");
+                    cs.registerChannel(state);
+                    if(!state.earlyMessages.isEmpty())
+                    {
+                        read(state);
+                    }
+                }
+
+                // Handle ready channels.
+                for(SelectionKey key : selector.selectedKeys())
+                {
+                    state = (ChannelState) key.attachment();
+                    cs = state.cs;
+                    touch(state.node);
+                    if(key.isValid() && key.isWritable())
+                    {
+                        flush(state);
+                    }
+                    if(key.isValid() && key.isReadable())
+                    {
+                        read(state);
+                    }
+                }
+                selector.selectedKeys().clear();
+
+                // The events above may have moved their nodes to a new round - offer held back messages again and
+                // send the messages that were queued.
+                for(NodeState touchedNode : touched)
+                {
+                    cs = touchedNode.cs;
+                    progress(touchedNode);
+                    touchedNode.touched = false;
+                }
+                touched.clear();
+            }
+
+            for(NodeState node : nodes)
+            {
+                node.cs.getLog().info("REACTOR: Node " + node.cs.getNodeID() + " finished - reactor stopped.");
+            }
+        }
+        catch(Exception e)
+        {
+            if(cs != null)
+            {
+                cs.getLog().error("Error in reactor.", e);
+            }
+            else
+            {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /*
+        Method: findNode
+        Description: Finds the state of an attached node.
+        Parameters: Synchronizer of the node.
+        Returns: State of the node.
+     */
+    private NodeState findNode(SCTPClientServer cs)
+    {
+        // Nodes attach before their channels are registered, so the node has been added by now.
+        for(NodeState node : nodes)
+        {
+            if(node.cs == cs)
+            {
+                return node;
+            }
+        }
+        throw new IllegalStateException("Node " + cs.getNodeID() + " was not attached to the reactor.");
+    }
+
+    /*
+        Method: touch
+        Description: Marks a node that had an event in the current loop.
+        Parameters: State of the node.
+        Returns: Nothing
+     */
+    private void touch(NodeState node)
+    {
+        if(!node.touched)
+        {
+            node.touched = true;
+            touched.add(node);
+        }
+    }
+
+    /*
+        Method: progress
+        Description: Offers a node's messages that were too far ahead to its synchronizer again and resumes reading
+            from their channels once they are taken, then sends the messages that were queued.
+        Parameters: State of the node.
+        Returns: Nothing
+     */
+    private void progress(NodeState node) throws Exception
+    {
+        SCTPClientServer cs = node.cs;
+
+        // Repeat while the node keeps moving to new rounds, since a new round can make held back messages fit.
+        int round;
+        do {
+            round = cs.getCurrentRoundNumber();
+
+            for(ChannelState state : node.channels)
+            {
+                if(state.pendingMessage != null && cs.offer(state.neighborID, state.pendingMessage))
+                {
+                    state.pendingMessage = null;
+                    state.key.interestOps(state.key.interestOps() | SelectionKey.OP_READ);
+                    read(state);
+                }
+            }
+
+            cs.sendQueuedMessages();
+        } while(round != cs.getCurrentRoundNumber() && !cs.isFinished());
+    }
+
+    /*
+        Method: isFinished
+        Description: Determines if every node attached to the reactor has terminated.
+        Parameters: None
+        Returns: Boolean - true if all nodes have terminated.
+     */
+    private boolean isFinished()
+    {
+        for(NodeState node : nodes)
+        {
+            if(!node.cs.isFinished())
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+        Method: hasQueuedSends
+        Description: Determines if any channel still has encoded messages waiting for room in its send buffer.
+        Parameters: None
+        Returns: Boolean - true if a message has not been sent yet.
+     */
+    private boolean hasQueuedSends()
+    {
+        for(NodeState node : nodes)
+        {
+            for(ChannelState state : node.channels)
+            {
+                if(!state.streams.isEmpty() && state.key.isValid())
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /*
+        Method: read
+        Description: Receives all messages available on a channel without blocking and offers them to the
+            synchronizer. If a message is too far ahead of the node, it is held and the channel is not read until
+            the node catches up.
+        Parameters: State of the readable channel.
+        Returns: Nothing
+     */
+    private void read(ChannelState state) throws Exception
+    {
+        while(state.pendingMessage == null)
+        {
+            // Messages that arrived before the channel was handed over come first.
+            Message receivedMessage = state.earlyMessages.poll();
+            if(receivedMessage == null)
+            {
+                receivedMessage = state.assembler.receive(state.sctpChannel);
+
+                // Neighbor closed the channel.
+                if(state.assembler.isClosed())
+                {
+                    state.cs.getLog().debug("REACTOR: Channel to node " + state.neighborID + " closed.");
+                    state.key.cancel();
+                    return;
+                }
+
+                // Nothing more to read right now (or only part of a message).
+                if(receivedMessage == null)
+                {
+                    return;
+                }
+            }
+
+            if(!state.cs.offer(state.neighborID, receivedMessage))
+            {
+                // Bounded lookahead - stop reading this channel until the node reaches the message's window.
+                state.pendingMessage = receivedMessage;
+                state.key.interestOps(state.key.interestOps() & ~SelectionKey.OP_READ);
+            }
+        }
+    }
+
+    /*
+        Method: send
+        Description: Sends a message to the neighbor. If the channel's send buffer is full, the message is queued and
+            sent once the channel becomes writable.
+        Parameters: State of the channel to send on and the message.
+        Returns: Nothing
+     */
+    private void send(ChannelState state, Message msg) throws Exception
+    {
+        ByteBuffer buf = state.cs.encode(msg);
+        state.streams.add(msg, buf);
+        flush(state);
+        state.cs.getLog().trace("MSG SENT: ", msg);
+    }
+
+    /*
+        Method: flush
+        Description: Sends queued messages, control messages first, until none are left or the channel's send
+            buffer is full.
+        Parameters: State of the channel to send on.
+        Returns: Nothing
+     */
+    private void flush(ChannelState state) throws Exception
+    {
+        if(!state.streams.flush(state.sctpChannel, state.cs.getBufferPool()))
+        {
+            state.key.interestOps(state.key.interestOps() | SelectionKey.OP_WRITE);
+            return;
+        }
+        state.key.interestOps(state.key.interestOps() & ~SelectionKey.OP_WRITE);
+    }
+}
@@ -1,5 +1,7 @@
 import com.sun.nio.sctp.*;
 import java.net.InetSocketAddress;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
 
 // This object is a SCTPServer to accept multiple connections from different SCTPClients.
 public class SCTPServer implements Runnable
@@ -11,17 +13,28 @@ public class SCTPServer implements Runnable
 	// Synchronizer
 	SCTPClientServer cs;
 
-	// Number of rounds for a node to send/receive messages.
-	int numOfRounds = 0;
-
 	// Server channel
 	SctpServerChannel sctpServerChannel;
 
-	// Constructor - initialize synchronizer, server node information, and number of rounds
-	public SCTPServer(SCTPClientServer cs, Node serverInfo, int numOfRounds) throws Exception {
+	// Reactor that handles the node's channels (null when each channel gets its own thread)
+	SCTPReactor reactor;
+
+	// Runs the channel threads and initial message exchanges of accepted clients
+	Executor workers;
+
+	// Constructor - initialize synchronizer and server node information
+	public SCTPServer(SCTPClientServer cs, Node serverInfo) throws Exception {
+		this(cs, serverInfo, null, new ThreadPerTask(false, false));
+	}
+
+	// Constructor - initialize synchronizer, server node information, reactor, and the executor that runs the
+	// threads of accepted clients
+	public SCTPServer(SCTPClientServer cs, Node serverInfo, SCTPReactor reactor, Executor workers)
+			throws Exception {
 		this.cs = cs;
 		this.serverInfo = serverInfo;
-		this.numOfRounds = numOfRounds;
+		this.reactor = reactor;
+		this.workers = workers;
 
 	}
 
@@ -39,15 +52,19 @@ public class SCTPServer implements Runnable
 				InetSocketAddress addr = new InetSocketAddress(serverInfo.listeningPort);
 				// Open server channel
 				sctpServerChannel = SctpServerChannel.open();
+				// Accepted channels offer as many outbound and inbound streams as configured (see SCTPStreams).
+				sctpServerChannel.setOption(SctpStandardSocketOptions.SCTP_INIT_MAXSTREAMS,
+						SctpStandardSocketOptions.InitMaxStreams.create(SCTPStreams.configured(),
+								SCTPStreams.configured()));
 				// Bind server channel to address
 				sctpServerChannel.bind(addr);
 
-				System.out.println("SERVER: Server created at node " + serverInfo.nodeID);
+				cs.getLog().info("SERVER: Server created at node " + serverInfo.nodeID);
 
 				connectClients();
 			} catch (Exception e) {
 
-				e.printStackTrace();
+				cs.getLog().error("Error in server of node " + serverInfo.nodeID + ".", e);
 			}
 		}
 	}
@@ -66,16 +83,35 @@ public class SCTPServer implements Runnable
 
 				// Wait for incoming connection from client - accept() blocks until connection made.
 				SctpChannel sctpChannel = sctpServerChannel.accept();
-				System.out.println("CHANNEL: Client connected to this server.");
-				Thread.sleep(3000);
-
-				// Create new thread for the new client.
-				Thread thread = new Thread(new SCTPClientHandler(cs, sctpChannel, serverInfo, numOfRounds));
-				thread.start();
+				cs.getLog().info("CHANNEL: Client connected to this server.");
+
+				// Hand the channel off right away so the next client can be accepted while this one does the initial
+				// message exchange.
+				SCTPClientHandler handler = new SCTPClientHandler(cs, sctpChannel, serverInfo);
+
+				// With a reactor, a short-lived task does the initial message exchange and hands the channel to
+				// the reactor.
+				if(reactor != null)
+				{
+					workers.execute(() -> {
+						try {
+							reactor.register(cs, sctpChannel, handler.handshake(), handler.assembler,
+									new ArrayDeque<>());
+						}
+						catch(Exception e)
+						{
+							cs.getLog().error("Error in initial message exchange with client.", e);
+						}
+					});
+					continue;
+				}
+
+				// Run the new client's channel on its own thread.
+				workers.execute(handler);
 
 			} catch (Exception e) {
 
-				e.printStackTrace();
+				cs.getLog().error("Error in accepting client.", e);
 			}
 
 
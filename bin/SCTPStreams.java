@@ -0,0 +1,180 @@
+import com.sun.nio.sctp.MessageInfo;
+import com.sun.nio.sctp.SctpChannel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+// This class maps the messages of one channel to the streams of its SCTP association, so a large round message does
+// not hold up the messages queued behind it that are not ordered after it:
+//   stream 0              - control messages (handshake, ack, safe, pulse, ...) of every synchronizer
+//   streams 1 to count-1  - round messages, round r on stream 1 + r % (count - 1)
+// Channels use a single stream unless sctp.streams (see RunOptions) asks for more - the split has not been measured
+// over SCTP yet. With sctp.streams=0, i.e. lookahead window + 2 streams, the current round and every round
+// a neighbor can be ahead of it get a stream of their own. SCTP keeps messages in order within a stream only, so
+// the messages of one round stay in FIFO order while a message lost or still queued on another stream does not
+// block them. Messages of different rounds may arrive out of order, which the synchronizer's round buffer already
+// handles (a neighbor is never more than the lookahead window ahead).
+// For a non-blocking channel (see SCTPReactor) the encoded messages waiting for room in the send buffer are queued
+// per stream as well, and control messages are sent before any queued round message.
+public class SCTPStreams {
+
+    // Stream of control messages
+    static final int CONTROL = 0;
+
+    // Number of outbound streams of the association
+    private final int count;
+    // Encoded messages waiting to be sent, one queue per stream (created on first use, pooled buffers).
+    private ArrayDeque<ByteBuffer>[] queues;
+
+    // Constructor - takes the number of outbound streams of the association (1 sends everything on stream 0).
+    public SCTPStreams(int count)
+    {
+        this.count = Math.max(1, count);
+    }
+
+    /*
+        Method: of
+        Description: Creates the stream map of a connected channel - the streams asked for (see configured), limited
+            to the outbound streams the neighbor agreed to.
+        Parameters: SctpChannel of the association.
+        Returns: SCTPStreams of the channel.
+     */
+    public static SCTPStreams of(SctpChannel sctpChannel) throws IOException
+    {
+        return new SCTPStreams(Math.min(configured(), sctpChannel.association().maxOutboundStreams()));
+    }
+
+    /*
+        Method: configured
+        Description: Returns the number of streams each channel is opened with (outbound and inbound).
+        Parameters: None
+        Returns: Integer number of streams - sctp.streams (1 if not set), or the lookahead window + 2 if 0.
+     */
+    public static int configured()
+    {
+        return RunOptions.sctpStreams > 0 ? RunOptions.sctpStreams : RunOptions.lookaheadWindow + 2;
+    }
+
+    /*
+        Method: streamOf
+        Description: Returns the stream a message is sent on.
+        Parameters: Message to send.
+        Returns: Integer stream number.
+     */
+    public int streamOf(Message msg)
+    {
+        if(count < 2 || msg.msgType != MessageType.round)
+        {
+            return CONTROL;
+        }
+        return 1 + msg.roundNumber % (count - 1);
+    }
+
+    /*
+        Method: outgoing
+        Description: Creates the MessageInfo for the SCTP layer that sends a message on its stream.
+        Parameters: Message to send.
+        Returns: MessageInfo of the message.
+     */
+    public MessageInfo outgoing(Message msg)
+    {
+        return MessageInfo.createOutgoing(null, streamOf(msg));
+    }
+
+    /*
+        Method: add
+        Description: Queues an encoded message on its stream until flush sends it.
+        Parameters: Message and its encoded form.
+        Returns: Nothing
+     */
+    public void add(Message msg, ByteBuffer buf)
+    {
+        add(streamOf(msg), buf);
+    }
+
+    /*
+        Method: add
+        Description: Queues an encoded message on a stream until flush sends it.
+        Parameters: Integer stream number and the encoded message.
+        Returns: Nothing
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void add(int stream, ByteBuffer buf)
+    {
+        if(queues == null)
+        {
+            queues = new ArrayDeque[count];
+        }
+        if(queues[stream] == null)
+        {
+            queues[stream] = new ArrayDeque<>();
+        }
+        queues[stream].add(buf);
+    }
+
+    /*
+        Method: flush
+        Description: Sends queued messages of a non-blocking channel until all are sent or the channel's send buffer
+            is full - control messages first, then the round messages of each stream in order. Sent buffers go back
+            to the pool.
+        Parameters: SctpChannel to send on and the BufferPool the buffers came from.
+        Returns: Boolean - true if all queued messages were sent.
+     */
+    public boolean flush(SctpChannel sctpChannel, BufferPool pool) throws IOException
+    {
+        if(queues == null)
+        {
+            return true;
+        }
+        for(int stream = 0; stream < count; stream++)
+        {
+            ArrayDeque<ByteBuffer> queue = queues[stream];
+            while(queue != null && !queue.isEmpty())
+            {
+                // MessageInfo for SCTP layer.
+                MessageInfo messageInfo = MessageInfo.createOutgoing(null, stream);
+                // A message is sent completely or not at all - 0 means there is no room right now.
+                if(sctpChannel.send(queue.peek(), messageInfo) == 0)
+                {
+                    return false;
+                }
+                pool.release(queue.poll());
+            }
+        }
+        return true;
+    }
+
+    /*
+        Method: isEmpty
+        Description: Determines if no message is waiting to be sent.
+        Parameters: None
+        Returns: Boolean - true if all queues are empty.
+     */
+    public boolean isEmpty()
+    {
+        if(queues != null)
+        {
+            for(ArrayDeque<ByteBuffer> queue : queues)
+            {
+                if(queue != null && !queue.isEmpty())
+                {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /*
+        Method: getCount
+        Description: Returns the number of outbound streams of the association.
+        Parameters: None
+        Returns: Integer number of streams.
+     */
+    public int getCount()
+    {
+        return count;
+    }
+
+}
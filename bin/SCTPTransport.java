@@ -0,0 +1,90 @@
+import java.util.concurrent.Executor;
+
+// Transport that connects a node's channels to its neighbors with SCTP sockets.
+// The node runs an SCTPServer that accepts the channels of the neighbors with a higher node ID and connects an
+// SCTPClient to each neighbor with a lower node ID. Depending on RunOptions, each channel gets its own thread or
+// all channels are handled by one SCTPReactor thread. When several nodes are hosted in one JVM (see NodeGroup),
+// one transport is shared by all of them - their channels are handled by one shared reactor and their server,
+// client and channel threads come from one shared worker pool.
+public class SCTPTransport implements Transport {
+
+    // Holds all of the nodes and their information (i.e. nodeID, hostname, port number, etc.).
+    private final Node[] allNodes;
+    // Reactor shared by all nodes started with this transport (null gives each node its own reactor, if any).
+    private final SCTPReactor sharedReactor;
+    // Runs the server, client and channel threads of the nodes.
+    private final Executor workers;
+
+    // Constructor - one JVM per node, every server, client and channel thread is a new platform thread
+    public SCTPTransport(Node[] allNodes)
+    {
+        this(allNodes, null, new ThreadPerTask(false, false));
+    }
+
+    // Constructor - nodes hosted in one JVM share the reactor (which must already be running) and the worker pool
+    public SCTPTransport(Node[] allNodes, SCTPReactor sharedReactor, Executor workers)
+    {
+        // SctpChannel.receive pins the carrier of a virtual thread while it waits (see ThreadPerTask), so the
+        // channel handlers of a node with more neighbors than carriers could starve the round.
+        if(RunOptions.useVirtualThreads())
+        {
+            throw new IllegalArgumentException("channel.threads=virtual is not supported with SCTP - SCTP receives " +
+                    "pin the carrier thread. Use it with LoopbackHost.");
+        }
+        this.allNodes = allNodes;
+        this.sharedReactor = sharedReactor;
+        this.workers = workers;
+    }
+
+    /*
+        Method: start
+        Description: Starts the node's server and connects a client to each neighbor that is a server to this node.
+        Parameters: Synchronizer of the node and the node information.
+        Returns: Nothing
+     */
+    @Override
+    public void start(SCTPClientServer cs, Node nodeInfo) throws Exception
+    {
+        // With the reactor transport (see RunOptions), one thread handles all channels of the node (or of all nodes
+        // sharing the reactor) instead of one thread per channel.
+        SCTPReactor reactor = sharedReactor;
+        if(reactor == null && RunOptions.useReactor())
+        {
+            reactor = new SCTPReactor(1);
+            Thread reactorThread = new Thread(reactor);
+            reactorThread.start();
+        }
+        if(reactor != null)
+        {
+            reactor.attach(cs);
+        }
+
+        // Create server - pass the ClientServer for synchronization, the node/process for this program instance,
+        // the reactor and the workers that run the threads of accepted clients.
+        SCTPServer server = new SCTPServer(cs, nodeInfo, reactor, workers);
+
+        // Start server of this node.
+        workers.execute(server);
+
+
+        // Determine if neighbors are clients or servers.
+        // If node for this program instance is client (i.e. client node id > neighbor node id), then create client
+        // with neighbor server info and connect channel.
+        // Iterate through all neighbors of node.
+        for(int port = 0; port < nodeInfo.getDegree(); port++)
+        {
+            int neighborID = nodeInfo.getNeighbor(port);
+            // If node for this program instance is the client.
+            if(nodeInfo.nodeID > neighborID)
+            {
+                // Create client where nodeID is client, neighborID is server.
+                // Pass ClientServer for synchronization, the server and client node information, and the reactor.
+                SCTPClient client = new SCTPClient(cs, allNodes[neighborID], nodeInfo, reactor);
+
+                // Connect client to server.
+                workers.execute(client);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+// Implemented by the synchronizer strategies selected with RunOptions (alpha, beta and gamma). A strategy decides
+// which messages a node sends in a round and when the node has completed the round. SCTPClientServer keeps the
+// node's k-hop state, channels and buffered messages, and calls the strategy while holding its lock - a strategy
+// queues messages with SCTPClientServer.queueMessage and ends a round with SCTPClientServer.completeRound.
+// Messages of future rounds are buffered by SCTPClientServer, so a strategy only sees messages of the current round.
+// Neighbors are identified by their port number on the node (see Topology), so a strategy keeps its per-neighbor
+// state in arrays indexed by port.
+public interface Synchronizer {
+
+    /*
+        Method: getName
+        Description: Returns the name of the strategy, i.e. for the run statistics.
+        Parameters: None
+        Returns: String name of the strategy.
+     */
+    String getName();
+
+    /*
+        Method: roundStarted
+        Description: Called when the node enters a round (including round 0) - queues the node's messages for it.
+        Parameters: None
+        Returns: Nothing
+     */
+    void roundStarted() throws Exception;
+
+    /*
+        Method: messageSent
+        Description: Called after a queued message has been sent to a neighbor.
+        Parameters: Integer port of the destination neighbor and the sent message.
+        Returns: Nothing
+     */
+    void messageSent(int port, Message msg) throws Exception;
+
+    /*
+        Method: messageReceived
+        Description: Called for each message of the current round received from a neighbor.
+        Parameters: Integer port of the source neighbor and the received message.
+        Returns: Nothing
+     */
+    void messageReceived(int port, Message msg) throws Exception;
+
+    /*
+        Method: isChannelActive
+        Description: Determines if the node still exchanges messages with a neighbor.
+        Parameters: Integer port of the neighbor.
+        Returns: Boolean - true if messages are still sent to and received from the neighbor.
+     */
+    boolean isChannelActive(int port);
+
+}
@@ -0,0 +1,95 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+
+// Implemented by the distributed algorithms that run in a node's synchronous rounds (selected with RunOptions).
+// All algorithms of a node run in the same rounds: in each round the node asks every algorithm for its payload for
+// each neighbor and sends the payloads together in one round message (Message.payloads holds one entry per
+// algorithm), so the messages and the synchronization of a round are paid once however many algorithms run. The
+// payloads of a received round message are handed to the algorithms they belong to. Every node runs the same
+// algorithms in the same order, so the position of a payload tells which algorithm it belongs to.
+// SCTPClientServer calls the hooks while holding its lock; a payload may be encoded outside of the lock after it
+// was produced, so an algorithm must not change an array once it has returned it.
+public interface SynchronousAlgorithm {
+
+    /*
+        Method: getName
+        Description: Returns the name of the algorithm, i.e. as selected in RunOptions.
+        Parameters: None
+        Returns: String name of the algorithm.
+     */
+    String getName();
+
+    /*
+        Method: produce
+        Description: Called when the node enters a round, once for each neighbor the node sends a round message to.
+        Parameters: Integer round number and integer port of the neighbor.
+        Returns: Array of integers to send to the neighbor this round, or null if there is nothing to send.
+     */
+    int[] produce(int round, int port);
+
+    /*
+        Method: consume
+        Description: Called for each payload of the algorithm received from a neighbor in the current round.
+        Parameters: Integer round number, integer port of the neighbor and the received array.
+        Returns: Nothing
+     */
+    void consume(int round, int port, int[] payload);
+
+    /*
+        Method: roundCompleted
+        Description: Called once the node has received all messages of a round, before it enters the next round.
+        Parameters: Integer round number.
+        Returns: Nothing
+     */
+    void roundCompleted(int round);
+
+    /*
+        Method: isDone
+        Description: Termination hook - determines if the algorithm's result is final, i.e. it produces nothing after
+            this round and nothing it receives changes its result. Once true it stays true, so the synchronizers can
+            retire channels and stop the node once every algorithm of the node (and of its neighbors) is done. The
+            answer must not change during a round, i.e. it only depends on what was received in earlier rounds, since
+            it is sent with the round's messages and checked again when the round is complete.
+        Parameters: Integer current round number.
+        Returns: Boolean - true if the algorithm is done.
+     */
+    boolean isDone(int round);
+
+    /*
+        Method: getLastRound
+        Description: Returns the last round the algorithm can need in any topology of the node's size - the node
+            stops after the last round of its algorithms at the latest (and always runs that many with fixed
+            termination).
+        Parameters: None
+        Returns: Integer round number.
+     */
+    int getLastRound();
+
+    /*
+        Method: addResult
+        Description: Adds the lines of the algorithm's result to the node's output once the node has terminated.
+        Parameters: List of output lines to add to.
+        Returns: Nothing
+     */
+    void addResult(ArrayList<String> lines);
+
+    /*
+        Method: saveState
+        Description: Writes what the algorithm needs to continue from the round the node is entering, for a
+            checkpoint of the node (see Checkpoint). Called before the node's messages for the round are produced.
+        Parameters: DataOutput to write to.
+        Returns: Nothing
+     */
+    void saveState(DataOutput out) throws IOException;
+
+    /*
+        Method: restoreState
+        Description: Reads the state written by saveState into a newly created algorithm of the same node.
+        Parameters: DataInput to read from.
+        Returns: Nothing
+     */
+    void restoreState(DataInput in) throws IOException;
+
+}
@@ -0,0 +1,83 @@
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+
+// Executor that runs every task on a new thread - used for the channel handlers of the threads transport (see
+// RunOptions.transportMode), which block while they wait for messages or for the node to catch up. With
+// channel.threads=virtual each task gets a virtual thread, so a node with thousands of neighbors does not need
+// thousands of platform threads. Only LoopbackHost runs virtual channel handlers: they wait on a ReentrantLock
+// condition (see SCTPClientServer) or park until a neighbor's message arrives, both of which release the carrier
+// thread. An SCTP handler would not - SctpChannel.receive blocks in native code inside a synchronized block, which
+// pins the carrier for as long as it waits, so with more neighbors than carriers the handlers left unmounted could
+// not read their channels and the round would starve. SCTPTransport refuses virtual threads for that reason.
+// Virtual threads need Java 21 (or 19/20 with --enable-preview). They are looked up by reflection so the code
+// still compiles for Java 17; asking for them on a JVM without them fails instead of quietly running platform
+// threads, so a run never reports platform threads as virtual ones.
+public class ThreadPerTask implements Executor {
+
+    // Creates the thread of each task, and whether they are virtual threads.
+    private final ThreadFactory factory;
+    private final boolean virtual;
+
+    // Constructor - virtual selects virtual threads (UnsupportedOperationException if the JVM does not have them),
+    // daemon makes platform threads daemon threads (virtual threads always are).
+    public ThreadPerTask(boolean virtual, boolean daemon)
+    {
+        this.virtual = virtual;
+        if(virtual)
+        {
+            factory = virtualThreadFactory();
+        }
+        else
+        {
+            factory = runnable -> {
+                Thread thread = new Thread(runnable);
+                thread.setDaemon(daemon);
+                return thread;
+            };
+        }
+    }
+
+    /*
+        Method: execute
+        Description: Starts a new thread that runs the task.
+        Parameters: Task to run.
+        Returns: Nothing
+     */
+    @Override
+    public void execute(Runnable command)
+    {
+        factory.newThread(command).start();
+    }
+
+    /*
+        Method: isVirtual
+        Description: Determines if the tasks run on virtual threads.
+        Parameters: None
+        Returns: Boolean - false if platform threads are used.
+     */
+    public boolean isVirtual()
+    {
+        return virtual;
+    }
+
+    /*
+        Method: virtualThreadFactory
+        Description: Returns a factory of virtual threads (Thread.ofVirtual().factory()).
+        Parameters: None
+        Returns: ThreadFactory of virtual threads. Throws UnsupportedOperationException if the JVM does not have them.
+     */
+    private static ThreadFactory virtualThreadFactory()
+    {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+        }
+        catch(ReflectiveOperationException | RuntimeException e)
+        {
+            // Missing before Java 19, and a preview feature that throws unless enabled in Java 19 and 20.
+            throw new UnsupportedOperationException("channel.threads=virtual needs Java 21 - virtual threads are " +
+                    "not available in Java " + System.getProperty("java.version") + ".", e);
+        }
+    }
+
+}
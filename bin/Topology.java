@@ -0,0 +1,164 @@
+import java.util.Arrays;
+
+// This class holds the topology read from the config file as an immutable graph in compressed sparse row form: the
+// neighbor IDs of all nodes are stored one after the other in one int array (targets), and node i's neighbors are
+// targets[offsets[i]] to targets[offsets[i+1]-1], in the order the config file lists them. A neighbor's index in
+// that range is its port number on the node - the node's per-neighbor state (channels, outboxes, buffered messages,
+// what was sent and received this round) lives in flat arrays indexed by port. Compared to a LinkedList<Integer>
+// per node this takes 8 bytes per neighbor ID (the ID and its entry in portsByID) instead of about 44, and the
+// neighbors of a node are visited in one sequential read (see topology.footprint and topology.scan in Benchmarks).
+// Nodes whose neighbor list was not read (see ConfigParser) have no neighbors. All nodes of a JVM share one object.
+public class Topology {
+
+    // Start of each node's neighbors in targets (numOfNodes + 1 entries - the last one is the number of entries).
+    private final int[] offsets;
+    // Neighbor IDs of all nodes, node by node.
+    private final int[] targets;
+    // Ports of each node's neighbors sorted by neighbor ID (same layout as targets), so a neighbor's port is found
+    // with a binary search.
+    private final int[] portsByID;
+
+    // Constructor - the arrays are kept, not copied, so the caller must not change them afterwards.
+    public Topology(int[] offsets, int[] targets)
+    {
+        if(offsets.length == 0 || offsets[0] != 0 || offsets[offsets.length - 1] != targets.length)
+        {
+            throw new IllegalArgumentException("Offsets do not match the " + targets.length + " neighbor IDs.");
+        }
+        this.offsets = offsets;
+        this.targets = targets;
+
+        // Sort the ports of each node by neighbor ID.
+        portsByID = new int[targets.length];
+        long[] keys = new long[0];
+        for(int nodeID = 0; nodeID + 1 < offsets.length; nodeID++)
+        {
+            int start = offsets[nodeID];
+            int degree = offsets[nodeID + 1] - start;
+            if(degree > keys.length)
+            {
+                keys = new long[degree];
+            }
+            for(int port = 0; port < degree; port++)
+            {
+                keys[port] = (long) targets[start + port] << 32 | port;
+            }
+            Arrays.sort(keys, 0, degree);
+            for(int i = 0; i < degree; i++)
+            {
+                portsByID[start + i] = (int) keys[i];
+            }
+        }
+    }
+
+    /*
+        Method: fromLists
+        Description: Creates a topology from the neighbor list of each node, i.e. for a harness.
+        Parameters: Array of neighbor ID arrays indexed by node ID (null for a node without neighbors).
+        Returns: Topology of the lists.
+     */
+    public static Topology fromLists(int[][] neighborLists)
+    {
+        int[] offsets = new int[neighborLists.length + 1];
+        for(int nodeID = 0; nodeID < neighborLists.length; nodeID++)
+        {
+            offsets[nodeID + 1] = offsets[nodeID] + (neighborLists[nodeID] == null ? 0 : neighborLists[nodeID].length);
+        }
+        int[] targets = new int[offsets[neighborLists.length]];
+        for(int nodeID = 0; nodeID < neighborLists.length; nodeID++)
+        {
+            if(neighborLists[nodeID] != null)
+            {
+                System.arraycopy(neighborLists[nodeID], 0, targets, offsets[nodeID], neighborLists[nodeID].length);
+            }
+        }
+        return new Topology(offsets, targets);
+    }
+
+    /*
+        Method: getNumOfNodes
+        Description: Returns the number of nodes in the topology.
+        Parameters: None
+        Returns: Integer number of nodes.
+     */
+    public int getNumOfNodes()
+    {
+        return offsets.length - 1;
+    }
+
+    /*
+        Method: getNumOfEntries
+        Description: Returns the number of neighbor IDs stored - each edge of a fully read topology counts twice.
+        Parameters: None
+        Returns: Integer number of neighbor IDs.
+     */
+    public int getNumOfEntries()
+    {
+        return targets.length;
+    }
+
+    /*
+        Method: getDegree
+        Description: Returns the number of neighbors of a node.
+        Parameters: Integer node ID.
+        Returns: Integer degree (0 if the node's neighbor list was not read).
+     */
+    public int getDegree(int nodeID)
+    {
+        return offsets[nodeID + 1] - offsets[nodeID];
+    }
+
+    /*
+        Method: getNeighbor
+        Description: Returns the neighbor of a node on a port.
+        Parameters: Integer node ID and integer port number (0 to degree-1).
+        Returns: Integer neighbor node ID.
+     */
+    public int getNeighbor(int nodeID, int port)
+    {
+        return targets[offsets[nodeID] + port];
+    }
+
+    /*
+        Method: getPort
+        Description: Returns the port number of a neighbor on a node (binary search of the node's sorted ports).
+        Parameters: Integer node ID and integer neighbor node ID.
+        Returns: Integer port number, or -1 if the nodes are not neighbors.
+     */
+    public int getPort(int nodeID, int neighborID)
+    {
+        int low = offsets[nodeID];
+        int high = offsets[nodeID + 1] - 1;
+        while(low <= high)
+        {
+            int mid = (low + high) >>> 1;
+            int port = portsByID[mid];
+            int id = targets[offsets[nodeID] + port];
+            if(id < neighborID)
+            {
+                low = mid + 1;
+            }
+            else if(id > neighborID)
+            {
+                high = mid - 1;
+            }
+            else
+            {
+                return port;
+            }
+        }
+        return -1;
+    }
+
+    /*
+        Method: getNeighbors
+        Description: Returns a copy of the neighbor IDs of a node in port order.
+        Parameters: Integer node ID.
+        Returns: Array of neighbor node IDs.
+     */
+    public int[] getNeighbors(int nodeID)
+    {
+        return Arrays.copyOfRange(targets, offsets[nodeID], offsets[nodeID + 1]);
+    }
+
+}
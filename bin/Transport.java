@@ -0,0 +1,16 @@
+// Implemented by the ways a node's channels to its neighbors can be connected - SCTP sockets (SCTPTransport) or
+// in-memory queues inside one JVM (LoopbackTransport). A transport creates a RoundChannel for each neighbor and
+// registers it with the node's synchronizer once it is connected, and hands every message received on it to the
+// synchronizer. The synchronizer and the distributed algorithm do not depend on how messages get to the neighbors.
+public interface Transport {
+
+    /*
+        Method: start
+        Description: Starts connecting the node's channels to its neighbors. Returns without waiting for the channels
+            to be connected - each channel is registered with the synchronizer once it is.
+        Parameters: Synchronizer of the node and the node information.
+        Returns: Nothing
+     */
+    void start(SCTPClientServer cs, Node nodeInfo) throws Exception;
+
+}
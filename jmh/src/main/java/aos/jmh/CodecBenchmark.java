@@ -0,0 +1,47 @@
+package aos.jmh;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+// Times Message.toByteBuffer and Message.fromByteBuffer for both wire formats across frontier sizes (codec.encode
+// and codec.decode of Benchmarks).
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CodecBenchmark
+{
+
+    @Param({"binary", "java"})
+    public String codec;
+
+    @Param({"0", "16", "256", "4096", "65536"})
+    public int frontier;
+
+    private Callable<Object> encode;
+    private Callable<Object> decode;
+
+    @Setup
+    public void setup() throws Exception
+    {
+        encode = Operations.get("encodeOperation", codec, frontier);
+        decode = Operations.get("decodeOperation", codec, frontier);
+    }
+
+    @Benchmark
+    public Object encode() throws Exception
+    {
+        return encode.call();
+    }
+
+    @Benchmark
+    public Object decode() throws Exception
+    {
+        return decode.call();
+    }
+
+}
@@ -0,0 +1,39 @@
+package aos.jmh;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+// Times ConfigParser on generated configs of 1k to 1M lines, reading the neighbor lists of all nodes or only those
+// of one node (config.read of Benchmarks).
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConfigBenchmark
+{
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int lines;
+
+    @Param({"all", "own"})
+    public String neighbors;
+
+    private Callable<Object> read;
+
+    @Setup
+    public void setup() throws Exception
+    {
+        read = Operations.get("configOperation", lines, neighbors.equals("all"));
+    }
+
+    @Benchmark
+    public Object read() throws Exception
+    {
+        return read.call();
+    }
+
+}
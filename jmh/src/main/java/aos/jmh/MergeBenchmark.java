@@ -0,0 +1,48 @@
+package aos.jmh;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+// Times SCTPClientServer.messageReceived merging the round 0 frontiers of all neighbors of a node, across degrees
+// and numbers of nodes (merge.messageReceived of Benchmarks). Each operation is a whole round - every neighbor's
+// message - merged into a new node, which is created before the operation and not timed.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class MergeBenchmark
+{
+
+    @Param({"4", "32", "256", "1024"})
+    public int degree;
+
+    // More nodes than the largest degree, since every combination of the parameters is run.
+    @Param({"2048", "100000"})
+    public int nodes;
+
+    private Callable<Callable<Object>> newRound;
+    private Callable<Object> round;
+
+    @Setup
+    public void setup() throws Exception
+    {
+        newRound = Operations.get("mergeOperation", degree, nodes);
+    }
+
+    @Setup(Level.Invocation)
+    public void newNode() throws Exception
+    {
+        round = newRound.call();
+    }
+
+    @Benchmark
+    public Object messageReceived() throws Exception
+    {
+        return round.call();
+    }
+
+}
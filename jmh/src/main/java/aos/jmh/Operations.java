@@ -0,0 +1,35 @@
+package aos.jmh;
+
+import java.lang.reflect.Method;
+
+// This class gets the operations the benchmarks time from Benchmarks in ../bin (encodeOperation and the methods
+// after it), so JMH times the same work as "java Benchmarks". The project's classes are in the default package,
+// which a named package cannot import, and JMH does not run benchmarks in the default package - so the operations
+// are looked up by reflection once per trial and then called through java.util.concurrent.Callable.
+final class Operations
+{
+
+    private Operations()
+    {
+    }
+
+    /*
+        Method: get
+        Description: Calls one of the public static operation methods of Benchmarks.
+        Parameters: String name of the method and its arguments.
+        Returns: The operation the method returns.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T get(String name, Object... args) throws Exception
+    {
+        for(Method method : Class.forName("Benchmarks").getMethods())
+        {
+            if(method.getName().equals(name) && method.getParameterCount() == args.length)
+            {
+                return (T) method.invoke(null, args);
+            }
+        }
+        throw new NoSuchMethodException("Benchmarks." + name + " with " + args.length + " parameters");
+    }
+
+}
@@ -19,9 +19,27 @@ BINDIR=$PROJDIR/bin
 #PROG=/home/012/j/jm/jmw150330/Documents/AOS/Projects/Project1/bin/DistributedSystem
 PROG=DistributedSystem
 
+# Run options passed to every node as Java system properties (see RunOptions.java), e.g. "-Dmessage.codec=java"
+JAVA_OPTS=""
+
+# Set to 1 to start one JVM per machine that runs all nodes of that machine (java $PROG <node ID list> $CONFIG),
+# instead of one JVM per node
+HOST_MODE=0
+
+# Set to 1 to relaunch the nodes after a failure - each node resumes from its last checkpoint (see checkpoint.interval
+# in RunOptions.java, which JAVA_OPTS has to set as in the failed run) instead of starting over from round 0
+RESUME=0
+if [[ $RESUME -eq 1 ]]
+then
+	JAVA_OPTS="$JAVA_OPTS -Dcheckpoint.resume=true"
+fi
+
 n=0
 cat $CONFIGLOCAL | sed -e "s/#.*//" | sed -e "/^\s*$/d" | sed -e 's/\r$//g' |
 (
+	# Node IDs of each machine (host mode)
+	declare -A hostNodes
+
 	# Read number of nodes
     read i
 	# Print number of nodes
@@ -37,10 +55,24 @@ cat $CONFIGLOCAL | sed -e "s/#.*//" | sed -e "/^\s*$/d" | sed -e 's/\r$//g' |
     	p=$( echo $line | awk '{ print $1 }' )
 		# Get hostname 
         host=$( echo $line | awk '{ print $2 }' )
+
+		# Host mode - collect the node IDs of each machine and start them after all nodes are read.
+		if [[ $HOST_MODE -eq 1 ]]
+		then
+			hostNodes[$host]="${hostNodes[$host]:+${hostNodes[$host]},}$p"
+			n=$(( n + 1 ))
+			continue
+		fi
 		
 	# java -cp $BINDIR $PROG $p -> execute java.exe with custom classpath $BINDIR and execute program $PROG with argument nodeID $p and config file location $CONFIG
-	gnome-terminal -- ssh -o UserKnownHostsFile=/dev/null -o StrictHostKeyChecking=no $netid@$host "hostname; java -cp $BINDIR $PROG $p $CONFIG; exec bash" &
+	gnome-terminal -- ssh -o UserKnownHostsFile=/dev/null -o StrictHostKeyChecking=no $netid@$host "hostname; java $JAVA_OPTS -cp $BINDIR $PROG $p $CONFIG; exec bash" &
 
         n=$(( n + 1 ))
     done
+
+	# Host mode - one JVM per machine runs the list of its node IDs.
+	for host in "${!hostNodes[@]}"
+	do
+		gnome-terminal -- ssh -o UserKnownHostsFile=/dev/null -o StrictHostKeyChecking=no $netid@$host "hostname; java $JAVA_OPTS -cp $BINDIR $PROG ${hostNodes[$host]} $CONFIG; exec bash" &
+	done
 )